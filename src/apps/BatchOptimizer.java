@@ -0,0 +1,411 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2017 Justin Kunimune
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package apps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import maps.ArbitraryPseudocylindrical;
+import maps.Cylindrical;
+import maps.Misc;
+import maps.Polyhedral;
+import maps.Projection;
+import maps.Tobler;
+import maps.WinkelTripel;
+import utils.linalg.Matrix;
+import utils.linalg.Vector;
+
+/**
+ * The number-crunching part of MapOptimizer, which finds the best parameters for families of
+ * map projections. It doesn't need JavaFX, so it can be run on its own from the command line:
+ * <pre>
+ * java apps.BatchOptimizer [output directory] [--chart]
+ * </pre>
+ * This writes parameters.txt, optimizer.csv, and optimizer.json, and, if asked, draws the graph.
+ * 
+ * @author Justin Kunimune
+ */
+public class BatchOptimizer {
+	
+	static final Projection[] EXISTING_PROJECTIONS = { Cylindrical.BEHRMANN,
+			ArbitraryPseudocylindrical.ROBINSON, Cylindrical.PLATE_CARREE, Cylindrical.GALL_STEREOGRAPHIC,
+			Misc.PEIRCE_QUINCUNCIAL };
+	static final Projection[] PROJECTIONS_TO_OPTIMIZE = { Tobler.TOBLER,
+			WinkelTripel.WINKEL_TRIPEL, Polyhedral.AUTHAPOWER };
+	static final double[] WEIGHTS = { 0., .125, .25, .375, .5, .625, .75, .875, 1. };
+	static final String EXISTING_SERIES = "Basic Projections";
+	private static final int NUM_BRUTE_FORCE = 30;
+	private static final int NUM_BFGS_ITERATE = 7;
+	private static final double GOLDSTEIN_C = 0.5;
+	private static final double BACKTRACK_TAU = 0.5;
+	private static final double BACKTRACK_ALF0 = 4;
+	private static final double DEL_X = 0.05;
+	private static final double PARAM_QUANTUM = 1e-9; //parameter vectors closer than this are considered the same when caching
+	
+	private static final double[][][] GLOBE = Projection.hemisphere(0.01);
+	
+	
+	public static final void main(String[] args) throws IOException {
+		File directory = new File("output");
+		boolean chart = false;
+		for (String arg: args) {
+			if (arg.equals("--chart"))
+				chart = true;
+			else
+				directory = new File(arg);
+		}
+		System.setProperty("java.awt.headless", "true"); //make sure nobody tries to open a window
+		
+		final long startTime = System.currentTimeMillis();
+		
+		final PrintStream log = new PrintStream(new File(directory, "parameters.txt"));
+		final BatchResults results = optimiseAll(log);
+		log.close();
+		
+		System.out.println("Total time elapsed: " + (System.currentTimeMillis() - startTime) / 60000. + "m");
+		
+		results.writeCSV(new File(directory, "optimizer.csv"));
+		results.writeJSON(new File(directory, "optimizer.json"));
+		if (chart)
+			results.writeChart(new File(directory, "graph - optimizer.png"),
+					"Size distortion", "Shape distortion", .6, .1, false);
+	}
+	
+	
+	/**
+	 * Analyze the EXISTING_PROJECTIONS and optimize the PROJECTIONS_TO_OPTIMIZE.
+	 * @param log - The stream to which to print the optimal parameters.
+	 * @return The distortion of each existing projection and each optimized one.
+	 */
+	public static BatchResults optimiseAll(PrintStream log) {
+		final BatchResults results = new BatchResults();
+		analyzeAll(results, EXISTING_PROJECTIONS);
+		for (Projection p: PROJECTIONS_TO_OPTIMIZE)
+			optimiseFamily(p, log, results);
+		return results;
+	}
+	
+	
+	/**
+	 * Analyze the specified preexisting map projections.
+	 * @param results - The table to which to add their distortions.
+	 * @param projs - The projections to analyze, which must not be parametrized.
+	 */
+	public static void analyzeAll(BatchResults results, Projection... projs) {
+		System.out.println("Analyzing " + Arrays.toString(projs));
+		for (Projection proj : projs) {
+			if (!proj.isParametrized()) {
+				double[] distortion = proj.avgDistortion(GLOBE, proj.getDefaultParameters());
+				results.add(EXISTING_SERIES, proj.getName(), new double[0], distortion[0], distortion[1]);
+			}
+		}
+	}
+	
+	
+	private static final double weighDistortion(double[] distortions, double weight) {
+		return distortions[0]*weight + distortions[1]*(1-weight);
+	}
+	
+	
+	/**
+	 * Find the Pareto-optimal members of a family of projections for each of the WEIGHTS.
+	 * @param proj - The parametrized projection to optimize.
+	 * @param log - The stream to which to print the optimal parameters.
+	 * @param results - The table to which to add the optimal projections and their distortions.
+	 */
+	public static void optimiseFamily(
+			Projection proj, PrintStream log, BatchResults results) { //optimize and plot some maps of a given family
+		System.out.println("Optimizing " + proj.getName());
+		
+		final double[][] best = new double[WEIGHTS.length][proj.getNumParameters()];
+		final ByteArrayOutputStream[] transcripts = new ByteArrayOutputStream[WEIGHTS.length];
+		final AtomicInteger numEvaluations = new AtomicInteger(0);
+		final Function<double[], double[]> distortionOf = memoizeDistortion(proj, numEvaluations); //the weights all share the same distortion values
+		
+		IntStream.range(0, WEIGHTS.length).parallel().forEach((k) -> { //the weights are independent, so do them all at once
+			final double weighFactor = WEIGHTS[k];
+			final Function<double[], Double> func = (params) ->
+					weighDistortion(distortionOf.apply(params), weighFactor);
+			transcripts[k] = new ByteArrayOutputStream();
+			final PrintStream out = new PrintStream(transcripts[k]);
+			
+			final double[] start = bruteForceMinimise(func, proj.getParameterValues(), out);
+			best[k] = bfgsMinimise(func, start, out);
+			out.close();
+		});
+		
+		for (ByteArrayOutputStream transcript: transcripts) //print the progress reports in the order they would have come serially
+			System.out.print(transcript.toString());
+		System.out.println("Evaluated "+proj.getName()+" at "+numEvaluations.get()+" distinct points");
+		
+		log.println("We got the best " + proj.getName() + " projections using:"); //now log it
+		for (int k = 0; k < WEIGHTS.length; k ++) { //for each weight
+			log.print("\t");
+			
+			for (int i = 0; i < proj.getNumParameters(); i++)
+				log.print("t" + i + "=" + best[k][i] + "; "); //print the parameters used
+			
+			double[] distortion = distortionOf.apply(best[k]);
+			log.println("\t(" + distortion[0] + ", " + distortion[1] + ")"); //print the resulting distortion
+			
+			results.add(proj.getName(), "weight=" + WEIGHTS[k], best[k], distortion[0], distortion[1]); //and save it
+		}
+		log.println();
+	}
+	
+	
+	/**
+	 * Builds a function that computes the average distortion of proj for a set of parameters,
+	 * remembering every result so that no parameter vector need be evaluated twice. It is safe to
+	 * call from multiple threads; each evaluation uses its own copy of proj.
+	 * @param proj - The projection family to analyze.
+	 * @param numEvaluations - A counter to increment every time a new distortion is calculated.
+	 * @return A function that returns the size and shape distortion for the given parameters.
+	 */
+	private static Function<double[], double[]> memoizeDistortion(
+			Projection proj, AtomicInteger numEvaluations) {
+		final ConcurrentHashMap<List<Long>, CompletableFuture<double[]>> cache =
+				new ConcurrentHashMap<List<Long>, CompletableFuture<double[]>>();
+		return (params) -> {
+			final List<Long> key = new ArrayList<Long>(params.length);
+			final double[] snapped = new double[params.length]; //evaluate at the quantized point so the result depends only on the key
+			for (int i = 0; i < params.length; i ++) {
+				if (!Double.isFinite(params[i])) //don't try to cache nonsense
+					return proj.copy().avgDistortion(GLOBE, params);
+				key.add(Math.round(params[i]/PARAM_QUANTUM));
+				snapped[i] = key.get(i)*PARAM_QUANTUM;
+			}
+			
+			final CompletableFuture<double[]> entry = new CompletableFuture<double[]>();
+			final CompletableFuture<double[]> existing = cache.putIfAbsent(key, entry);
+			if (existing != null) //if someone else has this one, wait for them to finish it
+				return existing.join();
+			
+			try {
+				numEvaluations.incrementAndGet();
+				entry.complete(proj.copy().avgDistortion(GLOBE, snapped)); //otherwise, calculate it and share
+			} catch (RuntimeException e) {
+				entry.completeExceptionally(e);
+			}
+			return entry.join();
+		};
+	}
+	
+	
+	/**
+	 * Evaluates the function at each of the given points concurrently.
+	 * @param func - The function to evaluate, which must be safe to call from multiple threads.
+	 * @param points - The inputs at which to evaluate it.
+	 * @return The value of func at each point, in the same order as points.
+	 */
+	private static double[] evaluateAll(Function<double[], Double> func, List<double[]> points) {
+		return points.parallelStream().mapToDouble(func::apply).toArray();
+	}
+	
+	
+	/**
+	 * Returns the parameters that minimise the function, based on a simple brute-force
+	 * parameter sweep.
+	 * @param func - The function to minimise.
+	 * @param bounds - Parameter limits for each argument.
+	 * @param out - The stream to which to print progress.
+	 * @return The best input to func that it found (the first, in case of a tie).
+	 */
+	private static double[] bruteForceMinimise(Function<double[], Double> func, double[][] bounds,
+			PrintStream out) {
+		final List<double[]> grid = new ArrayList<double[]>(); //first list every point in the sweep
+		final double[] params = new double[bounds.length];
+		for (int i = 0; i < params.length; i++)
+			params[i] = bounds[i][0]; // initialize params
+		
+		while (true) { // run until you've exhausted the parameter space
+			grid.add(params.clone());
+			
+			int i;
+			for (i = 0; i < params.length; i++) { // iterate the parameters
+				final double step = (bounds[i][1] - bounds[i][0]) /
+						Math.floor(Math.pow(NUM_BRUTE_FORCE, 1./params.length));
+				if (params[i] + step < bounds[i][1] + 1e-5) {
+					for (int j = 0; j < i; j ++)
+						params[j] = bounds[j][0];
+					params[i] += step;
+					break;
+				}
+			}
+			if (i == params.length)
+				break; // if you made it through all the parameters without breaking, you're done!
+		}
+		
+		final double[] values = evaluateAll(func, grid); //then evaluate them all at once
+		
+		out.println("BF = [");
+		double bestValue = Double.POSITIVE_INFINITY;
+		double[] bestParams = new double[params.length];
+		for (int k = 0; k < grid.size(); k ++) {
+			for (int i = 0; i < params.length; i ++)
+				out.print(grid.get(k)[i]+", ");
+			out.println(values[k]+";");
+			if (values[k] < bestValue) {
+				bestValue = values[k];
+				bestParams = grid.get(k);
+			}
+		}
+		out.println("];");
+		return bestParams;
+	}
+	
+	
+	/**
+	 * Calculates the set of parameters that minimises the function using BFGS optimisation with
+	 * a backtracking line search.
+	 * @param arrFunction - The function that takes a parameter array and returns a double value.
+	 * @param x0 - The initial guess.
+	 * @param out - The stream to which to print progress.
+	 * @return The array of parameters that mimimise arrFunction.
+	 */
+	private static double[] bfgsMinimise(Function<double[], Double> arrFunction, double[] x0,
+			PrintStream out) { //The Broyden-Fletcher-Goldfarb-Shanno algorithm
+		out.println("BFGS = [");
+		final int n = x0.length;
+		final Matrix I = Matrix.identity(n);
+		final Function<Vector, Double> func = (vec) -> arrFunction.apply(vec.asArray());
+		
+		Vector xk = new Vector(x0); //initial variable values
+		double fxk = func.apply(xk);
+		Matrix Binv = hessian(func, xk, fxk).inverse();
+		Vector gradFxk = grad(func, xk, fxk, out); //function at current location
+		
+		for (int k = 0; k < NUM_BFGS_ITERATE; k ++) { //(I'm not sure how to test for convergence here, so I'm just running a set number of iterations)
+			Vector pk = Vector.fromMatrix(Binv.times(gradFxk)); //apply Newton's method for initial step direction
+			pk = pk.times(-Math.signum(pk.dot(gradFxk))); //but make sure it points downhill
+			
+			double alfk = BACKTRACK_ALF0; //perform a backtracking line search to find the best alpha
+			double fxkp1 = func.apply(xk.plus(pk.times(alfk)));
+			while ((!Double.isFinite(fxkp1) || fxkp1 > fxk + alfk*pk.dot(gradFxk)*GOLDSTEIN_C)) {
+				if (alfk <= 1e-5)
+					return xk.asArray(); //a simple way to check for convergence: if xk gets ridiculously small, we're done here.
+				alfk *= BACKTRACK_TAU;
+				fxkp1 = func.apply(xk.plus(pk.times(alfk)));
+			}
+			
+			Vector sk = pk.times(alfk); //iterate
+			Vector xkp1 = xk.plus(sk);
+			
+			Vector gradFxkp1 = grad(func, xkp1, fxkp1, out); //compute new gradient
+			Vector yk = gradFxkp1.minus(gradFxk); //and gradient change
+			
+			Matrix a = I.minus(sk.times(yk.T()).times(1/yk.dot(sk)));
+			Matrix b = sk.times(sk.T()).times(1/yk.dot(sk));
+			Binv = a.times(Binv).times(a.T()).plus(b); //update Binv
+			
+			xk = xkp1;
+			fxk = fxkp1;
+			gradFxk = gradFxkp1; //and save the gradient
+		}
+		out.println("];");
+		return xk.asArray();
+	}
+	
+	
+	/**
+	 * Calculates the gradient vector of f at x.
+	 * @param f - The function to differentiate.
+	 * @param x - The point at which to differentiate.
+	 * @param fx - The value of f(x), to speed computations.
+	 * @param out - The stream to which to print progress.
+	 * @return The vector of partial derivatives of f at x.
+	 */
+	private static Vector grad(Function<Vector, Double> f, Vector x, double fx, PrintStream out) {
+		final int n = x.getLength();
+		final List<double[]> stencil = new ArrayList<double[]>();
+		for (int i = 0; i < n; i ++)
+			stencil.add(x.plus(Vector.unit(i,n).times(DEL_X)).asArray());
+		final double[] fxph = evaluateAll((arr) -> f.apply(new Vector(arr)), stencil);
+		
+		Vector gradF = new Vector(n); //compute the gradient
+		for (int i = 0; i < n; i ++)
+			gradF.setElement(i, (fxph[i]-fx)/DEL_X);
+		for (double d: x.asArray())
+			out.print(d+", ");
+		out.println(fx+";");
+		return gradF;
+	}
+	
+	
+	/**
+	 * Computes the Hessian matrix of f at x.
+	 * @param f - The function to differentiate.
+	 * @param x - The point at which to differentiate.
+	 * @param fx - The value of f(x), to aid in computation.
+	 * @return The Jacobian of the gradient, a symmetric Matrix of second derivatives.
+	 */
+	private static Matrix hessian(Function<Vector, Double> f, Vector x, double fx) {
+		final int n = x.getLength();
+		
+		final List<Integer> indices = new ArrayList<Integer>(); //points in array placed with ternary coordinates
+		final List<double[]> stencil = new ArrayList<double[]>();
+		for (int i = 0; i < n; i ++) { //for each primary dimension
+			for (int j = i; j < n; j ++) { //for each secondary dimension (skip a few to prevent redundant calculations)
+				indices.add((int)Math.pow(3, i) + (int)Math.pow(3, j)); //calculate the ternary index
+				Vector dx = Vector.unit(i, n).plus(Vector.unit(j, n)).times(DEL_X); //go a bit in both directions
+				stencil.add(x.plus(dx).asArray());
+			}
+			indices.add((int)Math.pow(3, i)); //do the same with just i, no j
+			Vector dx = Vector.unit(i, n).times(DEL_X);
+			stencil.add(x.plus(dx).asArray());
+		}
+		final double[] fxpdx = evaluateAll((arr) -> f.apply(new Vector(arr)), stencil); //calculate them all at once
+		
+		double[] values = new double[(int)Math.pow(3, n-1)*2+1];
+		values[0] = fx;
+		for (int l = 0; l < indices.size(); l ++)
+			values[indices.get(l)] = fxpdx[l]; //and save
+		
+		Matrix h = new Matrix(n, n);
+		for (int i = 0; i < n; i ++) { //compute the derivatives and fill the matrix
+			for (int j = i; j < n; j ++) {
+				int dxi = (int)Math.pow(3, i);
+				int dxj = (int)Math.pow(3, j);
+				double dfdx0 = (values[dxi] - values[0])/DEL_X;
+				double dfdx1 = (values[dxi+dxj] - values[dxj])/DEL_X;
+				double d2fdx2 = (dfdx1 - dfdx0)/DEL_X;
+				h.setElement(i, j, d2fdx2);
+				h.setElement(j, i, d2fdx2);
+			}
+		}
+		
+		return h;
+	}
+	
+}
@@ -0,0 +1,129 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2017 Justin Kunimune
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package apps;
+
+import java.io.File;
+import java.io.IOException;
+
+import maps.Meshed;
+import maps.ArbitraryPseudocylindrical;
+import maps.Azimuthal;
+import maps.Cylindrical;
+import maps.EqualEarth;
+import maps.Gyorffy;
+import maps.Lenticular;
+import maps.Misc;
+import maps.Octohedral;
+import maps.Polyhedral;
+import maps.Projection;
+import maps.Pseudocylindrical;
+import maps.WinkelTripel;
+
+/**
+ * The number-crunching part of MapPlotter, which scores a bunch of map projections by their
+ * distortion. It doesn't need JavaFX, so it can be run on its own from the command line:
+ * <pre>
+ * java apps.BatchPlotter [output directory] [--chart]
+ * </pre>
+ * This writes plotter.csv and plotter.json, and, if asked, draws the graph.
+ * 
+ * @author jkunimune
+ */
+public class BatchPlotter {
+	
+	private static final double DECIBEL = Math.log(10)/10;
+	
+	private static final double GLOBE_RES = .005;
+	
+	private static final Projection[] CYLINDRICAL = { Cylindrical.MERCATOR,
+			Cylindrical.PLATE_CARREE, Cylindrical.GALL_ORTHOGRAPHIC,
+			Cylindrical.GALL_STEREOGRAPHIC };
+	private static final Projection[] AZIMUTHAL = { Azimuthal.POLAR };
+	private static final Projection[] PSEUDOCYL = { Pseudocylindrical.MOLLWEIDE,
+			ArbitraryPseudocylindrical.ROBINSON, ArbitraryPseudocylindrical.NATURAL_EARTH,
+			Pseudocylindrical.KAVRAYSKIY_VII, EqualEarth.EQUAL_EARTH };
+	private static final Projection[] LENTICULAR = { Lenticular.AITOFF, Lenticular.VAN_DER_GRINTEN,
+			WinkelTripel.WINKEL_TRIPEL, Meshed.DANSEIJI_N, Meshed.DANSEIJI_I,
+			Meshed.DANSEIJI_II, Gyorffy.E, Gyorffy.F };
+	private static final Projection[] TETRAHEDRAL = { Polyhedral.LEE_TETRAHEDRAL_RECTANGULAR,
+			Polyhedral.AUTHAGRAPH, Polyhedral.VAN_LEEUWEN };
+	private static final Projection[] CHEATY = { Pseudocylindrical.LEMONS, Octohedral.KEYES_STANDARD,
+			Polyhedral.DYMAXION, Octohedral.CAHILL_CONCIALDI, Meshed.DANSEIJI_IV,
+			Pseudocylindrical.HOMOLOSINE_INTERRUPTED };
+	private static final Projection[] OTHER = { Misc.PEIRCE_QUINCUNCIAL };
+	
+	private static final Projection[][] GROUPS = { AZIMUTHAL, CYLINDRICAL, PSEUDOCYL, LENTICULAR,
+			TETRAHEDRAL, CHEATY, OTHER };
+	private static final String[] GROUP_NAMES = { "Azimuthal", "Cylindrical", "Pseudocylindrical",
+			"Lenticular", "Tetrahedral", "Interrupted", "Other" };
+	
+	
+	
+	public static final void main(String[] args) throws IOException {
+		File directory = new File("output");
+		boolean chart = false;
+		for (String arg: args) {
+			if (arg.equals("--chart"))
+				chart = true;
+			else
+				directory = new File(arg);
+		}
+		System.setProperty("java.awt.headless", "true"); //make sure nobody tries to open a window
+		
+		final BatchResults results = scoreAll();
+		
+		results.writeCSV(new File(directory, "plotter.csv"));
+		results.writeJSON(new File(directory, "plotter.json"));
+		if (chart)
+			results.writeChart(new File(directory, "graph - plotter.png"),
+					"RMS scale distortion", "RMS shape distortion", 4, .5, true);
+	}
+	
+	
+	/**
+	 * Calculate the distortion of every projection in every group, in decibels.
+	 * @return a table with one series for each group of projections.
+	 */
+	public static BatchResults scoreAll() {
+		final BatchResults results = new BatchResults();
+		final double[][][] points = Projection.globe(GLOBE_RES);
+		for (int i = 0; i < GROUPS.length; i ++)
+			scoreProjections(GROUPS[i], GROUP_NAMES[i], points, results);
+		return results;
+	}
+	
+	
+	private static void scoreProjections(Projection[] projections, String name,
+			double[][][] points, BatchResults results) {
+		for (Projection projection: projections) {
+			System.out.print(projection+": ");
+			final double[] params = projection.getDefaultParameters();
+			final double distortion[] = projection.avgDistortion(points, params);
+			results.add(name, projection.getName(), params,
+					distortion[0]/DECIBEL, distortion[1]/DECIBEL);
+			System.out.println(distortion[0]+", "+distortion[1]);
+		}
+	}
+	
+}
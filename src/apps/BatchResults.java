@@ -0,0 +1,250 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2026 Map-Projections contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package apps;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+/**
+ * A table of the distortion of a bunch of map projections, as calculated by the batch scripts.
+ * It can write itself to CSV or JSON, and can draw itself as a scatter plot without JavaFX.
+ *
+ * @author Map-Projections contributors
+ */
+public class BatchResults {
+	
+	private static final int CHART_WIDTH = 1000, CHART_HEIGHT = 700; //the size of the chart image in pixels
+	private static final int MARGIN = 60; //the space around the axes
+	private static final int LEGEND_WIDTH = 200; //the space to the right for the legend
+	private static final Color[] PALETTE = { new Color(0xF3622D), new Color(0xFBA71B),
+			new Color(0x57B757), new Color(0x41A9C9), new Color(0x4258C9), new Color(0x9A42C8),
+			new Color(0xC84164), new Color(0x888888) }; //the same colours JavaFX uses by default
+	
+	private final List<String> series = new ArrayList<String>(); //the group to which each row belongs
+	private final List<String> labels = new ArrayList<String>(); //the name of each row
+	private final List<double[]> params = new ArrayList<double[]>(); //the parameters used for each row
+	private final List<double[]> distortions = new ArrayList<double[]>(); //the size and shape distortion of each row
+	
+	
+	
+	public synchronized void add(String series, String label, double[] params,
+			double sizeDistortion, double shapeDistortion) {
+		this.series.add(series);
+		this.labels.add(label);
+		this.params.add(params.clone());
+		this.distortions.add(new double[] {sizeDistortion, shapeDistortion});
+	}
+	
+	
+	public int size() {
+		return series.size();
+	}
+	
+	public String getSeries(int i) {
+		return series.get(i);
+	}
+	
+	public String getLabel(int i) {
+		return labels.get(i);
+	}
+	
+	public double[] getParameters(int i) {
+		return params.get(i).clone();
+	}
+	
+	public double getSizeDistortion(int i) {
+		return distortions.get(i)[0];
+	}
+	
+	public double getShapeDistortion(int i) {
+		return distortions.get(i)[1];
+	}
+	
+	/**
+	 * @return the name of each series, in the order in which they first appear.
+	 */
+	public List<String> getSeriesNames() {
+		final List<String> names = new ArrayList<String>();
+		for (String name: series)
+			if (!names.contains(name))
+				names.add(name);
+		return names;
+	}
+	
+	
+	/**
+	 * Save the table as comma-separated values, with one row per projection and one column
+	 * for each parameter.
+	 * @param file - The destination.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void writeCSV(File file) throws IOException {
+		int numParams = 0;
+		for (double[] p: params)
+			numParams = Math.max(numParams, p.length);
+		
+		try (PrintStream out = new PrintStream(file, "UTF-8")) {
+			out.print("series,label,size distortion,shape distortion");
+			for (int j = 0; j < numParams; j ++)
+				out.print(",t"+j);
+			out.println();
+			for (int i = 0; i < size(); i ++) {
+				out.print(csvString(series.get(i))+","+csvString(labels.get(i))+","+
+						distortions.get(i)[0]+","+distortions.get(i)[1]);
+				for (int j = 0; j < numParams; j ++)
+					out.print(","+((j < params.get(i).length) ? Double.toString(params.get(i)[j]) : ""));
+				out.println();
+			}
+		}
+	}
+	
+	
+	/**
+	 * Save the table as a JSON array of objects, one for each projection.
+	 * @param file - The destination.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void writeJSON(File file) throws IOException {
+		try (PrintStream out = new PrintStream(file, "UTF-8")) {
+			out.println("[");
+			for (int i = 0; i < size(); i ++) {
+				out.print("  {\"series\": "+jsonString(series.get(i))+
+						", \"label\": "+jsonString(labels.get(i))+
+						", \"sizeDistortion\": "+jsonNumber(distortions.get(i)[0])+
+						", \"shapeDistortion\": "+jsonNumber(distortions.get(i)[1])+
+						", \"parameters\": [");
+				for (int j = 0; j < params.get(i).length; j ++)
+					out.print(((j > 0) ? ", " : "")+jsonNumber(params.get(i)[j]));
+				out.println("]}"+((i < size()-1) ? "," : ""));
+			}
+			out.println("]");
+		}
+	}
+	
+	
+	/**
+	 * Draw the table as a scatter plot of shape distortion against size distortion, using AWT
+	 * so that it works without a display.
+	 * @param file - The PNG file to which to save the chart.
+	 * @param xTitle - The label for the size distortion axis.
+	 * @param yTitle - The label for the shape distortion axis.
+	 * @param max - The largest value on both axes.
+	 * @param tick - The spacing between tick marks on both axes.
+	 * @param labelPoints - Whether to write each point's label next to it.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void writeChart(File file, String xTitle, String yTitle, double max, double tick,
+			boolean labelPoints) throws IOException {
+		final BufferedImage img = new BufferedImage(CHART_WIDTH, CHART_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g = img.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, CHART_WIDTH, CHART_HEIGHT);
+		g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+		final FontMetrics metrics = g.getFontMetrics();
+		
+		final int x0 = MARGIN, x1 = CHART_WIDTH - LEGEND_WIDTH; //the extent of the plot area
+		final int y0 = CHART_HEIGHT - MARGIN, y1 = MARGIN/2;
+		
+		for (int k = 0; k*tick <= max + 1e-9; k ++) { //draw the grid and tick labels
+			final String number = String.format("%.1f", k*tick);
+			final int x = (int)Math.round(x0 + k*tick/max*(x1 - x0));
+			final int y = (int)Math.round(y0 - k*tick/max*(y0 - y1));
+			g.setColor(new Color(0xDDDDDD));
+			g.drawLine(x, y0, x, y1);
+			g.drawLine(x0, y, x1, y);
+			g.setColor(Color.BLACK);
+			g.drawString(number, x - metrics.stringWidth(number)/2, y0 + metrics.getHeight());
+			g.drawString(number, x0 - metrics.stringWidth(number) - 5, y + metrics.getAscent()/2);
+		}
+		g.setStroke(new BasicStroke(1.5f));
+		g.drawLine(x0, y0, x1, y0);
+		g.drawLine(x0, y0, x0, y1);
+		g.drawString(xTitle, (x0 + x1 - metrics.stringWidth(xTitle))/2, y0 + 2*metrics.getHeight() + 5);
+		final Graphics2D rotated = (Graphics2D) g.create();
+		rotated.rotate(-Math.PI/2);
+		rotated.drawString(yTitle, -(y0 + y1 + metrics.stringWidth(yTitle))/2, MARGIN/3);
+		rotated.dispose();
+		
+		final List<String> names = getSeriesNames();
+		for (int s = 0; s < names.size(); s ++) { //then draw each series
+			final Color color = PALETTE[s%PALETTE.length];
+			g.setColor(color);
+			for (int i = 0; i < size(); i ++) {
+				if (!series.get(i).equals(names.get(s)))
+					continue;
+				final double x = x0 + distortions.get(i)[0]/max*(x1 - x0);
+				final double y = y0 - distortions.get(i)[1]/max*(y0 - y1);
+				if (!Double.isFinite(x) || !Double.isFinite(y))
+					continue;
+				g.fill(new Ellipse2D.Double(x - 4, y - 4, 8, 8));
+				if (labelPoints) {
+					g.setColor(Color.BLACK);
+					g.drawString(labels.get(i), (float)x + 6, (float)y - 4);
+					g.setColor(color);
+				}
+			}
+			final int legendY = y1 + 10 + s*(metrics.getHeight() + 6); //and put it in the legend
+			g.fill(new Ellipse2D.Double(x1 + 20, legendY - 8, 8, 8));
+			g.setColor(Color.BLACK);
+			g.drawString(names.get(s), x1 + 34, legendY);
+		}
+		g.dispose();
+		
+		ImageIO.write(img, "png", file);
+	}
+	
+	
+	private static String csvString(String s) {
+		if (s.contains(",") || s.contains("\"") || s.contains("\n"))
+			return "\"" + s.replace("\"", "\"\"") + "\"";
+		else
+			return s;
+	}
+	
+	
+	private static String jsonString(String s) {
+		return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+	}
+	
+	
+	private static String jsonNumber(double x) {
+		return Double.isFinite(x) ? Double.toString(x) : "null"; //JSON has no NaN or infinity
+	}
+	
+}
@@ -51,9 +51,9 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import maps.Projection;
 import utils.Flag;
-import utils.Math2;
 import utils.MutableDouble;
 import utils.Procedure;
+import utils.RunningStatistics;
 
 /**
  * An application to analyse the characteristics of map projections
@@ -73,6 +73,7 @@ public class MapAnalyzer extends MapApplication {
 	private static final int CHART_WIDTH = 400;
 	private static final int FINE_SAMP_NUM = 2048;
 	private static final double GLOBE_RES = .01;
+	private static final double HISTOGRAM_RES = LN_10/200; //the finest distinction the histograms can make
 	
 	private static final FileChooser.ExtensionFilter[] RASTER_TYPES = {
 			new FileChooser.ExtensionFilter("PNG", "*.png"),
@@ -245,7 +246,7 @@ public class MapAnalyzer extends MapApplication {
 			BarChart<String, Number> sizeChart, BarChart<String, Number> shapeChart,
 			Text avgSizeDistort, Text avgShapeDistort) {
 		return new Task<SavableImage>() {
-			double[][][] distortionG; //some variables that might get used later
+			RunningStatistics[] distortionG; //some variables that might get used later
 			double sizeDistort, shapeDistort;
 			BufferedImage graphic;
 			
@@ -256,9 +257,13 @@ public class MapAnalyzer extends MapApplication {
 				double[][][] distortionM = proj.calculateDistortion(proj.map(imgSize, crop),
 						this::isCancelled, (p) -> updateProgress(p, 2)); //calculate
 				if (sizeChart != null) {
-					distortionG = proj.calculateDistortion(Projection.globe(GLOBE_RES));
-					sizeDistort = Math2.stdDev(distortionG[0]);
-					shapeDistort = Math2.rms(distortionG[1]);
+					distortionG = proj.calculateDistortionStatistics(Projection.globe(GLOBE_RES),
+							new RunningStatistics(-25, 25, HISTOGRAM_RES),
+							new RunningStatistics(0, 25, HISTOGRAM_RES),
+							this::isCancelled, (p) -> {});
+					if (distortionG == null) 	return null;
+					sizeDistort = distortionG[0].getStdDev();
+					shapeDistort = distortionG[1].getRms();
 				}
 				
 				if (isCancelled()) 	return null;
@@ -318,11 +323,13 @@ public class MapAnalyzer extends MapApplication {
 				
 				if (sizeChart != null) { // and fill the plots with histograms of the new measurements
 					sizeChart.getData().clear();
-					sizeChart.getData().add(histogram(distortionG[0],
-							-LN_10, LN_10, 20, Math::exp));
+					sizeChart.getData().add(histogram(distortionG[0].getHistogram(
+							-LN_10, LN_10, 20, distortionG[0].getMean()),
+							-LN_10, LN_10, Math::exp));
 					shapeChart.getData().clear();
-					shapeChart.getData().add(histogram(distortionG[1],
-							   0.0, LN_10, 20, Math::exp));
+					shapeChart.getData().add(histogram(distortionG[1].getHistogram(
+							   0.0, LN_10, 20, 0),
+							   0.0, LN_10, Math::exp));
 					
 					avgSizeDistort.setText(format(sizeDistort/LN_10*10)+"dB"); // also put the average numbers in the textboxen
 					avgShapeDistort.setText(format(shapeDistort/LN_10*10)+"dB");
@@ -332,26 +339,15 @@ public class MapAnalyzer extends MapApplication {
 	}
 	
 	
-	private static final Series<String, Number> histogram(double[][] values,
-			double min, double max, int num, DoubleUnaryOperator converter) {
-		int[] hist = new int[num+1]; //this array is the histogram values for min, min+dx, ..., max-dx, max
-		int tot = 0;
-		for (double[] row: values) {
-			for (double x: row) {
-				if (Double.isFinite(x)) {
-					final int i = (int)Math.round((x-min)/(max-min)*num);
-					if (i >= 0 && i <= num)
-						hist[i] ++;
-					tot ++;
-				}
-			}
-		}
+	private static final Series<String, Number> histogram(double[] fractions,
+			double min, double max, DoubleUnaryOperator converter) {
+		final int num = fractions.length - 1; //the array has values for min, min+dx, ..., max-dx, max
 		Series<String, Number> output = new Series<String, Number>();
 		for (int i = 0; i <= num; i ++) {
 			double x = converter.applyAsDouble(i*(max-min)/num+min);
 			output.getData().add(new Data<String, Number>(
 					Double.toString(Math.round(100*x)/100.),
-					(double)hist[i]/tot*100));
+					fractions[i]*100));
 		}
 		return output;
 	}
@@ -169,6 +169,7 @@ public abstract class MapApplication extends Application {
 	
 	
 	private final Map<ButtonType, Button> buttons = new HashMap<ButtonType, Button>();
+	private final RenderScheduler previewScheduler = new RenderScheduler(); //the thing that runs the preview Tasks
 	
 	private String name;
 	private Stage root;
@@ -487,6 +488,26 @@ public abstract class MapApplication extends Application {
 			FileChooser.ExtensionFilter[] allowedExtensions,
 			FileChooser.ExtensionFilter defaultExtension,
 			BooleanSupplier mapVerifier, Supplier<Task<SavableImage>> mapCalculator) {
+		return buildSaveButton(bindCtrlS, savee, allowedExtensions, defaultExtension, mapVerifier,
+				(file) -> mapCalculator.get());
+	}
+	
+	
+	/**
+	 * Build a button that will save something, calculated by a callback that knows where it
+	 * will be saved, so that it can write straight to disk.
+	 * @param bindCtrlS - Should ctrl+S trigger this button?
+	 * @param savee - The name of the thing being saved.
+	 * @param allowedExtensions - The allowed file formats that can be saved.
+	 * @param defaultExtension - The default file format to be saved.
+	 * @param mapVerifier - A callback to run just before the saving happens that returns true if it should commence.
+	 * @param mapCalculator - The callback that saves the thing, given the file the user chose.
+	 * @return The button, ready to be pressed.
+	 */
+	protected Region buildSaveButton(boolean bindCtrlS, String savee,
+			FileChooser.ExtensionFilter[] allowedExtensions,
+			FileChooser.ExtensionFilter defaultExtension,
+			BooleanSupplier mapVerifier, Function<File, Task<SavableImage>> mapCalculator) {
 		FileChooser saver = new FileChooser();
 		saver.setInitialDirectory(new File("output"));
 		saver.setInitialFileName("my"+savee+defaultExtension.getExtensions().get(0).substring(1));
@@ -515,7 +536,7 @@ public abstract class MapApplication extends Application {
 				final File f = file;
 				
 				if (mapVerifier.getAsBoolean()) { //if the optional verification process verifies it (TODO: do this before choosing a file)
-					Task<SavableImage> task = mapCalculator.get(); //create the Task
+					Task<SavableImage> task = mapCalculator.apply(f); //create the Task
 					ProgressDialog<SavableImage> pBar = new ProgressDialog<SavableImage>(task); //and track its progress all the while
 					pBar.show();
 					task.setOnSucceeded((succeedEvent) -> { //save the result to disk when it finishes
@@ -551,6 +572,25 @@ public abstract class MapApplication extends Application {
 	}
 	
 	
+	/**
+	 * Run a Task that updates the preview, cancelling or dropping any preview Tasks that are still
+	 * running or waiting to run, so that only the most recent one gets drawn.
+	 * @param previewTask - The Task that will draw the new preview.
+	 */
+	protected void schedulePreview(Task<?> previewTask) {
+		previewScheduler.submit(previewTask);
+	}
+	
+	
+	/**
+	 * Cancel or drop every preview Task that is running or waiting to run, so that none of them
+	 * can draw over a full render that is about to start.
+	 */
+	protected void cancelPreviews() {
+		previewScheduler.cancelAll();
+	}
+	
+	
 	protected Projection getProjection() {
 		return projectionChooser.getValue();
 	}
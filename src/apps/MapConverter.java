@@ -58,7 +58,7 @@ public class MapConverter {
 			    inputPath.toString().endsWith(".png") &&
 			    !inputPath.toString().endsWith(".dymaxion.png")) {
 				System.out.println(inputPath);
-				PixelMap inputImage = new PixelMap(inputPath.toFile());
+				PixelMap inputImage = PixelMap.load(inputPath.toFile());
 
 				// reduce the area by 2 to avoid pixelation
 				double area = inputImage.getWidth() * inputImage.getHeight() / 2.;
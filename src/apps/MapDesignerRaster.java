@@ -30,6 +30,8 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -37,13 +39,18 @@ import java.util.function.Supplier;
 import dialogs.MapConfigurationDialog;
 import image.ImageUtils;
 import image.PixelMap;
+import image.SVGMap.Path;
 import image.SavableImage;
+import image.StripWriter;
+import image.TiledPixelMap;
 import image.TruncatedPixelMap;
+import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Separator;
+import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Region;
@@ -51,13 +58,18 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import maps.InverseGrid;
 import maps.Projection;
+import utils.FailureReport;
 import utils.Flag;
+import utils.Metrics;
 import utils.MutableDouble;
-import utils.Procedure;
 
 /**
- * An application to make raster oblique aspects of map projections
+ * An application to make raster oblique aspects of map projections. It interpolates the inverse
+ * projection wherever it is smooth (see InverseGrid), unless the <code>maps.exact</code> system
+ * property is set to true, in which case it calls the inverse at every sample; that is slower,
+ * but better for maps that must be exact, like a poster or a reference image.
  * 
  * @author Justin Kunimune
  */
@@ -70,16 +82,23 @@ public class MapDesignerRaster extends MapApplication {
 	
 	
 	private static final FileChooser.ExtensionFilter[] READABLE_TYPES = {
-			new FileChooser.ExtensionFilter("All image types", "*.png","*.jpg","*.jpeg","*.jpe","*.jfif","*.gif"),
+			new FileChooser.ExtensionFilter("All image types", "*.png","*.jpg","*.jpeg","*.jpe","*.jfif","*.gif","*"+TiledPixelMap.EXTENSION),
 			new FileChooser.ExtensionFilter("PNG", "*.png"),
 			new FileChooser.ExtensionFilter("JPG", "*.jpg","*.jpeg","*.jpe","*.jfif"),
-			new FileChooser.ExtensionFilter("GIF", "*.gif") };
+			new FileChooser.ExtensionFilter("GIF", "*.gif"),
+			new FileChooser.ExtensionFilter("Tiles", "*"+TiledPixelMap.EXTENSION) };
 	private static final FileChooser.ExtensionFilter[] RASTER_TYPES = {
 			new FileChooser.ExtensionFilter("PNG", "*.png"),
+			new FileChooser.ExtensionFilter("TIFF", "*.tif", "*.tiff"),
 			new FileChooser.ExtensionFilter("JPG", "*.jpg"),
 			new FileChooser.ExtensionFilter("GIF", "*.gif") };
 	
 	private static final double GRATICULE_PRECISION = 0.02;
+	private static final int STRIP_HEIGHT = 256; //the number of rows to hold in memory at once when streaming to disk
+	private static final int PREVIEW_REDUCTION = 8; //the factor by which the first preview is smaller than the full preview
+	private static final int FAST_PREVIEW_REDUCTION = 4; //the finest preview to bother with while the sliders are moving
+	public static final String EXACT_PROPERTY = "maps.exact"; //the system property that turns off interpolation of the inverse
+	private static final boolean ADAPTIVE_INVERSE = !Boolean.getBoolean(EXACT_PROPERTY); //interpolate the inverse where it is smooth rather than calling it at every sample
 	
 	private Region aspectSelector;
 	private double[] aspect;
@@ -114,8 +133,8 @@ public class MapDesignerRaster extends MapApplication {
 		final Region inputSelector = buildInputSelector(READABLE_TYPES,
 				RASTER_TYPES[0], this::setInputTask);
 		final Region projectionSelector = buildProjectionSelector(this::updateAspect);
-		this.aspectSelector = buildAspectSelector(this.aspect, Procedure.NONE);
-		final Region parameterSelector = buildParameterSelector(Procedure.NONE);
+		this.aspectSelector = buildAspectSelector(this.aspect, this::updatePreview);
+		final Region parameterSelector = buildParameterSelector(this::updatePreview);
 		final Region optionPane = buildOptionPane(cropAtIDL, graticuleSpacing);
 		final Region updateBtn = buildUpdateButton("Update Map", this::calculateTaskForUpdate);
 		final Region saveMapBtn = buildSaveButton(true, "map", RASTER_TYPES,
@@ -152,7 +171,7 @@ public class MapDesignerRaster extends MapApplication {
 				if (file.getName().contains("octant"))
 					input = new TruncatedPixelMap(file);
 				else
-					input = new PixelMap(file);
+					input = PixelMap.load(file);
 				return null;
 			}
 			
@@ -166,6 +185,13 @@ public class MapDesignerRaster extends MapApplication {
 	
 	private void updateAspect() {
 		aspectSelector.setVisible(this.getProjection().hasAspect());
+		updatePreview();
+	}
+	
+	
+	private void updatePreview() { //abandon any stale preview and start drawing a new one
+		if (input == null) 	return;
+		schedulePreview(calculateTaskForPreview());
 	}
 	
 	
@@ -188,13 +214,32 @@ public class MapDesignerRaster extends MapApplication {
 					(int)Math.max(1,IMG_SIZE*getProjection().getAspectRatio()), IMG_SIZE, 1);
 	}
 	
-	private Task<SavableImage> calculateTaskForSaving() {
+	private Task<Void> calculateTaskForPreview() {
+		loadParameters();
+		final int finest = this.getParamsChanging() ? FAST_PREVIEW_REDUCTION : 1;
+		final Projection proj = getProjection().copy(); //copy it so the next preview can change its parameters without disturbing this one
+		if (proj.isLandscape()) //fit it to an IMG_SIZE x IMG_SIZE box
+			return calculatePreviewTask(
+					IMG_SIZE, (int)Math.max(1,IMG_SIZE/proj.getAspectRatio()), finest,
+					input, proj, aspect.clone(), cropAtIDL.isSet(), graticuleSpacing.get(), display);
+		else
+			return calculatePreviewTask(
+					(int)Math.max(1,IMG_SIZE*proj.getAspectRatio()), IMG_SIZE, finest,
+					input, proj, aspect.clone(), cropAtIDL.isSet(), graticuleSpacing.get(), display);
+	}
+	
+	private Task<SavableImage> calculateTaskForSaving(File file) {
 		int[] outDims = configDialog.getDims();
 		int step = configDialog.getSmoothing();
-		return calculateTask(outDims[0], outDims[1], step);
+		if (StripWriter.canWrite(file)) //stream it straight to disk if we can, so it doesn't all have to fit in memory
+			return calculateTask(file, outDims[0], outDims[1], step,
+					input, getProjection(), aspect.clone(), cropAtIDL.isSet(), graticuleSpacing.get());
+		else
+			return calculateTask(outDims[0], outDims[1], step);
 	}
 	
 	private Task<SavableImage> calculateTask(int width, int height, int step) {
+		cancelPreviews(); //this map will be shown, so no preview that is in progress should replace it
 		return calculateTask(width, height, step,
 				input, getProjection(), aspect.clone(), cropAtIDL.isSet(), graticuleSpacing.get(),
 				display);
@@ -241,6 +286,90 @@ public class MapDesignerRaster extends MapApplication {
 		};
 	}
 
+	/**
+	 * Prepare a task to render a raster map directly to a file, a strip at a time, so that the map
+	 * can be much bigger than the available memory.
+	 * @param file - The PNG or TIFF file to which to write the map.
+	 * @param width - The desired map width.
+	 * @param height - The desired map height.
+	 * @param step - The desired amount of smoothing to apply.
+	 * @param input - The input equirectangular image.
+	 * @param proj - The Projection to do the mapping.
+	 * @param aspect - The oblique axis of the map.
+	 * @param crop - Should points with extreme longitudes be hidden?
+	 * @param gratSpacing - The number of degrees between graticule lines, or 0 for no graticule.
+	 * @return the task that will call MapDesignerRaster.calculate(), and return an image that is
+	 * 		already saved
+	 */
+	public static Task<SavableImage> calculateTask(File file, int width, int height, int step,
+			PixelMap input, Projection proj, double[] aspect, boolean crop, double gratSpacing) {
+		return new Task<SavableImage>() {
+			protected SavableImage call() throws IOException {
+				if (!MapDesignerRaster.calculate(
+						file, width, height, step, input, proj,
+						aspect, crop, gratSpacing,
+						this::updateProgress, this::updateMessage, this::isCancelled))
+					return null;
+				return new SavableImage() {
+					public void save(File destination) throws IOException {
+						if (!destination.equals(file)) //it's already on disk, so just copy it if it needs to be elsewhere
+							Files.copy(file.toPath(), destination.toPath(),
+									StandardCopyOption.REPLACE_EXISTING);
+					}
+				};
+			}
+			
+			protected void failed() {
+				getException().printStackTrace();
+				file.delete();
+				showError("Failure!", "Could not write "+file.getAbsolutePath()+". It's possible that another program has it open or the disk is full.");
+			}
+		};
+	}
+	
+	/**
+	 * Prepare a task to draw a raster map progressively, starting with a blurry version that is
+	 * quick to calculate and refining it by factors of two. Each pass is shown as soon as it is
+	 * done, so cancelling the task leaves the best version so far on the screen.
+	 * @param width - The width of the finished preview.
+	 * @param height - The height of the finished preview.
+	 * @param finestReduction - The factor by which the last pass is smaller than width x height;
+	 * 		1 to finish at full resolution.
+	 * @param input - The input equirectangular image.
+	 * @param proj - The Projection to do the mapping; it must not change while the task runs.
+	 * @param aspect - The oblique axis of the map.
+	 * @param crop - Should points with extreme longitudes be hidden?
+	 * @param gratSpacing - The number of degrees between graticule lines, or 0 for no graticule.
+	 * @param display - The ImageViewer in which to put each pass.
+	 * @return the task that will call MapDesignerRaster.calculate() once for each pass
+	 */
+	public static Task<Void> calculatePreviewTask(int width, int height, int finestReduction,
+			PixelMap input, Projection proj, double[] aspect, boolean crop, double gratSpacing,
+			ImageView display) {
+		return new Task<Void>() {
+			protected Void call() {
+				for (int reduction = PREVIEW_REDUCTION; reduction >= finestReduction; reduction /= 2) {
+					final BufferedImage pass = MapDesignerRaster.calculate(
+						  Math.max(1, width/reduction), Math.max(1, height/reduction), 1,
+						  input, proj, aspect, crop, gratSpacing,
+						  this::updateProgress, this::updateMessage, this::isCancelled);
+					if (pass == null || isCancelled()) 	return null; //if a newer preview has come along, give up
+					
+					final Image image = SwingFXUtils.toFXImage(pass, null);
+					Platform.runLater(() -> {
+						if (!isCancelled()) //don't let a stale pass cover up a newer one
+							display.setImage(image);
+					});
+				}
+				return null;
+			}
+			
+			protected void failed() {
+				getException().printStackTrace();
+			}
+		};
+	}
+	
 	/**
 	 * Create a new savable raster map.
 	 * @param width - The desired map width.
@@ -269,60 +398,338 @@ public class MapDesignerRaster extends MapApplication {
 
 		updateProgress.accept(-1, 1);
 		updateMessage.accept("Generating map\u2026");
+		final long start = Metrics.start();
 
+		final FailureReport failures = failureReport(proj);
 		BufferedImage theMap = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB); //why is this a BufferedImage when the rest of this program uses JavaFX? Because the only JavaFX alternatives are WritableImage, which doesn't do anything but single-pixel-editing, and Canvas, which doesn't properly support transparency.
-		for (int y = 0; y < theMap.getHeight(); y ++) { //iterate through the map, filling in pixels
+		if (!fillRows(theMap, 0, 0, width, height, step, input, proj, aspect, crop,
+				failures, updateProgress, isCancelled))
+			return null;
+		reportFailures(failures, (long)width*height*step*step);
+
+		if (gratSpacing != 0) { //draw the graticule, if desired
 			if (isCancelled.get()) 	return null;
-			updateProgress.accept(y, theMap.getHeight());
-			for (int x = 0; x < theMap.getWidth(); x ++) {
-				int[] colors = new int[step*step];
-				for (int dy = 0; dy < step; dy ++) {
-					for (int dx = 0; dx < step; dx ++) {
-						double X = ((x+(dx+.5)/step)/width - 1/2.) *proj.getWidth();
-						double Y = (1/2. - (y+(dy+.5)/step)/height) *proj.getHeight();
-						double[] coords = proj.inverse(X, Y, aspect, crop);
-						if (coords != null) { //if it is null, the default (0:transparent) is used
-							if (Double.isNaN(coords[0]) || Double.isNaN(coords[1]))
-								System.err.println(proj+" returns "+coords[0]+","+coords[1]+" at "+X+","+Y+"!");
-							colors[step*dy+dx] = input.getArgb(coords[0], coords[1]);
-						}
+			updateProgress.accept(-1, 1);
+			updateMessage.accept("Drawing graticule\u2026");
+			final long graticuleStart = Metrics.start();
+			graticuleDrawer(width, height, proj, aspect, gratSpacing).accept(
+					(Graphics2D)theMap.getGraphics());
+			Metrics.stop("raster.graticule", graticuleStart);
+		}
+
+		Metrics.stop("raster.calculate", start, (long)width*height);
+		return theMap;
+	}
+
+	/**
+	 * Calculate one rectangular piece of a raster map, such as a tile. The pixels are exactly
+	 * those that calculate() would put there, and anything past the edge of the map is left
+	 * transparent.
+	 * @param x0 - The index of the column of the map at the left of the region.
+	 * @param y0 - The index of the row of the map at the top of the region.
+	 * @param regionWidth - The width of the region.
+	 * @param regionHeight - The height of the region.
+	 * @param width - The width of the whole map.
+	 * @param height - The height of the whole map.
+	 * @param step - The desired amount of smoothing to apply.
+	 * @param input - The input equirectangular image.
+	 * @param proj - The Projection to do the mapping.
+	 * @param aspect - The oblique axis of the map.
+	 * @param crop - Should points with extreme longitudes be hidden?
+	 * @return the projected region
+	 */
+	public static BufferedImage calculateRegion(int x0, int y0, int regionWidth, int regionHeight,
+												int width, int height, int step,
+												PixelMap input, Projection proj,
+												double[] aspect, boolean crop) {
+		BufferedImage region = new BufferedImage(regionWidth, regionHeight, BufferedImage.TYPE_INT_ARGB);
+		final FailureReport failures = failureReport(proj);
+		fillRows(region, x0, y0, width, height, step, input, proj, aspect, crop,
+				failures, (i, j) -> {}, () -> false);
+		reportFailures(failures, (long)regionWidth*regionHeight*step*step);
+		return region;
+	}
+
+	/**
+	 * Create a new raster map and write it to disk a strip at a time, so that it never has to be
+	 * in memory all at once.
+	 * @param file - The PNG or TIFF file to which to write the map.
+	 * @param width - The desired map width.
+	 * @param height - The desired map height.
+	 * @param step - The desired amount of smoothing to apply.
+	 * @param input - The input equirectangular image.
+	 * @param proj - The Projection to do the mapping.
+	 * @param aspect - The oblique axis of the map.
+	 * @param crop - Should points with extreme longitudes be hidden?
+	 * @param gratSpacing - The number of degrees between graticule lines, or 0 for no graticule.
+	 * @return true if it finished, or false if it was cancelled (in which case the file is deleted)
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static boolean calculate(File file, int width, int height, int step,
+									PixelMap input, Projection proj,
+									double[] aspect, boolean crop,
+									double gratSpacing,
+									BiConsumer<Integer, Integer> updateProgress,
+									Consumer<String> updateMessage,
+									Supplier<Boolean> isCancelled) throws IOException {
+		if (updateProgress == null)
+			updateProgress = (i, j) -> {};
+		if (updateMessage == null)
+			updateMessage = (s) -> {};
+		if (isCancelled == null)
+			isCancelled = () -> false;
+
+		updateProgress.accept(-1, 1);
+		updateMessage.accept("Generating map\u2026");
+
+		final long start = Metrics.start();
+		final Consumer<Graphics2D> graticule = (gratSpacing != 0) ?
+				graticuleDrawer(width, height, proj, aspect, gratSpacing) : null; //do the graticule math once, and draw it on each strip
+
+		final FailureReport failures = failureReport(proj);
+		boolean finished = false;
+		try (StripWriter out = StripWriter.open(file, width, height)) {
+			final BufferedImage strip = new BufferedImage(
+					width, Math.min(STRIP_HEIGHT, height), BufferedImage.TYPE_INT_ARGB);
+			for (int y0 = 0; y0 < height; y0 += STRIP_HEIGHT) {
+				final BufferedImage rows = (y0 + STRIP_HEIGHT <= height) ?
+						strip : strip.getSubimage(0, 0, width, height - y0);
+				if (!fillRows(rows, 0, y0, width, height, step, input, proj, aspect, crop,
+						failures, updateProgress, isCancelled))
+					return false;
+				if (graticule != null) {
+					final long graticuleStart = Metrics.start();
+					final Graphics2D g = (Graphics2D)rows.getGraphics();
+					g.translate(0, -y0);
+					graticule.accept(g);
+					g.dispose();
+					Metrics.stop("raster.graticule", graticuleStart);
+				}
+				final long writeStart = Metrics.start();
+				out.write(rows);
+				Metrics.stop("raster.write", writeStart, (long)width*rows.getHeight());
+			}
+			finished = true;
+			reportFailures(failures, (long)width*height*step*step);
+			Metrics.stop("raster.calculate", start, (long)width*height);
+		} finally {
+			if (!finished)
+				file.delete(); //don't leave half a map lying around
+		}
+		return true;
+	}
+
+
+	/**
+	 * Fill in a rectangular region of a raster map. The region is overwritten completely, and is
+	 * left transparent wherever it goes past the edge of the map. Each row of samples is
+	 * projected all at once, so that the distance to neighbouring samples can tell the input how
+	 * big a patch of the globe each sample should average over. If the InverseGrid mirrors the
+	 * top of the map onto the bottom and the region is symmetric about the equator, it works in
+	 * from the top and bottom at once, so that each row of samples is used for its mirror image.
+	 * @param strip - The image in which to put the pixels.
+	 * @param x0 - The index of the column of the map that goes at the left of strip.
+	 * @param y0 - The index of the row of the map that goes at the top of strip.
+	 * @param width - The width of the full map.
+	 * @param height - The height of the full map.
+	 * @param failures - The report to which to add any samples where the projection gives NaN.
+	 * @return false if it was cancelled partway through
+	 */
+	private static boolean fillRows(BufferedImage strip, int x0, int y0, int width, int height, int step,
+									PixelMap input, Projection proj,
+									double[] aspect, boolean crop, FailureReport failures,
+									BiConsumer<Integer, Integer> updateProgress,
+									Supplier<Boolean> isCancelled) {
+		final InverseGrid grid = new InverseGrid(proj, aspect, crop, width, height, step, ADAPTIVE_INVERSE);
+		final int y1 = y0 + strip.getHeight();
+		final Sweep down = new Sweep(strip, x0, y0, width, height, step, input, proj, grid, failures, y0, 1);
+		final Sweep up = (grid.isMirroredVertically() && y0 + y1 == height) ?
+				new Sweep(strip, x0, y0, width, height, step, input, proj, grid, failures, y1 - 1, -1) : null;
+		for (int top = y0, bottom = y1 - 1; top <= bottom; top ++) { //iterate through the map, filling in pixels
+			if (isCancelled.get()) 	return false;
+			updateProgress.accept(top + (y1 - 1 - bottom), height);
+			down.fill(top);
+			if (up != null && bottom > top) {
+				up.fill(bottom);
+				bottom --;
+			}
+		}
+		down.report();
+		if (up != null)
+			up.report();
+		Metrics.count("raster.evaluations", grid.getNumEvaluations());
+		return true;
+	}
+	
+	
+	/**
+	 * Start a report of the samples that the projection can't find on the globe.
+	 */
+	private static FailureReport failureReport(Projection proj) {
+		return new FailureReport(proj+" inverse", -proj.getWidth()/2, proj.getWidth()/2,
+				-proj.getHeight()/2, proj.getHeight()/2);
+	}
+	
+	
+	/**
+	 * Print a report of the samples that the projection couldn't find on the globe, if there
+	 * were any, and count them in the Metrics.
+	 * @param total - The total number of samples taken.
+	 */
+	private static void reportFailures(FailureReport failures, long total) {
+		failures.print(total);
+		Metrics.count("raster.nan", failures.getCount());
+	}
+	
+	
+	/**
+	 * A pass through the rows of a region of a raster map, either down or up, that keeps the
+	 * three rows of samples around the current one.
+	 */
+	private static class Sweep {
+		private final BufferedImage strip;
+		private final int y0, width, height, step;
+		private final PixelMap input;
+		private final Projection proj;
+		private final InverseGrid grid;
+		private final FailureReport failures;
+		private final int i0, count; //the first sample in each row of samples and how many there are
+		private final int direction; //1 to go down, or -1 to go up
+		private double[][] behind, current; //the last row of samples done and the next one to do
+		private int rows = 0; //the number of rows of pixels filled so far
+		private long nulls = 0; //the number of samples off the map
+		private long inverseNanos = 0, sampleNanos = 0, blendNanos = 0; //the time spent in each part of fill(), if Metrics are on
+		
+		/**
+		 * Prepare to fill in the region starting with a given row of pixels.
+		 * @param y - The index of the row of the map at which to start.
+		 * @param direction - 1 to go down from there, or -1 to go up.
+		 */
+		private Sweep(BufferedImage strip, int x0, int y0, int width, int height, int step,
+					  PixelMap input, Projection proj, InverseGrid grid, FailureReport failures,
+					  int y, int direction) {
+			this.strip = strip;
+			this.y0 = y0;
+			this.width = width;
+			this.height = height;
+			this.step = step;
+			this.input = input;
+			this.proj = proj;
+			this.grid = grid;
+			this.failures = failures;
+			this.i0 = x0*step - 1; //include a sample on either side for the edges' sake
+			this.count = strip.getWidth()*step + 2;
+			this.direction = direction;
+			final int j = (direction > 0) ? y*step : y*step + step - 1; //the first row of samples
+			this.behind = grid.row(j - direction, i0, count);
+			this.current = grid.row(j, i0, count);
+		}
+		
+		/**
+		 * Fill in a row of pixels. It must be the one after the last one this did.
+		 * @param y - The index of the row of the map.
+		 */
+		private void fill(int y) {
+			long start = Metrics.start();
+			final boolean timed = start != 0; //don't count anything if Metrics were off at the start
+			int[][] colors = new int[strip.getWidth()][step*step];
+			for (int s = 0; s < step; s ++) {
+				final int dy = (direction > 0) ? s : step - 1 - s; //the row of samples within the pixel
+				final double[][] ahead = grid.row(y*step + dy + direction, i0, count);
+				final long inverted = Metrics.start();
+				if (timed)	inverseNanos += inverted - start;
+				for (int k = 1; k < current.length - 1; k ++) {
+					double[] coords = current[k];
+					if (coords != null) { //if it is null, the default (0:transparent) is used
+						if (Double.isNaN(coords[0]) || Double.isNaN(coords[1]))
+							failures.add(((i0+k+.5)/step/width - 1/2.) *proj.getWidth(),
+									(1/2. - (y+(dy+.5)/step)/height) *proj.getHeight(),
+									coords[0], coords[1]);
+						final double[] horizontal = nearer(coords, current[k-1], current[k+1]); //measure the sample's extent to its nearest neighbours,
+						final double[] vertical = nearer(coords, behind[k], ahead[k]); //so that it doesn't reach across interruptions
+						colors[(k-1)/step][step*dy + (k-1)%step] = input.getArgb(coords[0], coords[1],
+								Math.max(horizontal[0], vertical[0]), Math.max(horizontal[1], vertical[1]));
+					}
+					else {
+						nulls ++;
 					}
 				}
-				theMap.setRGB(x, y, ImageUtils.blend(colors));
+				behind = current;
+				current = ahead;
+				start = Metrics.start();
+				if (timed)	sampleNanos += start - inverted;
 			}
+			final int[] argb = new int[strip.getWidth()];
+			ImageUtils.blend(colors, argb); //blend and write the whole row at once
+			strip.setRGB(0, y - y0, argb.length, 1, argb, 0, argb.length);
+			if (timed)	blendNanos += Metrics.start() - start;
+			rows ++;
+		}
+		
+		/**
+		 * Add the time this has spent in each stage and the number of samples it couldn't
+		 * find on the globe to the Metrics.
+		 */
+		private void report() {
+			final long pixels = (long)rows*strip.getWidth();
+			Metrics.record("raster.inverse", rows, inverseNanos, pixels*step*step);
+			Metrics.record("raster.sample", rows, sampleNanos, pixels*step*step);
+			Metrics.record("raster.blend", rows, blendNanos, pixels);
+			Metrics.count("raster.null", nulls);
 		}
+	}
 
-		if (gratSpacing != 0) { //draw the graticule, if desired
-			if (isCancelled.get()) 	return null;
-			updateProgress.accept(-1, 1);
-			updateMessage.accept("Drawing graticule\u2026");
 
-			int r = 255, g = 255, b = 255, a = 255;
-			float lineWidth = (float)(Math.min(width, height)/300);
-			BufferedReader fileReader = null;
-			try {
-				fileReader = new BufferedReader(new FileReader(new File("input/graticule.txt")));
-				r = Integer.parseInt(fileReader.readLine().split(":")[1].trim());
-				g = Integer.parseInt(fileReader.readLine().split(":")[1].trim());
-				b = Integer.parseInt(fileReader.readLine().split(":")[1].trim());
-				a = Integer.parseInt(fileReader.readLine().split(":")[1].trim());
-				lineWidth = Float.parseFloat(fileReader.readLine().split(":")[1]);
-			} catch (NumberFormatException | IOException e) {
-				e.printStackTrace();
-			} finally {
-				if (fileReader != null)
-					try {
-						fileReader.close();
-					} catch (IOException ignored) { }
+	/**
+	 * Find whichever of two neighbouring samples is closer to a sample.
+	 * @return the absolute differences in latitude and longitude to the nearer neighbour, or
+	 * 		zeros if neither is on the map.
+	 */
+	private static double[] nearer(double[] coords, double[] a, double[] b) {
+		double[] best = {0, 0};
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (double[] neighbour: new double[][] {a, b}) {
+			if (neighbour == null)	continue;
+			final double dLat = Math.abs(neighbour[0] - coords[0]);
+			final double dLon = Math.abs(Math.IEEEremainder(neighbour[1] - coords[1], 2*Math.PI));
+			if (dLat + dLon < bestDistance) {
+				best = new double[] {dLat, dLon};
+				bestDistance = dLat + dLon;
 			}
+		}
+		return best;
+	}
 
-			ImageUtils.drawSVGPath(
-				  proj.drawGraticule(Math.toRadians(gratSpacing), GRATICULE_PRECISION,
-									 width, height, Math.PI/2, Math.PI, aspect),
-				  new Color(r, g, b, a), lineWidth,
-				  true, (Graphics2D)theMap.getGraphics());
+
+	/**
+	 * Read the graticule style from input/graticule.txt and calculate where the graticule goes.
+	 * @return a function that will draw the graticule on a map of the given size
+	 */
+	private static Consumer<Graphics2D> graticuleDrawer(int width, int height, Projection proj,
+			double[] aspect, double gratSpacing) {
+		int r = 255, g = 255, b = 255, a = 255;
+		float lineWidth = (float)(Math.min(width, height)/300);
+		BufferedReader fileReader = null;
+		try {
+			fileReader = new BufferedReader(new FileReader(new File("input/graticule.txt")));
+			r = Integer.parseInt(fileReader.readLine().split(":")[1].trim());
+			g = Integer.parseInt(fileReader.readLine().split(":")[1].trim());
+			b = Integer.parseInt(fileReader.readLine().split(":")[1].trim());
+			a = Integer.parseInt(fileReader.readLine().split(":")[1].trim());
+			lineWidth = Float.parseFloat(fileReader.readLine().split(":")[1]);
+		} catch (NumberFormatException | IOException e) {
+			e.printStackTrace();
+		} finally {
+			if (fileReader != null)
+				try {
+					fileReader.close();
+				} catch (IOException ignored) { }
 		}
 
-		return theMap;
+		final Path path = proj.drawGraticule(Math.toRadians(gratSpacing), GRATICULE_PRECISION,
+				width, height, Math.PI/2, Math.PI, aspect);
+		final Color color = new Color(r, g, b, a);
+		final float stroke = lineWidth;
+		return (graphics) -> ImageUtils.drawSVGPath(path, color, stroke, true, graphics);
 	}
 }
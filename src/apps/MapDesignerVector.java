@@ -51,7 +51,9 @@ import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import maps.Projection;
+import utils.FailureReport;
 import utils.Math2;
+import utils.Metrics;
 
 /**
  * An application to make vector oblique aspects of map projections
@@ -158,8 +160,8 @@ public class MapDesignerVector extends MapApplication {
 	}
 	
 	
-	private void updateMap() { //execute a new calculation Task immediately
-		new Thread(calculateTaskForUpdate()).start();
+	private void updateMap() { //execute a new calculation Task as soon as the last one stops
+		schedulePreview(calculateTaskForUpdate());
 	}
 	
 	
@@ -175,7 +177,7 @@ public class MapDesignerVector extends MapApplication {
 	
 	private Task<SavableImage> calculateTask(int step, boolean render) {
 		loadParameters();
-		return calculateTask(step, input, getProjection(), aspect.clone(), render ? viewer : null);
+		return calculateTask(step, input, getProjection().copy(), aspect.clone(), render ? viewer : null); //copy the projection so the next Task can change its parameters without disturbing this one
 	}
 
 	/**
@@ -197,7 +199,8 @@ public class MapDesignerVector extends MapApplication {
 			protected SavableImage call() {
 				Iterable<Path> map = MapDesignerVector.calculate(
 					  step, input, proj, aspect,
-					  this::updateProgress, this::updateMessage);
+					  this::updateProgress, this::updateMessage, this::isCancelled);
+				if (map == null) 	return null;
 
 				if (viewer != null) { //if we are to render,
 					updateProgress(-1, 1);
@@ -245,24 +248,33 @@ public class MapDesignerVector extends MapApplication {
 	 * @param input - The equirectangular input image.
 	 * @param proj - The projection to do the mapping.
 	 * @param aspect - The oblique axis for the map.
-	 * @return A Task upon which will produce and return the SavableImage when called.
+	 * @return A Task upon which will produce and return the SavableImage when called, or null if
+	 * 		it was cancelled.
 	 */
 	public static Iterable<Path> calculate(int step,
 										   SVGMap input, Projection proj,
 										   double[] aspect,
 										   BiConsumer<Integer, Integer> updateProgress,
-										   Consumer<String> updateMessage) {
+										   Consumer<String> updateMessage,
+										   Supplier<Boolean> isCancelled) {
 		if (updateProgress == null)
 			updateProgress = (i, j) -> {};
 		if (updateMessage == null)
 			updateMessage = (s) -> {};
+		if (isCancelled == null)
+			isCancelled = () -> false;
 
 		updateProgress.accept(-1, 1);
 		updateMessage.accept("Generating map\u2026");
 
+		final long start = Metrics.start();
+		long points = 0;
+		final FailureReport failures = new FailureReport(proj+" projection",
+				-Math.PI, Math.PI, -Math.PI/2, Math.PI/2);
 		List<Path> theMap = new LinkedList<>();
 		int i = 0;
 		for (Path pathS: input) {
+			if (isCancelled.get()) 	return null;
 			updateProgress.accept(i, input.numCurves());
 			if (step > 0 && pathS.size() <= step)
 				continue; //don't bother drawing singular points unless step is zero
@@ -273,8 +285,9 @@ public class MapDesignerVector extends MapApplication {
 				Command cmdP = new Command(cmdS.type, new double[cmdS.args.length]);
 				for (int k = 0; k < cmdS.args.length; k += 2) {
 					double[] coords = proj.project(cmdS.args[k+1], cmdS.args[k], aspect);
+					points ++;
 					if (Double.isNaN(coords[0]) || Double.isNaN(coords[1]))
-						System.err.println(proj+" returns "+coords[0]+","+coords[1]+" at "+cmdS.args[k+1]+","+cmdS.args[k]+"!");
+						failures.add(cmdS.args[k], cmdS.args[k+1], coords[0], coords[1]);
 					cmdP.args[k] =
 						  Math.max(Math.min(coords[0], proj.getWidth()), -proj.getWidth());
 					cmdP.args[k+1] =
@@ -295,6 +308,9 @@ public class MapDesignerVector extends MapApplication {
 			i ++;
 		}
 
+		failures.print(points);
+		Metrics.stop("vector.project", start, points);
+		Metrics.count("vector.nan", failures.getCount());
 		return theMap;
 	}
 
@@ -47,49 +47,15 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
-import maps.Meshed;
-import maps.ArbitraryPseudocylindrical;
-import maps.Azimuthal;
-import maps.Cylindrical;
-import maps.EqualEarth;
-import maps.Gyorffy;
-import maps.Lenticular;
-import maps.Misc;
-import maps.Octohedral;
-import maps.Polyhedral;
-import maps.Projection;
-import maps.Pseudocylindrical;
-import maps.WinkelTripel;
 
 /**
- * A simple script that creates an annotated ScatterPlot of map projections
+ * A simple script that creates an annotated ScatterPlot of map projections. The projections are
+ * scored by BatchPlotter.
  * 
  * @author jkunimune
  */
 public class MapPlotter extends Application {
 
-	private static final double DECIBEL = Math.log(10)/10;
-	
-	private static final double GLOBE_RES = .005;
-	
-	private static final Projection[] CYLINDRICAL = { Cylindrical.MERCATOR,
-			Cylindrical.PLATE_CARREE, Cylindrical.GALL_ORTHOGRAPHIC,
-			Cylindrical.GALL_STEREOGRAPHIC };
-	private static final Projection[] AZIMUTHAL = { Azimuthal.POLAR };
-	private static final Projection[] PSEUDOCYL = { Pseudocylindrical.MOLLWEIDE,
-			ArbitraryPseudocylindrical.ROBINSON, ArbitraryPseudocylindrical.NATURAL_EARTH,
-			Pseudocylindrical.KAVRAYSKIY_VII, EqualEarth.EQUAL_EARTH };
-	private static final Projection[] LENTICULAR = { Lenticular.AITOFF, Lenticular.VAN_DER_GRINTEN,
-			WinkelTripel.WINKEL_TRIPEL, Meshed.DANSEIJI_N, Meshed.DANSEIJI_I,
-			Meshed.DANSEIJI_II, Gyorffy.E, Gyorffy.F };
-	private static final Projection[] TETRAHEDRAL = { Polyhedral.LEE_TETRAHEDRAL_RECTANGULAR,
-			Polyhedral.AUTHAGRAPH, Polyhedral.VAN_LEEUWEN };
-	private static final Projection[] CHEATY = { Pseudocylindrical.LEMONS, Octohedral.KEYES_STANDARD,
-			Polyhedral.DYMAXION, Octohedral.CAHILL_CONCIALDI, Meshed.DANSEIJI_IV,
-			Pseudocylindrical.HOMOLOSINE_INTERRUPTED };
-	private static final Projection[] OTHER = { Misc.PEIRCE_QUINCUNCIAL };
-	
-	
 	private StackPane stack;
 	
 	
@@ -111,15 +77,9 @@ public class MapPlotter extends Application {
 		
 		final List<Label> labels = new LinkedList<Label>();
 		final List<Data<Number,Number>> data = new LinkedList<Data<Number,Number>>();
-		final double[][][] points = Projection.globe(GLOBE_RES);
-		
-		plotProjections(plot, overlay, labels, data, AZIMUTHAL, "Azimuthal ", points);
-		plotProjections(plot, overlay, labels, data, CYLINDRICAL, "Cylindrical ", points);
-		plotProjections(plot, overlay, labels, data, PSEUDOCYL, "Pseudocylindrical ", points);
-		plotProjections(plot, overlay, labels, data, LENTICULAR, "Lenticular ", points);
-		plotProjections(plot, overlay, labels, data, TETRAHEDRAL, "Tetrahedral ", points);
-		plotProjections(plot, overlay, labels, data, CHEATY, "Interrupted ", points);
-		plotProjections(plot, overlay, labels, data, OTHER, "Other ", points);
+		final BatchResults results = BatchPlotter.scoreAll();
+		for (String name: results.getSeriesNames())
+			plotProjections(plot, overlay, labels, data, results, name);
 		
 		final ChangeListener<Number> listener = new ChangeListener<Number>() {
 			final Timer timer = new Timer();
@@ -146,22 +106,20 @@ public class MapPlotter extends Application {
 	
 	private static void plotProjections(ScatterChart<Number, Number> chart,
 			AnchorPane overlay, List<Label> labels, List<Data<Number,Number>> data,
-			Projection[] projections, String name, double[][][] points) {
+			BatchResults results, String name) {
 		final Series<Number, Number> series = new Series<Number, Number>();
 		series.setName(name);
 		
-		for (Projection projection: projections) {
-			System.out.print(projection+": ");
-			final double[] params = projection.getDefaultParameters();
-			final double distortion[] = projection.avgDistortion(points, params);
+		for (int i = 0; i < results.size(); i ++) {
+			if (!results.getSeries(i).equals(name))
+				continue;
 			final Data<Number, Number> datum = new Data<Number, Number>(
-					distortion[0]/DECIBEL, distortion[1]/DECIBEL);
+					results.getSizeDistortion(i), results.getShapeDistortion(i));
 			series.getData().add(datum);
-			final Label lbl = new Label(projection.getName());
+			final Label lbl = new Label(results.getLabel(i));
 			overlay.getChildren().add(lbl);
 			labels.add(lbl);
 			data.add(datum);
-			System.out.println(distortion[0]+", "+distortion[1]);
 		}
 		
 		chart.getData().add(series);
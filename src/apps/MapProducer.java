@@ -23,12 +23,17 @@ package apps;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import image.SVGMap;
-import image.SavableImage;
-import javafx.application.Application;
-import javafx.concurrent.Task;
-import javafx.stage.Stage;
+import image.SVGMap.Path;
 import maps.ArbitraryPseudocylindrical;
 import maps.Azimuthal;
 import maps.Conic;
@@ -47,11 +52,15 @@ import maps.WinkelTripel;
 
 /**
  * A script that automatically converts one input into a bunch of different
- * projections, with multi-threading.
+ * projections, with multi-threading. Each projection is done on a worker from a fixed pool, with
+ * its own copy of the Projection; the inputs are only ever read, so they are shared. It exits
+ * once every map is saved, after printing how long each one took.
+ * 
+ * Usage: MapProducer [number of threads]
  * 
  * @author Justin Kunimune
  */
-public class MapProducer extends Application {
+public class MapProducer {
 	
 	public static final Projection[][] ALL_PROJECTIONS = {
 			{ 
@@ -82,38 +91,106 @@ public class MapProducer extends Application {
 					Misc.PEIRCE_QUINCUNCIAL, Misc.GUYOU, Polyhedral.LEE_TETRAHEDRAL_TRIANGULAR,
 					Octohedral.CONFORMAL_CAHILL, Octohedral.WATERMAN } };
 	public static final double[] ctrMerids = {0, Math.toRadians(-20)};
+	public static final String[] INPUTS = {
+			"input/Advanced/Tissot Wikipedia +0.svg", "input/Advanced/Tissot Wikipedia -20.svg" };
 	
 	
-	public static void main(String[] args) {
-		launch(args);
-	}
-
-
-	public void start(Stage stage) throws Exception {
+	public static void main(String[] args) throws Exception {
+		final int numThreads = (args.length > 0) ?
+				Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		System.setProperty("java.awt.headless", "true"); //make sure nobody tries to open a window
 		new File("images").mkdirs();
 		
-		SVGMap[] inputs = { new SVGMap(new File("input/Advanced/Tissot Wikipedia +0.svg")),
-				new SVGMap(new File("input/Advanced/Tissot Wikipedia -20.svg")) };
-		for (int i = 0; i < 2; i ++) {
-			double[] pole = {Math.PI/2, 0, ctrMerids[i]};
-			for (Projection proj: ALL_PROJECTIONS[i]) {
-				System.out.println(proj);
-				
-				proj.setParameters(proj.getDefaultParameters());
-				
-				Task<SavableImage> task =
-						MapDesignerVector.calculateTask(1, inputs[i], proj, pole, null);
-				task.setOnSucceeded((event) -> {
-					try {
-						task.getValue().save(new File("images/"+proj+".svg"));
-					} catch (IOException e) {
-						e.printStackTrace();
-					}
-				});
-				task.run();
+		final long startTime = System.currentTimeMillis();
+		final List<Job> jobs = new ArrayList<Job>();
+		final ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+		try {
+			for (int i = 0; i < INPUTS.length; i ++) {
+				final SVGMap input = new SVGMap(new File(INPUTS[i]));
+				final double[] pole = {Math.PI/2, 0, ctrMerids[i]};
+				for (Projection proj: ALL_PROJECTIONS[i]) {
+					final Job job = new Job(proj.getName());
+					job.result = pool.submit(() -> produce(input, proj, pole, job));
+					jobs.add(job);
+				}
+			}
+			
+			for (Job job: jobs) { //wait for everyone to finish
+				try {
+					job.result.get();
+				} catch (ExecutionException e) {
+					job.error = e.getCause();
+					System.err.println("Could not produce "+job.name+":");
+					e.getCause().printStackTrace();
+				}
 			}
+		} finally {
+			pool.shutdown();
 		}
 		
-		stop(); // NOTE: I haven't actually set it to terminate when all the tasks finish, so you might have to do that yourself.
+		final double elapsed = (System.currentTimeMillis() - startTime)/1000.;
+		report(jobs, elapsed, numThreads, System.out);
+		try (PrintStream out = new PrintStream(new File("images/timing.txt"))) {
+			report(jobs, elapsed, numThreads, out);
+		}
+		
+		System.exit(jobs.stream().anyMatch((job) -> job.error != null) ? 1 : 0);
+	}
+	
+	
+	/**
+	 * Project a single map and save it to the images directory.
+	 * @param input - The equirectangular input map, which will not be modified.
+	 * @param prototype - The projection to use. It will not be modified either; a copy is made.
+	 * @param pole - The oblique axis for the map.
+	 * @param job - Where to record how long it took.
+	 * @throws IOException if the map can't be saved.
+	 */
+	private static Void produce(SVGMap input, Projection prototype, double[] pole, Job job)
+			throws IOException {
+		final long start = System.nanoTime();
+		final Projection proj = prototype.copy(); //the shared Projections are not safe to use from several threads
+		proj.setParameters(proj.getDefaultParameters());
+		
+		final Iterable<Path> map = MapDesignerVector.calculate(
+				1, input, proj, pole, null, null, null);
+		input.replace("Equirectangular", proj.getName()).save(
+				map, new File("images/"+proj+".svg"), -proj.getWidth()/2, proj.getHeight()/2,
+				proj.getWidth(), proj.getHeight());
+		
+		job.seconds = (System.nanoTime() - start)/1e9;
+		System.out.println(proj+" done in "+job.seconds+"s");
+		return null;
+	}
+	
+	
+	/**
+	 * Print how long each projection took, slowest first.
+	 */
+	private static void report(List<Job> jobs, double elapsed, int numThreads, PrintStream out) {
+		final List<Job> sorted = new ArrayList<Job>(jobs);
+		sorted.sort(Comparator.comparingDouble((Job job) -> job.seconds).reversed());
+		double total = 0;
+		for (Job job: sorted) {
+			if (job.error == null)
+				out.printf("%-40s %8.3fs%n", job.name, job.seconds);
+			else
+				out.printf("%-40s   FAILED (%s)%n", job.name, job.error);
+			total += job.seconds;
+		}
+		out.printf("%d maps in %.3fs on %d threads (%.3fs of work)%n",
+				jobs.size(), elapsed, numThreads, total);
+	}
+	
+	
+	private static class Job {
+		private final String name;
+		private Future<Void> result;
+		private volatile double seconds = 0;
+		private volatile Throwable error = null;
+		
+		private Job(String name) {
+			this.name = name;
+		}
 	}
 }
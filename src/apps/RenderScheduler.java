@@ -0,0 +1,129 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2026 Map-Projections contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package apps;
+
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
+import utils.Metrics;
+
+/**
+ * A queue for the Tasks that redraw a map preview, which runs at most one of them at a time.
+ * While one is running, only the most recently submitted one waits to go next; any that were
+ * waiting before it are dropped without ever starting, and the running one is cancelled, since
+ * its result is stale. The exception is when no preview has finished for MAX_STALENESS: then
+ * the running one is left to finish, so that a long drag on a slow map still shows something
+ * now and then instead of cancelling every preview before it is done. It also reports how
+ * quickly previews are getting drawn to Metrics, as the preview stage, the preview.* counters,
+ * and the preview.latency histogram in milliseconds.
+ * All of its methods must be called from the JavaFX application thread.
+ * 
+ * @author Map-Projections contributors
+ */
+public class RenderScheduler {
+	
+	private static final long MAX_STALENESS = 250000000; //don't cancel anything if it has been this many nanoseconds since a preview was last finished
+	
+	private Task<?> running = null; //the Task that is currently running, if any
+	private Task<?> pending = null; //the Task that will run next, if any
+	private long runningSubmitTime, runningStartTime, pendingSubmitTime; //the System.nanoTime() at which those were submitted and started
+	private long lastCompletionTime; //the System.nanoTime() at which the last Task succeeded
+	
+	
+	
+	public RenderScheduler() {
+		this.lastCompletionTime = System.nanoTime();
+	}
+	
+	
+	
+	/**
+	 * Run this Task as soon as possible, and forget about any that were submitted before it.
+	 * @param task - The Task to run. It should check isCancelled() now and then.
+	 */
+	public void submit(Task<?> task) {
+		final long now = System.nanoTime();
+		Metrics.count("preview.submitted", 1);
+		if (running == null) {
+			start(task, now);
+			return;
+		}
+		
+		if (pending != null) //coalesce the one that was waiting with this one
+			Metrics.count("preview.dropped", 1);
+		pending = task;
+		pendingSubmitTime = now;
+		if (now - lastCompletionTime < MAX_STALENESS) //stop the running one, unless that would leave nothing on the screen for too long
+			running.cancel();
+	}
+	
+	
+	/**
+	 * Cancel the running Task and drop the waiting one, if there are any, because something
+	 * other than a preview is about to draw the map and they would only cover it up. Cancelled
+	 * Tasks must not draw anything, since they might still finish after this returns.
+	 */
+	public void cancelAll() {
+		if (pending != null) {
+			Metrics.count("preview.dropped", 1);
+			pending = null;
+		}
+		if (running != null)
+			running.cancel(); //finish() will clear it once its thread actually stops
+	}
+	
+	
+	private void start(Task<?> task, long submitTime) {
+		running = task;
+		runningSubmitTime = submitTime;
+		runningStartTime = System.nanoTime();
+		final Thread thread = new Thread(() -> {
+			task.run();
+			Platform.runLater(this::finish); //wait for the thread to actually stop before starting another, even if it was cancelled long ago
+		});
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	
+	private void finish() {
+		final long now = System.nanoTime();
+		Metrics.record("preview", 1, now - runningStartTime, 0);
+		if (running.getState() == Worker.State.SUCCEEDED) {
+			lastCompletionTime = now;
+			Metrics.count("preview.completed", 1);
+			Metrics.observe("preview.latency", (now - runningSubmitTime)/1000000);
+		}
+		else if (running.isCancelled())
+			Metrics.count("preview.cancelled", 1);
+		running = null;
+		
+		if (pending != null) {
+			final Task<?> next = pending;
+			pending = null;
+			start(next, pendingSubmitTime);
+		}
+	}
+	
+}
@@ -0,0 +1,460 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2026 Map-Projections contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package apps;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import image.PixelMap;
+import maps.Projection;
+
+/**
+ * A script that cuts a raster map into a pyramid of 256-pixel tiles in the usual z/x/y scheme,
+ * so that a web map can show it at any zoom while only ever rendering the tiles somebody looks
+ * at. At zoom level z, the map is scaled so that its longer side is 256·2^z pixels, and centred
+ * in a square of 2^z by 2^z tiles; the deepest level is the first at which the map is at least
+ * as big as the requested width and height. Tiles are cached on disk, and the least recently
+ * used ones are deleted when the cache gets too big. It can either serve tiles over HTTP as
+ * they are asked for, or render every tile in advance:
+ * <pre>
+ * java apps.TileServer input-image "Projection Name" [--width 8192] [--params 1,2]
+ *     [--aspect lat,lon,ctr] [--step 1] [--crop] [--cache tiles] [--cache-size 1024]
+ *     [--port 8080] [--seed]
+ * </pre>
+ * The server only listens on the loopback interface, and never needs the internet. It serves
+ * the tiles at http://localhost:port/z/x/y.png, and a description of them at /tiles.json.
+ *
+ * @author Map-Projections contributors
+ */
+public class TileServer {
+	
+	public static final int TILE_SIZE = 256; //the width and height of each tile in pixels
+	
+	private final PixelMap input;
+	private final ThreadLocal<Projection> projections; //each thread gets its own, since Projections are not thread-safe
+	private final double[] aspect;
+	private final boolean crop;
+	private final int step;
+	private final int maxZoom; //the deepest zoom level
+	private final double aspectRatio; //the width of the map over its height
+	private final TileCache cache;
+	private final Map<String, CompletableFuture<byte[]>> inProgress; //the tiles currently being rendered, so nobody renders them twice
+	
+	
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: java apps.TileServer input-image \"Projection Name\" [--width 8192] " +
+					"[--params 1,2] [--aspect lat,lon,ctr] [--step 1] [--crop] [--cache tiles] " +
+					"[--cache-size 1024] [--port 8080] [--seed]");
+			System.exit(1);
+		}
+		System.setProperty("java.awt.headless", "true"); //make sure nobody tries to open a window
+		
+		final File inputFile = new File(args[0]);
+		final Projection proj = findProjection(args[1]);
+		int width = 8192;
+		double[] params = proj.getDefaultParameters();
+		double[] aspect = null;
+		int step = 1;
+		boolean crop = false;
+		File cacheDir = new File("tiles");
+		long cacheSize = 1024;
+		int port = 8080;
+		boolean seed = false;
+		for (int i = 2; i < args.length; i ++) {
+			switch (args[i]) {
+			case "--width":
+				width = Integer.parseInt(args[++ i]);
+				break;
+			case "--params":
+				params = parseList(args[++ i]);
+				break;
+			case "--aspect":
+				aspect = parseList(args[++ i]);
+				for (int j = 0; j < aspect.length; j ++)
+					aspect[j] = Math.toRadians(aspect[j]);
+				break;
+			case "--step":
+				step = Integer.parseInt(args[++ i]);
+				break;
+			case "--crop":
+				crop = true;
+				break;
+			case "--cache":
+				cacheDir = new File(args[++ i]);
+				break;
+			case "--cache-size":
+				cacheSize = Long.parseLong(args[++ i]);
+				break;
+			case "--port":
+				port = Integer.parseInt(args[++ i]);
+				break;
+			case "--seed":
+				seed = true;
+				break;
+			default:
+				throw new IllegalArgumentException("I don't understand "+args[i]+".");
+			}
+		}
+		proj.setParameters(params);
+		
+		final String key = Integer.toHexString(Arrays.asList( //keep tiles from different maps apart
+				inputFile.getAbsolutePath(), inputFile.lastModified(), proj.getName(),
+				Arrays.toString(params), Arrays.toString(aspect), crop, step, width).hashCode());
+		final TileServer server = new TileServer(PixelMap.load(inputFile), proj, aspect, crop, step,
+				width, (int)(width/proj.getAspectRatio()),
+				new TileCache(new File(cacheDir, key), cacheSize << 20));
+		
+		if (seed) {
+			server.seed(Runtime.getRuntime().availableProcessors());
+		}
+		else {
+			server.serve(port);
+			System.out.println("Serving "+proj.getName()+" tiles at http://localhost:"+port+
+					"/{z}/{x}/{y}.png for zoom levels 0 to "+server.getMaxZoom()+".");
+		}
+	}
+	
+	
+	/**
+	 * Set up a tile pyramid.
+	 * @param input - The input equirectangular image.
+	 * @param proj - The Projection to do the mapping, with its parameters already set.
+	 * @param aspect - The oblique axis of the map.
+	 * @param crop - Should points with extreme longitudes be hidden?
+	 * @param step - The desired amount of smoothing to apply.
+	 * @param width - The width of the map at full resolution.
+	 * @param height - The height of the map at full resolution.
+	 * @param cache - Where to keep the finished tiles.
+	 */
+	public TileServer(PixelMap input, Projection proj, double[] aspect, boolean crop, int step,
+			int width, int height, TileCache cache) {
+		this.input = input;
+		this.projections = ThreadLocal.withInitial(proj::copy);
+		this.aspect = aspect;
+		this.crop = crop;
+		this.step = step;
+		this.aspectRatio = proj.getAspectRatio();
+		int z = 0;
+		while (TILE_SIZE << z < Math.max(width, height))
+			z ++;
+		this.maxZoom = z;
+		this.cache = cache;
+		this.inProgress = new ConcurrentHashMap<String, CompletableFuture<byte[]>>();
+	}
+	
+	
+	public int getMaxZoom() {
+		return this.maxZoom;
+	}
+	
+	
+	/**
+	 * Get a tile as a PNG, from the cache if it's there and by rendering it if it's not. If
+	 * another thread is already rendering it, wait for that one instead.
+	 * @param z - The zoom level, from 0 to getMaxZoom().
+	 * @param x - The column of the tile, from 0 to 2^z - 1.
+	 * @param y - The row of the tile, from 0 to 2^z - 1.
+	 * @return the encoded image.
+	 * @throws IllegalArgumentException if there is no such tile.
+	 * @throws IOException if the tile cannot be encoded or cached.
+	 */
+	public byte[] getTile(int z, int x, int y) throws IOException {
+		if (z < 0 || z > maxZoom || x < 0 || x >= 1 << z || y < 0 || y >= 1 << z)
+			throw new IllegalArgumentException("There is no tile "+z+"/"+x+"/"+y+".");
+		final String name = z+"/"+x+"/"+y;
+		final byte[] cached = cache.get(name);
+		if (cached != null)
+			return cached;
+		
+		final CompletableFuture<byte[]> mine = new CompletableFuture<byte[]>();
+		final CompletableFuture<byte[]> theirs = inProgress.putIfAbsent(name, mine);
+		if (theirs != null)
+			return theirs.join();
+		try {
+			final byte[] png = encode(renderTile(z, x, y));
+			cache.put(name, png);
+			mine.complete(png);
+			return png;
+		} catch (IOException | RuntimeException e) {
+			mine.completeExceptionally(e);
+			throw e;
+		} finally {
+			inProgress.remove(name);
+		}
+	}
+	
+	
+	/**
+	 * Render a tile without touching the cache.
+	 * @return the tile image, transparent wherever it is off the map.
+	 */
+	public BufferedImage renderTile(int z, int x, int y) {
+		final int size = TILE_SIZE << z; //the size of the square in which the map sits at this zoom
+		final int mapWidth = (aspectRatio >= 1) ? size : (int)Math.round(size*aspectRatio);
+		final int mapHeight = (aspectRatio >= 1) ? (int)Math.round(size/aspectRatio) : size;
+		return MapDesignerRaster.calculateRegion(
+				x*TILE_SIZE - (size - mapWidth)/2, y*TILE_SIZE - (size - mapHeight)/2,
+				TILE_SIZE, TILE_SIZE, mapWidth, mapHeight, step,
+				input, projections.get(), aspect, crop);
+	}
+	
+	
+	/**
+	 * Render every tile at every zoom level into the cache, in parallel, skipping the ones that
+	 * are already there.
+	 * @param numThreads - The number of tiles to render at once.
+	 * @throws IOException if any tile cannot be encoded or cached.
+	 */
+	public void seed(int numThreads) throws IOException {
+		final long startTime = System.currentTimeMillis();
+		final ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+		final AtomicInteger done = new AtomicInteger(0);
+		try {
+			for (int z = 0; z <= maxZoom; z ++) {
+				final List<Future<byte[]>> tiles = new ArrayList<Future<byte[]>>();
+				for (int x = 0; x < 1 << z; x ++) {
+					for (int y = 0; y < 1 << z; y ++) {
+						final int Z = z, X = x, Y = y;
+						tiles.add(pool.submit(() -> {
+							final byte[] tile = getTile(Z, X, Y);
+							done.incrementAndGet();
+							return tile;
+						}));
+					}
+				}
+				for (Future<byte[]> tile: tiles) {
+					try {
+						tile.get();
+					} catch (Exception e) {
+						throw new IOException("Could not seed zoom level "+z+".", e);
+					}
+				}
+				System.out.println("Zoom level "+z+" done; "+done.get()+" tiles in "+
+						(System.currentTimeMillis() - startTime)/1000.+"s.");
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	
+	/**
+	 * Start serving tiles over HTTP on the loopback interface. This returns immediately; the
+	 * server keeps the program running in the background.
+	 * @param port - The port on which to listen.
+	 * @throws IOException if the port is not available.
+	 */
+	public void serve(int port) throws IOException {
+		final HttpServer server = HttpServer.create(
+				new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/", this::handle);
+		server.setExecutor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()));
+		server.start();
+	}
+	
+	
+	private void handle(HttpExchange exchange) throws IOException {
+		final String path = exchange.getRequestURI().getPath();
+		try {
+			if (path.equals("/tiles.json")) {
+				respond(exchange, 200, "application/json", ("{\"tilejson\": \"2.2.0\", " +
+						"\"tiles\": [\"/{z}/{x}/{y}.png\"], \"minzoom\": 0, \"maxzoom\": "+maxZoom+
+						", \"tileSize\": "+TILE_SIZE+"}").getBytes("UTF-8"));
+				return;
+			}
+			final String[] parts = path.replaceFirst("^/", "").replaceFirst("\\.png$", "").split("/");
+			if (parts.length != 3)
+				throw new IllegalArgumentException("Tiles are at /z/x/y.png.");
+			final byte[] tile = getTile(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+					Integer.parseInt(parts[2]));
+			exchange.getResponseHeaders().set("Cache-Control", "max-age=86400");
+			respond(exchange, 200, "image/png", tile);
+		} catch (IllegalArgumentException e) { //NumberFormatException is one of these, too
+			respond(exchange, 404, "text/plain", String.valueOf(e.getMessage()).getBytes("UTF-8"));
+		} catch (IOException | RuntimeException e) {
+			e.printStackTrace();
+			respond(exchange, 500, "text/plain", String.valueOf(e).getBytes("UTF-8"));
+		}
+	}
+	
+	
+	private static void respond(HttpExchange exchange, int status, String type, byte[] body)
+			throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", type);
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+	
+	
+	private static byte[] encode(BufferedImage tile) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ImageIO.write(tile, "png", bytes);
+		return bytes.toByteArray();
+	}
+	
+	
+	private static Projection findProjection(String name) {
+		for (Projection[] category: MapApplication.ALL_PROJECTIONS)
+			for (Projection proj: category)
+				if (proj.getName().equalsIgnoreCase(name) || proj.toString().equalsIgnoreCase(name))
+					return proj;
+		throw new IllegalArgumentException("I don't know any projection called "+name+".");
+	}
+	
+	
+	private static double[] parseList(String list) {
+		final String[] parts = list.split(",");
+		final double[] values = new double[parts.length];
+		for (int i = 0; i < parts.length; i ++)
+			values[i] = Double.parseDouble(parts[i].trim());
+		return values;
+	}
+	
+	
+	
+	/**
+	 * A directory of tiles that forgets the least recently used ones once it holds more than a
+	 * certain number of bytes. It remembers what is in the directory from previous runs.
+	 *
+	 * @author Map-Projections contributors
+	 */
+	public static class TileCache {
+		
+		private final File directory;
+		private final long maxBytes;
+		private final LinkedHashMap<String, Long> sizes; //the size of each tile, from least to most recently used
+		private long totalBytes;
+		
+		
+		public TileCache(File directory, long maxBytes) {
+			this.directory = directory;
+			this.maxBytes = maxBytes;
+			this.sizes = new LinkedHashMap<String, Long>(16, .75f, true);
+			this.totalBytes = 0;
+			
+			final List<File> existing = new ArrayList<File>(); //pick up where the last run left off
+			findTiles(directory, existing);
+			existing.sort((a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+			final int prefix = directory.getPath().length() + 1;
+			for (File f: existing) {
+				final String name = f.getPath().substring(prefix).replace(File.separatorChar, '/');
+				sizes.put(name.replaceFirst("\\.png$", ""), f.length());
+				totalBytes += f.length();
+			}
+			evict();
+		}
+		
+		
+		/**
+		 * @param name - The tile's name, as "z/x/y".
+		 * @return the tile's contents, or null if it's not in the cache.
+		 */
+		public byte[] get(String name) {
+			synchronized (this) {
+				if (sizes.get(name) == null)
+					return null;
+			}
+			try {
+				return Files.readAllBytes(fileFor(name).toPath());
+			} catch (IOException e) { //it must have just been evicted
+				return null;
+			}
+		}
+		
+		
+		/**
+		 * Save a tile, and make room for it if necessary.
+		 * @param name - The tile's name, as "z/x/y".
+		 * @param contents - The encoded tile.
+		 * @throws IOException if the tile cannot be written.
+		 */
+		public void put(String name, byte[] contents) throws IOException {
+			final File f = fileFor(name);
+			f.getParentFile().mkdirs();
+			final File partial = new File(f.getPath() + ".part"); //write it somewhere else first, so it's never half-done
+			Files.write(partial.toPath(), contents);
+			Files.move(partial.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			synchronized (this) {
+				final Long old = sizes.put(name, (long) contents.length);
+				totalBytes += contents.length - ((old != null) ? old : 0);
+				evict();
+			}
+		}
+		
+		
+		private synchronized void evict() {
+			final Iterator<Map.Entry<String, Long>> iterator = sizes.entrySet().iterator();
+			while (totalBytes > maxBytes && iterator.hasNext()) {
+				final Map.Entry<String, Long> eldest = iterator.next();
+				fileFor(eldest.getKey()).delete();
+				totalBytes -= eldest.getValue();
+				iterator.remove();
+			}
+		}
+		
+		
+		private File fileFor(String name) {
+			return new File(directory, name + ".png");
+		}
+		
+		
+		private static void findTiles(File dir, List<File> tiles) {
+			final File[] children = dir.listFiles();
+			if (children == null)	return;
+			for (File child: children) {
+				if (child.isDirectory())
+					findTiles(child, tiles);
+				else if (child.getName().endsWith(".png"))
+					tiles.add(child);
+			}
+		}
+	}
+}
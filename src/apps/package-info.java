@@ -22,7 +22,8 @@
  * SOFTWARE.
  */
 /**
- * The JavaFX applications that make up the main interfaces.
+ * The JavaFX applications that make up the main interfaces, and the batch scripts that
+ * do their heavy lifting without JavaFX.
  * 
  * @author jkunimune
  */
@@ -39,8 +39,12 @@ import image.SVGMap.Path;
  */
 public class ImageUtils {
 	
+	private static final double GAMMA = 2.2; //the gamma with which to blend by default
+	private static final double[] LINEARIZED = powers(GAMMA); //each channel value to that power
+	
+	
 	public static final int blend(int[] colors) {
-		return blend(colors, 2.2);
+		return blend(colors, LINEARIZED, GAMMA);
 	}
 	
 	
@@ -65,6 +69,47 @@ public class ImageUtils {
 	}
 	
 	
+	/**
+	 * Blend a whole row of pixels at once, the same way blend() does each one.
+	 * @param colors the colours of the samples in each pixel
+	 * @param output the array in which to put the ARGB value of each pixel
+	 */
+	public static final void blend(int[][] colors, int[] output) {
+		for (int i = 0; i < colors.length; i ++)
+			output[i] = blend(colors[i], LINEARIZED, GAMMA);
+	}
+	
+	
+	private static final int blend(int[] colors, double[] powers, double gamma) { //like blend(colors, gamma), but with the powers looked up
+		int a_tot = 0;
+		int r_tot = 0;
+		int g_tot = 0;
+		int b_tot = 0;
+		for (int argb: colors) {
+			int a = ((argb >> 24)&0xFF);
+			if (a == 0) 	continue; //it would add nothing
+			a_tot += a;
+			r_tot += a*powers[(argb>>16)&0xFF];
+			g_tot += a*powers[(argb>> 8)&0xFF];
+			b_tot += a*powers[(argb>> 0)&0xFF];
+		}
+		if (a_tot == 0)	return 0;
+		else
+			return (a_tot/colors.length << 24) +
+					((int)Math.pow(r_tot/a_tot, 1/gamma) << 16) +
+					((int)Math.pow(g_tot/a_tot, 1/gamma) << 8) +
+					((int)Math.pow(b_tot/a_tot, 1/gamma) << 0);
+	}
+	
+	
+	private static final double[] powers(double gamma) { //tabulate every channel value to a power
+		final double[] powers = new double[256];
+		for (int c = 0; c < powers.length; c ++)
+			powers[c] = Math.pow(c, gamma);
+		return powers;
+	}
+	
+	
 	public static final void drawSVGPath(Path path, Color stroke, float strokeWidth, boolean antialias, Graphics2D g) {
 		g.setStroke(new BasicStroke(strokeWidth, BasicStroke.CAP_BUTT, BasicStroke.JOIN_ROUND));
 		g.setColor(stroke);
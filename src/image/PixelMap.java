@@ -32,49 +32,272 @@ import java.io.IOException;
 import javax.imageio.ImageIO;
 
 /**
- * An input equirectangular map based on a raster image file
+ * An input equirectangular map based on a raster image file. When a map is drawn much smaller
+ * than the image, it can be sampled from a mip pyramid of successively halved copies of the
+ * image, so that each output pixel sees the average colour of the area it covers rather than
+ * whichever input pixel happens to be under its centre.
  * 
  * @author jkunimune
  */
 public class PixelMap {
 	
+	private static final double GAMMA = 2.2; //the gamma with which to average colours, as in ImageUtils.blend
+	private static final long MAX_MIP_PIXELS = 1L << 25; //the most pixels a single level of the pyramid may have
+	private static final double[] LINEAR = new double[256]; //the linear intensity of each 8-bit colour value
+	static {
+		for (int v = 0; v < LINEAR.length; v ++)
+			LINEAR[v] = Math.pow(v/255., GAMMA);
+	}
+	
 	private final BufferedImage pixels;
 	private final WritableRaster alphaPixels;
+	private volatile int[][] mipLevels = null; //the pyramid, from full resolution (null) to 1 pixel
+	private int[] mipWidths, mipHeights; //the dimensions of each level of the pyramid
 	
 	
 	public PixelMap(File f) throws IOException {
 		pixels = ImageIO.read(f);
 		alphaPixels = pixels.getAlphaRaster();
 	}
+	
+	
+	protected PixelMap() { //for subclasses that keep their pixels somewhere else
+		pixels = null;
+		alphaPixels = null;
+	}
+	
+	
+	/**
+	 * Load an image file the best way for its size: all at once if it fits, or as tiles that are
+	 * read from disk as needed if it doesn't.
+	 * @param f - The image file, or a tile file from TiledPixelMap.
+	 * @return a PixelMap of the image.
+	 * @throws IOException if the file can't be read.
+	 */
+	public static PixelMap load(File f) throws IOException {
+		if (TiledPixelMap.shouldTile(f))
+			return TiledPixelMap.open(f);
+		else
+			return new PixelMap(f);
+	}
 
 
 	public int getWidth() {
-		return this.pixels.getWidth();
+		return getImageWidth();
 	}
 
 
 	public int getHeight() {
+		return getImageHeight();
+	}
+	
+	
+	/**
+	 * The width of the image itself, which is what all of the sampling is done on. Subclasses may
+	 * change what getWidth() means, but not this.
+	 */
+	protected int getImageWidth() {
+		return this.pixels.getWidth();
+	}
+	
+	
+	protected int getImageHeight() {
 		return this.pixels.getHeight();
 	}
 	
 	
+	/**
+	 * The width and height of the squares in which the image is stored, which are fastest to read
+	 * one at a time. An image in memory can be read in any order, so this is just small enough to
+	 * keep the running sums of the pyramid small.
+	 */
+	protected int getTileSize() {
+		return 256;
+	}
+	
+	
+	/**
+	 * Get the colour of the pixel under a point.
+	 * @param lat - The latitude in radians.
+	 * @param lon - The longitude in radians.
+	 * @return the colour in ARGB.
+	 */
 	public int getArgb(double lat, double lon) {
+		return getNearest(lat, lon);
+	}
+	
+	
+	private int getNearest(double lat, double lon) { //this is separate so that overriding getArgb can't change the coordinates twice
+		final int width = getImageWidth(), height = getImageHeight();
 		double x = 0.5 + lon/(2*Math.PI);
-		x = (x - Math.floor(x)) * pixels.getWidth();
+		x = (x - Math.floor(x)) * width;
 		
-		double y = pixels.getHeight()*(.5 - lat/Math.PI);
+		double y = height*(.5 - lat/Math.PI);
 		if (y < 0)
 			y = 0;
-		else if (y >= pixels.getHeight())
-			y = pixels.getHeight() - 1;
-
+		else if (y >= height)
+			y = height - 1;
+		
+		return getPixel(Math.min((int) x, width - 1), (int) y);
+	}
+	
+	
+	/**
+	 * Get the average colour of a patch of the globe, picking the level of the pyramid at which
+	 * the patch is about one pixel across.
+	 * @param lat - The latitude of the centre of the patch in radians.
+	 * @param lon - The longitude of the centre of the patch in radians.
+	 * @param latSpan - The height of the patch in radians of latitude.
+	 * @param lonSpan - The width of the patch in radians of longitude.
+	 * @return the colour in ARGB.
+	 */
+	public int getArgb(double lat, double lon, double latSpan, double lonSpan) {
+		final double footprint = Math.max(latSpan*getImageHeight()/Math.PI, lonSpan*getImageWidth()/(2*Math.PI)); //the size of the patch in pixels
+		if (!(footprint >= Math.sqrt(2))) //if it's smaller than a pixel (or unknown), just sample the image directly
+			return getNearest(lat, lon);
+		
+		final int[][] levels = getMipLevels();
+		final int n = Math.min((int) Math.round(Math.log(footprint)/Math.log(2)), levels.length - 1);
+		if (levels[n] == null) //this level was too big to keep
+			return getNearest(lat, lon);
+		
+		final int width = mipWidths[n], height = mipHeights[n]; //interpolate between the four nearest pixels of this level
+		double x = 0.5 + lon/(2*Math.PI);
+		x = (x - Math.floor(x)) * width - .5;
+		double y = height*(.5 - lat/Math.PI) - .5;
+		final int i0 = (int) Math.floor(x), j0 = (int) Math.floor(y);
+		final double[] sum = new double[4];
+		double weight = 0;
+		for (int dj = 0; dj <= 1; dj ++) {
+			for (int di = 0; di <= 1; di ++) {
+				final double w = (1 - Math.abs(x - i0 - di)) * (1 - Math.abs(y - j0 - dj));
+				final int i = Math.floorMod(i0 + di, width); //wrap around the antimeridian
+				final int j = Math.max(0, Math.min(height - 1, j0 + dj)); //but not the poles
+				accumulate(levels[n][j*width + i], w, sum);
+				weight += w;
+			}
+		}
+		return average(sum, weight);
+	}
+	
+	
+	/**
+	 * Get the colour of one pixel of the full-resolution image.
+	 * @param i - The column, from the left.
+	 * @param j - The row, from the top.
+	 * @return the colour in ARGB.
+	 */
+	protected int getPixel(int i, int j) {
 		int alpha;
 		if (pixels.getTransparency() != Transparency.OPAQUE)
-			alpha = alphaPixels.getPixel((int) x, (int) y, new int[1])[0];
+			alpha = alphaPixels.getPixel(i, j, new int[1])[0];
 		else
 			alpha = 0xFF;
-		int rgb = pixels.getRGB((int) x, (int) y);
+		int rgb = pixels.getRGB(i, j);
 		
 		return (alpha << 24) | rgb;
 	}
+	
+	
+	private int[][] getMipLevels() {
+		if (mipLevels == null) {
+			synchronized (this) {
+				if (mipLevels == null)
+					buildMipLevels();
+			}
+		}
+		return mipLevels;
+	}
+	
+	
+	/**
+	 * Build the pyramid. Each level is half the size of the last, rounding up, down to one pixel.
+	 * The first level small enough to keep is averaged straight from the full-resolution image
+	 * in a single pass, one tile at a time, and each subsequent one is averaged from the one
+	 * before it.
+	 */
+	private void buildMipLevels() {
+		int numLevels = 1;
+		while ((getImageWidth() - 1) >> (numLevels - 1) > 0 || (getImageHeight() - 1) >> (numLevels - 1) > 0)
+			numLevels ++;
+		final int[] widths = new int[numLevels], heights = new int[numLevels];
+		for (int n = 0; n < numLevels; n ++) {
+			widths[n] = ((getImageWidth() - 1) >> n) + 1;
+			heights[n] = ((getImageHeight() - 1) >> n) + 1;
+		}
+		final int[][] levels = new int[numLevels][];
+		if (numLevels == 1) { //a one-pixel image doesn't need a pyramid
+			this.mipWidths = widths;
+			this.mipHeights = heights;
+			this.mipLevels = levels;
+			return;
+		}
+		
+		int first = 1;
+		while ((long)widths[first]*heights[first] > MAX_MIP_PIXELS)
+			first ++;
+		
+		final int blockSize = 1 << first; //average blocks of the full image a tile at a time, which is easy on a TiledPixelMap
+		final int step = Math.max(1, getTileSize()/blockSize)*blockSize; //in squares that hold whole tiles and whole blocks
+		levels[first] = new int[widths[first]*heights[first]];
+		for (int j0 = 0; j0 < getImageHeight(); j0 += step) {
+			for (int i0 = 0; i0 < getImageWidth(); i0 += step) {
+				final int jMax = Math.min(j0 + step, getImageHeight()), iMax = Math.min(i0 + step, getImageWidth());
+				final int blocksAcross = (iMax - i0 - 1)/blockSize + 1, blocksDown = (jMax - j0 - 1)/blockSize + 1;
+				final double[][] sums = new double[blocksAcross*blocksDown][4];
+				final int[] counts = new int[blocksAcross*blocksDown];
+				for (int j = j0; j < jMax; j ++) {
+					for (int i = i0; i < iMax; i ++) {
+						final int k = (j - j0)/blockSize*blocksAcross + (i - i0)/blockSize;
+						accumulate(getPixel(i, j), 1, sums[k]);
+						counts[k] ++;
+					}
+				}
+				for (int k = 0; k < sums.length; k ++) {
+					final int I = i0/blockSize + k%blocksAcross, J = j0/blockSize + k/blocksAcross;
+					levels[first][J*widths[first] + I] = average(sums[k], counts[k]);
+				}
+			}
+		}
+		
+		for (int n = first + 1; n < numLevels; n ++) { //then halve it until there's nothing left to halve
+			levels[n] = new int[widths[n]*heights[n]];
+			for (int J = 0; J < heights[n]; J ++) {
+				for (int I = 0; I < widths[n]; I ++) {
+					final double[] sum = new double[4];
+					int count = 0;
+					for (int j = 2*J; j < Math.min(2*J + 2, heights[n-1]); j ++) {
+						for (int i = 2*I; i < Math.min(2*I + 2, widths[n-1]); i ++) {
+							accumulate(levels[n-1][j*widths[n-1] + i], 1, sum);
+							count ++;
+						}
+					}
+					levels[n][J*widths[n] + I] = average(sum, count);
+				}
+			}
+		}
+		
+		this.mipWidths = widths;
+		this.mipHeights = heights;
+		this.mipLevels = levels; //set this last, since it's what other threads check
+	}
+	
+	
+	private static void accumulate(int argb, double weight, double[] sum) { //add alpha-weighted linear colour to a running sum
+		final double a = weight*((argb >> 24)&0xFF);
+		sum[0] += a;
+		sum[1] += a*LINEAR[(argb >> 16)&0xFF];
+		sum[2] += a*LINEAR[(argb >> 8)&0xFF];
+		sum[3] += a*LINEAR[(argb >> 0)&0xFF];
+	}
+	
+	
+	private static int average(double[] sum, double count) { //turn a running sum back into a colour
+		if (sum[0] == 0)	return 0;
+		final int a = (int) Math.round(sum[0]/count);
+		final int r = (int) Math.round(255*Math.pow(sum[1]/sum[0], 1/GAMMA));
+		final int g = (int) Math.round(255*Math.pow(sum[2]/sum[0], 1/GAMMA));
+		final int b = (int) Math.round(255*Math.pow(sum[3]/sum[0], 1/GAMMA));
+		return (a << 24) | (r << 16) | (g << 8) | (b << 0);
+	}
 }
@@ -52,6 +52,7 @@ import org.xml.sax.helpers.AttributesImpl;
 import org.xml.sax.helpers.DefaultHandler;
 
 import utils.Math2;
+import utils.Metrics;
 import utils.SAXUtils;
 
 /**
@@ -83,6 +84,7 @@ public class SVGMap implements Iterable<SVGMap.Path> {
 	
 	
 	public SVGMap(File file) throws IOException, SAXException, ParserConfigurationException {
+		final long start = Metrics.start();
 		paths = new LinkedList<Path>();
 		format = new LinkedList<String>();
 		
@@ -261,6 +263,7 @@ public class SVGMap implements Iterable<SVGMap.Path> {
 		};
 		
 		parser.parse(new BufferedInputStream(new FileInputStream(file)), handler);
+		Metrics.stop("svg.load", start, length);
 	}
 	
 	
@@ -309,6 +312,8 @@ public class SVGMap implements Iterable<SVGMap.Path> {
 	
 	public void save(Iterable<Path> paths, File file, double inMinX, double inMaxY, double inWidth,
 			double inHeight) throws IOException {
+		final long start = Metrics.start();
+		long points = 0;
 		BufferedWriter out = new BufferedWriter(new FileWriter(file));
 		
 		final Iterator<String> formatIterator = format.iterator();
@@ -316,14 +321,17 @@ public class SVGMap implements Iterable<SVGMap.Path> {
 		
 		out.write(SAXUtils.encode(replacePlaceholders(formatIterator.next(), inWidth/inHeight)));
 		while (curveIterator.hasNext()) {
+			final Path curve = curveIterator.next();
+			points += curve.size();
 			out.write(closePaths(
-					breakWraps(curveIterator.next(), Math.max(inWidth, inHeight))
+					breakWraps(curve, Math.max(inWidth, inHeight))
 				).toString(
 					inMinX, inMaxY, vbMinX, vbMinY,
 					Math.max(vbWidth, vbHeight)/Math.max(inWidth, inHeight)));
 			out.write(SAXUtils.encode(formatIterator.next()));
 		}
 		out.close();
+		Metrics.stop("svg.save", start, points);
 	}
 	
 	
@@ -31,6 +31,7 @@ import javax.imageio.ImageIO;
 
 import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.Image;
+import utils.Metrics;
 
 /**
  * An image that can be saved. It provides a convenient interface for both vector and raster images.
@@ -47,7 +48,9 @@ public interface SavableImage {
 				String filename = file.getName();
 				String extension = filename.contains(".") ?
 						filename.substring(filename.lastIndexOf(".")+1) : "";
+				final long start = Metrics.start();
 				ImageIO.write(img, extension, file);
+				Metrics.stop("image.write", start, (long)img.getWidth()*img.getHeight());
 			}
 		};
 	}
@@ -58,7 +61,9 @@ public interface SavableImage {
 				String filename = file.getName();
 				String extension = filename.contains(".") ?
 						filename.substring(filename.lastIndexOf(".")+1) : "";
+				final long start = Metrics.start();
 				ImageIO.write(SwingFXUtils.fromFXImage(img, null), extension, file);
+				Metrics.stop("image.write", start, (long)img.getWidth()*(long)img.getHeight());
 			}
 		};
 	}
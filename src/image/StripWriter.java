@@ -0,0 +1,464 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2026 Map-Projections contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package image;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * An image file that gets written a few rows at a time, so that it never has to be in memory all
+ * at once. It can encode PNG or tiled TIFF, and will need about as much memory as one strip
+ * (or, for TIFF, one row of tiles) no matter how big the image is. If it is closed before every
+ * row has been written, it deletes the file, since what is there would not be a valid image.
+ *
+ * @author Map-Projections contributors
+ */
+public abstract class StripWriter implements Closeable {
+	
+	protected final File file; //the destination
+	protected final int width, height; //the dimensions of the full image
+	protected int rowsWritten; //the number of rows that have been written so far
+	
+	
+	protected StripWriter(File file, int width, int height) {
+		this.file = file;
+		this.width = width;
+		this.height = height;
+		this.rowsWritten = 0;
+	}
+	
+	
+	/**
+	 * Can this file be written a strip at a time?
+	 * @param file - The file that is to be written.
+	 * @return true if its extension is one of the formats StripWriter knows.
+	 */
+	public static boolean canWrite(File file) {
+		final String extension = extension(file);
+		return extension.equals("png") || extension.equals("tif") || extension.equals("tiff");
+	}
+	
+	
+	/**
+	 * Start writing an image to disk, in the format indicated by the file extension.
+	 * @param file - The destination.
+	 * @param width - The total width of the image.
+	 * @param height - The total height of the image.
+	 * @return a StripWriter to which to pass the image from top to bottom.
+	 * @throws IOException if the file cannot be opened.
+	 * @throws IllegalArgumentException if the extension is not PNG or TIFF.
+	 */
+	public static StripWriter open(File file, int width, int height) throws IOException {
+		final String extension = extension(file);
+		if (extension.equals("png"))
+			return new PNGWriter(file, width, height);
+		else if (extension.equals("tif") || extension.equals("tiff"))
+			return new TIFFWriter(file, width, height);
+		else
+			throw new IllegalArgumentException("I can't stream ."+extension+" files.");
+	}
+	
+	
+	/**
+	 * Add the next few rows to the bottom of the image.
+	 * @param strip - The rows, which must be as wide as the image.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void write(BufferedImage strip) throws IOException {
+		if (strip.getWidth() != width)
+			throw new IllegalArgumentException("This strip is "+strip.getWidth()+" pixels wide, but the image is "+width+".");
+		if (rowsWritten + strip.getHeight() > height)
+			throw new IllegalArgumentException("This strip goes past the bottom of the image.");
+		
+		final int[] argb = new int[width];
+		final byte[] rgba = new byte[4*width];
+		for (int y = 0; y < strip.getHeight(); y ++) {
+			strip.getRGB(0, y, width, 1, argb, 0, width);
+			for (int x = 0; x < width; x ++) {
+				rgba[4*x+0] = (byte)(argb[x] >> 16);
+				rgba[4*x+1] = (byte)(argb[x] >> 8);
+				rgba[4*x+2] = (byte)(argb[x] >> 0);
+				rgba[4*x+3] = (byte)(argb[x] >> 24);
+			}
+			writeRow(rgba);
+			rowsWritten ++;
+		}
+	}
+	
+	
+	/**
+	 * Encode one row of pixels.
+	 * @param rgba - The red, green, blue, and alpha bytes of each pixel in the row.
+	 * @throws IOException if the file cannot be written.
+	 */
+	protected abstract void writeRow(byte[] rgba) throws IOException;
+	
+	
+	/**
+	 * Finish the file if every row has been written, or abandon and delete it if not.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void close() throws IOException {
+		if (rowsWritten < height) { //a file that says it has more rows than it does is no use to anyone
+			try {
+				abort();
+			} finally {
+				file.delete();
+			}
+		}
+		else
+			finish();
+	}
+	
+	
+	/**
+	 * Write whatever comes after the last row, and close the file.
+	 * @throws IOException if the file cannot be written.
+	 */
+	protected abstract void finish() throws IOException;
+	
+	
+	/**
+	 * Close the file without finishing it.
+	 * @throws IOException if the file cannot be closed.
+	 */
+	protected abstract void abort() throws IOException;
+	
+	
+	private static String extension(File file) {
+		final String filename = file.getName();
+		return filename.contains(".") ?
+				filename.substring(filename.lastIndexOf(".")+1).toLowerCase() : "";
+	}
+	
+	
+	
+	/**
+	 * A StripWriter for 8-bit RGBA PNGs, which deflates each row as it comes in. It chooses a
+	 * filter for each row with the usual minimum-sum-of-absolute-differences heuristic.
+	 */
+	private static class PNGWriter extends StripWriter {
+		
+		private static final byte[] SIGNATURE = { (byte)137, 80, 78, 71, 13, 10, 26, 10 };
+		private static final int CHUNK_SIZE = 1 << 16; //the maximum size of each IDAT chunk
+		
+		private final OutputStream out;
+		private final DeflaterOutputStream idat;
+		private byte[] lastRow; //the previous row, which the filters need
+		private final byte[][] filtered; //the current row under each of the five filters
+		
+		public PNGWriter(File file, int width, int height) throws IOException {
+			super(file, width, height);
+			this.out = new BufferedOutputStream(new FileOutputStream(file));
+			this.out.write(SIGNATURE);
+			final byte[] header = new byte[13];
+			putInt(header, 0, width);
+			putInt(header, 4, height);
+			header[8] = 8; //bit depth
+			header[9] = 6; //colour type (truecolour with alpha)
+			writeChunk(this.out, "IHDR", header, header.length); //compression, filter, and interlace are all 0
+			
+			this.idat = new DeflaterOutputStream(new ChunkOutputStream(this.out),
+					new Deflater(Deflater.DEFAULT_COMPRESSION), CHUNK_SIZE);
+			this.lastRow = new byte[4*width];
+			this.filtered = new byte[5][4*width + 1];
+		}
+		
+		protected void writeRow(byte[] row) throws IOException {
+			long bestScore = Long.MAX_VALUE;
+			int bestFilter = 0;
+			for (int f = 0; f < 5; f ++) {
+				filtered[f][0] = (byte)f;
+				long score = 0;
+				for (int i = 0; i < row.length; i ++) {
+					final int a = (i >= 4) ? row[i-4]&0xFF : 0; //left
+					final int b = lastRow[i]&0xFF; //up
+					final int c = (i >= 4) ? lastRow[i-4]&0xFF : 0; //up-left
+					final int predictor;
+					switch (f) {
+					case 1:
+						predictor = a;
+						break;
+					case 2:
+						predictor = b;
+						break;
+					case 3:
+						predictor = (a + b)/2;
+						break;
+					case 4:
+						predictor = paeth(a, b, c);
+						break;
+					default:
+						predictor = 0;
+					}
+					filtered[f][i+1] = (byte)(row[i] - predictor);
+					score += Math.abs(filtered[f][i+1]);
+				}
+				if (score < bestScore) {
+					bestScore = score;
+					bestFilter = f;
+				}
+			}
+			idat.write(filtered[bestFilter]);
+			System.arraycopy(row, 0, lastRow, 0, row.length);
+		}
+		
+		protected void finish() throws IOException {
+			idat.close(); //this flushes the last IDAT chunk and writes IEND
+		}
+		
+		protected void abort() throws IOException {
+			out.close(); //closing idat would write IEND, which is not wanted here
+		}
+		
+		private static int paeth(int a, int b, int c) {
+			final int p = a + b - c;
+			final int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+			if (pa <= pb && pa <= pc) 	return a;
+			else if (pb <= pc) 	return b;
+			else 	return c;
+		}
+		
+		private static void writeChunk(OutputStream out, String type, byte[] data, int length)
+				throws IOException {
+			final byte[] typeBytes = type.getBytes("US-ASCII");
+			final CRC32 crc = new CRC32();
+			crc.update(typeBytes);
+			crc.update(data, 0, length);
+			final byte[] number = new byte[4];
+			putInt(number, 0, length);
+			out.write(number);
+			out.write(typeBytes);
+			out.write(data, 0, length);
+			putInt(number, 0, (int)crc.getValue());
+			out.write(number);
+		}
+		
+		private static void putInt(byte[] arr, int i, int value) { //PNG is big-endian
+			arr[i+0] = (byte)(value >> 24);
+			arr[i+1] = (byte)(value >> 16);
+			arr[i+2] = (byte)(value >> 8);
+			arr[i+3] = (byte)(value >> 0);
+		}
+		
+		/**
+		 * A stream that packages everything written to it into IDAT chunks.
+		 */
+		private static class ChunkOutputStream extends OutputStream {
+			private final OutputStream out;
+			private final byte[] buffer = new byte[CHUNK_SIZE];
+			private int length = 0;
+			
+			public ChunkOutputStream(OutputStream out) {
+				this.out = out;
+			}
+			
+			public void write(int b) throws IOException {
+				buffer[length++] = (byte)b;
+				if (length == buffer.length)
+					flushChunk();
+			}
+			
+			public void write(byte[] b, int off, int len) throws IOException {
+				while (len > 0) {
+					final int n = Math.min(len, buffer.length - length);
+					System.arraycopy(b, off, buffer, length, n);
+					length += n;
+					off += n;
+					len -= n;
+					if (length == buffer.length)
+						flushChunk();
+				}
+			}
+			
+			private void flushChunk() throws IOException {
+				if (length > 0)
+					writeChunk(out, "IDAT", buffer, length);
+				length = 0;
+			}
+			
+			public void close() throws IOException {
+				flushChunk();
+				writeChunk(out, "IEND", buffer, 0);
+				out.close();
+			}
+		}
+	}
+	
+	
+	
+	/**
+	 * A StripWriter for tiled, deflated, 8-bit RGBA TIFFs. It saves up one row of tiles at a time,
+	 * and writes the directory at the end of the file once it knows where all the tiles went.
+	 */
+	private static class TIFFWriter extends StripWriter {
+		
+		private static final int TILE_SIZE = 256; //the width and height of each tile
+		
+		private final OutputStream out;
+		private long position; //the number of bytes written so far
+		private final int tilesAcross, tilesDown;
+		private final byte[][] tileRow; //the tiles currently being filled in
+		private final long[] tileOffsets, tileByteCounts;
+		private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+		
+		public TIFFWriter(File file, int width, int height) throws IOException {
+			super(file, width, height);
+			this.out = new BufferedOutputStream(new FileOutputStream(file));
+			this.out.write(new byte[] {'I', 'I', 42, 0, 0, 0, 0, 0}); //the directory offset gets filled in at the end
+			this.position = 8;
+			this.tilesAcross = (width + TILE_SIZE - 1)/TILE_SIZE;
+			this.tilesDown = (height + TILE_SIZE - 1)/TILE_SIZE;
+			this.tileRow = new byte[tilesAcross][4*TILE_SIZE*TILE_SIZE];
+			this.tileOffsets = new long[tilesAcross*tilesDown];
+			this.tileByteCounts = new long[tilesAcross*tilesDown];
+		}
+		
+		protected void writeRow(byte[] rgba) throws IOException {
+			final int y = rowsWritten%TILE_SIZE;
+			for (int i = 0; i < tilesAcross; i ++) {
+				final int start = i*TILE_SIZE, end = Math.min(width, start + TILE_SIZE);
+				final byte[] tile = tileRow[i];
+				int k = 4*TILE_SIZE*y;
+				for (int x = start; x < end; x ++) { //apply the horizontal differencing predictor as we go
+					for (int c = 0; c < 4; c ++) {
+						tile[k] = (x == start) ? rgba[4*x+c] : (byte)(rgba[4*x+c] - rgba[4*x+c-4]);
+						k ++;
+					}
+				}
+				for (; k < 4*TILE_SIZE*(y+1); k ++)
+					tile[k] = 0; //pad the edge tiles
+			}
+			if (y == TILE_SIZE-1 || rowsWritten == height-1)
+				flushTiles(y+1);
+		}
+		
+		private void flushTiles(int rowsFilled) throws IOException {
+			for (byte[] tile: tileRow)
+				for (int k = 4*TILE_SIZE*rowsFilled; k < tile.length; k ++)
+					tile[k] = 0; //pad the bottom tiles
+			
+			final int j = rowsWritten/TILE_SIZE;
+			final byte[] buffer = new byte[1 << 16];
+			for (int i = 0; i < tilesAcross; i ++) {
+				tileOffsets[j*tilesAcross + i] = position;
+				deflater.reset();
+				deflater.setInput(tileRow[i]);
+				deflater.finish();
+				while (!deflater.finished()) {
+					final int n = deflater.deflate(buffer);
+					out.write(buffer, 0, n);
+					position += n;
+				}
+				tileByteCounts[j*tilesAcross + i] = position - tileOffsets[j*tilesAcross + i];
+			}
+			if (position >= 1L << 32)
+				throw new IOException("This image is too big for a TIFF.");
+		}
+		
+		protected void finish() throws IOException {
+			if (position%2 == 1) { //the directory must start on a word boundary
+				out.write(0);
+				position ++;
+			}
+			final long directory = position;
+			final int numEntries = 13;
+			final long dataStart = directory + 2 + 12*numEntries + 4; //where the arrays that don't fit in the entries go
+			final long bitsOffset = dataStart;
+			final long offsetsOffset = bitsOffset + 8;
+			final long countsOffset = offsetsOffset + 4*tileOffsets.length;
+			
+			writeShort(numEntries);
+			writeEntry(256, 4, 1, width); //image width
+			writeEntry(257, 4, 1, height); //image length
+			writeEntry(258, 3, 4, bitsOffset); //bits per sample
+			writeEntry(259, 3, 1, 8); //compression (deflate)
+			writeEntry(262, 3, 1, 2); //photometric interpretation (RGB)
+			writeEntry(277, 3, 1, 4); //samples per pixel
+			writeEntry(284, 3, 1, 1); //planar configuration (chunky)
+			writeEntry(317, 3, 1, 2); //predictor (horizontal differencing)
+			writeEntry(322, 3, 1, TILE_SIZE); //tile width
+			writeEntry(323, 3, 1, TILE_SIZE); //tile length
+			writeEntry(324, 4, tileOffsets.length,
+					(tileOffsets.length == 1) ? tileOffsets[0] : offsetsOffset); //tile offsets
+			writeEntry(325, 4, tileByteCounts.length,
+					(tileByteCounts.length == 1) ? tileByteCounts[0] : countsOffset); //tile byte counts
+			writeEntry(338, 3, 1, 2); //extra samples (unassociated alpha)
+			writeInt(0); //there is no next directory
+			for (int c = 0; c < 4; c ++)
+				writeShort(8);
+			for (long offset: tileOffsets)
+				writeInt(offset);
+			for (long count: tileByteCounts)
+				writeInt(count);
+			out.close();
+			
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) { //finally, go back and point the header at the directory
+				raf.seek(4);
+				raf.write(new byte[] {(byte)directory, (byte)(directory >> 8),
+						(byte)(directory >> 16), (byte)(directory >> 24)});
+			}
+		}
+		
+		protected void abort() throws IOException {
+			out.close();
+		}
+		
+		private void writeEntry(int tag, int type, int count, long value) throws IOException {
+			writeShort(tag);
+			writeShort(type);
+			writeInt(count);
+			if (type == 3 && count == 1) { //a single short goes in the first half of the value field
+				writeShort((int)value);
+				writeShort(0);
+			}
+			else
+				writeInt(value);
+		}
+		
+		private void writeShort(int value) throws IOException { //TIFF is little-endian here
+			out.write(value);
+			out.write(value >> 8);
+			position += 2;
+		}
+		
+		private void writeInt(long value) throws IOException {
+			out.write((int)value);
+			out.write((int)(value >> 8));
+			out.write((int)(value >> 16));
+			out.write((int)(value >> 24));
+			position += 4;
+		}
+	}
+	
+}
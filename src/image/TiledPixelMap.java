@@ -0,0 +1,584 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2026 Map-Projections contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package image;
+
+import java.awt.Rectangle;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * An input equirectangular map that is too big to fit in memory. It is read from a pre-tiled
+ * file of raw ARGB pixels, which is memory-mapped so that tiles can be pulled in only when
+ * someone asks for a pixel in them. The most recently used tiles are kept decoded in a cache,
+ * which holds at least two rows of tiles so that scanning along rows does not thrash it.
+ * Any image can be converted to this format with tile().
+ *
+ * @author Map-Projections contributors
+ */
+public class TiledPixelMap extends PixelMap {
+
+	public static final String EXTENSION = ".tiles";
+
+	private static final int MAGIC_NUMBER = 0x504D5431; //"PMT1", to identify the file format
+	private static final int HEADER_SIZE = 16; //the magic number, width, height, and tile size
+	private static final int TILE_SIZE = 256; //the width and height of each tile
+	private static final long SEGMENT_SIZE = 1L << 30; //the maximum number of bytes to map at once
+	private static final int MIN_CACHE_SIZE = 256; //the fewest tiles to keep decoded
+	private static final int CACHE_ROWS = 2; //the number of rows of tiles to keep decoded, if that is more
+	private static final long MAX_IN_MEMORY = 1L << 27; //the largest number of pixels that is reasonable to load the normal way
+
+	private final int width, height; //the dimensions of the whole image
+	private final int tileSize; //the width and height of each tile
+	private final int tilesAcross; //the number of tiles in each row of tiles
+	private final int tilesPerSegment; //the number of tiles in each mapped segment of the file
+	private final MappedByteBuffer[] segments; //the mapped contents of the file
+	private final int cacheSize; //the number of tiles to keep decoded
+	private final Map<Integer, int[]> cache; //the decoded tiles, from least to most recently used
+
+
+	/**
+	 * Open a file written by tile().
+	 * @param f - The tile file.
+	 * @throws IOException if the file is missing or is not a tile file.
+	 */
+	public TiledPixelMap(File f) throws IOException {
+		super();
+		try (RandomAccessFile raf = new RandomAccessFile(f, "r");
+				FileChannel channel = raf.getChannel()) {
+			if (raf.readInt() != MAGIC_NUMBER)
+				throw new IOException(f+" is not a tile file.");
+			this.width = raf.readInt();
+			this.height = raf.readInt();
+			this.tileSize = raf.readInt();
+			this.tilesAcross = (width + tileSize - 1)/tileSize;
+			final int tilesDown = (height + tileSize - 1)/tileSize;
+			final long tileBytes = 4L*tileSize*tileSize;
+			this.tilesPerSegment = (int)Math.max(1, SEGMENT_SIZE/tileBytes);
+
+			final int numTiles = tilesAcross*tilesDown;
+			this.segments = new MappedByteBuffer[(numTiles + tilesPerSegment - 1)/tilesPerSegment];
+			for (int s = 0; s < segments.length; s ++) { //mapping is lazy, so this doesn't read anything yet
+				final int tilesInSegment = Math.min(tilesPerSegment, numTiles - s*tilesPerSegment);
+				segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+						HEADER_SIZE + s*tilesPerSegment*tileBytes, tilesInSegment*tileBytes);
+			}
+		}
+		this.cacheSize = Math.max(MIN_CACHE_SIZE, CACHE_ROWS*tilesAcross); //a scan along a row must not evict the tiles it is about to reach again
+		this.cache = new LinkedHashMap<Integer, int[]>(cacheSize, .75f, true) {
+			private static final long serialVersionUID = 1L;
+			protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+
+	/**
+	 * Is this image file too big to load into memory all at once?
+	 * @param f - The image file, which must be in a format ImageIO can read.
+	 * @return true if it is a tile file or has too many pixels for a BufferedImage.
+	 * @throws IOException if the file can't be read.
+	 */
+	public static boolean shouldTile(File f) throws IOException {
+		if (f.getName().endsWith(EXTENSION))
+			return true;
+		try (ImageInputStream in = ImageIO.createImageInputStream(f)) {
+			final ImageReader reader = firstReader(f, in);
+			try {
+				return (long)reader.getWidth(0)*reader.getHeight(0) > MAX_IN_MEMORY;
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+
+	/**
+	 * Open a large image, tiling it first if it isn't already tiled. The tile file is saved next
+	 * to the image, and will be reused next time as long as it is newer than the image.
+	 * @param f - The image or tile file.
+	 * @return a TiledPixelMap to read it.
+	 * @throws IOException if either file can't be read or written.
+	 */
+	public static TiledPixelMap open(File f) throws IOException {
+		if (f.getName().endsWith(EXTENSION))
+			return new TiledPixelMap(f);
+		final File tiles = new File(f.getPath() + EXTENSION);
+		if (!tiles.exists() || tiles.lastModified() < f.lastModified())
+			tile(f, tiles);
+		return new TiledPixelMap(tiles);
+	}
+
+
+	/**
+	 * Convert an image into a tile file, decoding it from top to bottom so that it never has to
+	 * be in memory all at once. PNGs are decoded in a single pass, one row at a time. TIFFs can
+	 * seek to any strip or tile, so they are read a row of tiles at a time. Anything else has to
+	 * be decoded from the top every time a region is read, so it is read in blocks as big as is
+	 * reasonable, to keep the number of passes down.
+	 * @param image - The image file, which must be in a format ImageIO can read.
+	 * @param tiles - The tile file to write.
+	 * @throws IOException if either file can't be read or written.
+	 */
+	public static void tile(File image, File tiles) throws IOException {
+		final File partial = new File(tiles.getPath() + ".part"); //write it somewhere else first, so it's never half-done
+		try (RowSource source = RowSource.open(image);
+				DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(new FileOutputStream(partial), 1 << 20))) {
+			final int width = source.width, height = source.height;
+			final int tilesAcross = (width + TILE_SIZE - 1)/TILE_SIZE;
+			out.writeInt(MAGIC_NUMBER);
+			out.writeInt(width);
+			out.writeInt(height);
+			out.writeInt(TILE_SIZE);
+			
+			final int[] argb = new int[width*TILE_SIZE];
+			for (int y0 = 0; y0 < height; y0 += TILE_SIZE) {
+				final int rows = Math.min(TILE_SIZE, height - y0);
+				source.read(argb, rows);
+				for (int i = 0; i < tilesAcross; i ++) {
+					for (int y = 0; y < TILE_SIZE; y ++) {
+						for (int x = 0; x < TILE_SIZE; x ++) {
+							final int X = i*TILE_SIZE + x;
+							out.writeInt((X < width && y < rows) ? argb[y*width + X] : 0); //pad the edge tiles
+						}
+					}
+				}
+			}
+		}
+		Files.move(partial.toPath(), tiles.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+
+	@Override
+	protected int getImageWidth() {
+		return this.width;
+	}
+
+
+	@Override
+	protected int getImageHeight() {
+		return this.height;
+	}
+
+
+	@Override
+	protected int getTileSize() {
+		return this.tileSize;
+	}
+
+
+	@Override
+	protected int getPixel(int i, int j) {
+		final int[] tile = getTile(j/tileSize*tilesAcross + i/tileSize);
+		return tile[(j%tileSize)*tileSize + i%tileSize];
+	}
+
+
+	private int[] getTile(int index) {
+		synchronized (cache) {
+			final int[] tile = cache.get(index);
+			if (tile != null)
+				return tile;
+		}
+
+		final int[] tile = new int[tileSize*tileSize]; //if it's not in the cache, fault it in from the file
+		final ByteBuffer segment = segments[index/tilesPerSegment].duplicate(); //duplicate it so each thread has its own position
+		segment.position((index%tilesPerSegment)*4*tileSize*tileSize);
+		segment.asIntBuffer().get(tile);
+
+		synchronized (cache) {
+			cache.put(index, tile);
+		}
+		return tile;
+	}
+
+
+	private static ImageReader firstReader(File f, ImageInputStream in) throws IOException {
+		final Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+		if (!readers.hasNext())
+			throw new IOException("I don't know how to read "+f+".");
+		final ImageReader reader = readers.next();
+		reader.setInput(in, false, true);
+		return reader;
+	}
+	
+	
+	/**
+	 * A way of decoding an image from top to bottom, a few rows at a time.
+	 */
+	private static abstract class RowSource implements Closeable {
+		
+		protected int width, height; //the dimensions of the image
+		
+		/**
+		 * Open an image in whatever way decodes it most efficiently from top to bottom.
+		 * @param f - The image file.
+		 * @return a RowSource positioned at the top of the image.
+		 * @throws IOException if the file can't be read.
+		 */
+		public static RowSource open(File f) throws IOException {
+			final RowSource png = PNGRowSource.open(f);
+			if (png != null)
+				return png;
+			else
+				return new ImageIORowSource(f);
+		}
+		
+		/**
+		 * Decode the next few rows.
+		 * @param argb - The array in which to put the ARGB pixels, row by row.
+		 * @param rows - The number of rows to decode.
+		 * @throws IOException if the file can't be read.
+		 */
+		public abstract void read(int[] argb, int rows) throws IOException;
+	}
+	
+	
+	/**
+	 * A RowSource that reads regions of the image with ImageIO. For formats that can seek to a
+	 * row, the regions are a row of tiles tall. For formats that can't, each read decodes
+	 * everything above the region again, so the regions are made as big as MAX_IN_MEMORY allows,
+	 * which leaves only a few dozen passes even for the biggest images.
+	 */
+	private static class ImageIORowSource extends RowSource {
+		
+		private final ImageInputStream in;
+		private final ImageReader reader;
+		private final ImageReadParam param;
+		private final int blockRows; //the number of rows to read at once
+		private BufferedImage block; //the rows most recently read
+		private int blockStart = 0, blockEnd = 0; //the first row in block and the row after the last one
+		private int nextRow = 0; //the next row that read() will return
+		
+		public ImageIORowSource(File f) throws IOException {
+			this.in = ImageIO.createImageInputStream(f);
+			this.reader = firstReader(f, in);
+			this.param = reader.getDefaultReadParam();
+			this.width = reader.getWidth(0);
+			this.height = reader.getHeight(0);
+			final String format = reader.getFormatName().toLowerCase();
+			if (format.equals("tif") || format.equals("tiff")) //TIFF is stored in strips or tiles, and its reader can seek to them
+				this.blockRows = TILE_SIZE;
+			else
+				this.blockRows = (int)Math.max(TILE_SIZE, MAX_IN_MEMORY/width/TILE_SIZE*TILE_SIZE);
+		}
+		
+		public void read(int[] argb, int rows) throws IOException {
+			for (int y = 0; y < rows; y ++, nextRow ++) {
+				if (nextRow >= blockEnd) {
+					blockStart = nextRow;
+					blockEnd = Math.min(height, blockStart + blockRows);
+					param.setSourceRegion(new Rectangle(0, blockStart, width, blockEnd - blockStart));
+					block = null; //let the last one go before decoding the next one
+					block = reader.read(0, param);
+				}
+				block.getRGB(0, nextRow - blockStart, width, 1, argb, y*width, width);
+			}
+		}
+		
+		public void close() throws IOException {
+			reader.dispose();
+			in.close();
+		}
+	}
+	
+	
+	/**
+	 * A RowSource that decodes a non-interlaced PNG one row at a time, as it inflates the data,
+	 * so the whole file is only decoded once. Sixteen-bit samples are rounded down to eight bits.
+	 */
+	private static class PNGRowSource extends RowSource {
+		
+		private static final long SIGNATURE = 0x89504E470D0A1A0AL;
+		private static final int[] CHANNELS = {1, 0, 3, 1, 2, 0, 4}; //the number of samples per pixel of each colour type
+		private static final ColorSpace SRGB = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+		
+		private final DataInputStream file;
+		private final Inflater inflater = new Inflater();
+		private final DataInputStream data; //the inflated contents of the IDAT chunks
+		private int bitDepth, colourType, channels;
+		private int[] palette = new int[0]; //the ARGB colour of each palette index
+		private int[] transparent = null; //the samples of the colour that tRNS makes transparent, if there is one
+		private int[] grays = null; //the 8-bit level of each grey sample, for greyscale images
+		private int[] colours = null, alphas = null; //the 8-bit level of each colour and alpha sample, for 16-bit images
+		private int idatRemaining; //the number of bytes left in the current IDAT chunk, or -1 after the last one
+		private byte[] lastRow, thisRow; //the previous row and the current one, unfiltered
+		
+		private PNGRowSource(DataInputStream file) {
+			this.file = file;
+			this.data = new DataInputStream(new InflaterInputStream(new InputStream() {
+				public int read() throws IOException {
+					final byte[] b = new byte[1];
+					return (read(b, 0, 1) < 0) ? -1 : b[0]&0xFF;
+				}
+				public int read(byte[] b, int off, int len) throws IOException {
+					return readIDAT(b, off, len);
+				}
+			}, inflater, 1 << 16));
+		}
+		
+		/**
+		 * Read the header of a PNG, up to the start of the image data.
+		 * @param f - The file, which may or may not be a PNG.
+		 * @return a PNGRowSource for it, or null if it is not a PNG or is interlaced.
+		 * @throws IOException if the file can't be read or is a broken PNG.
+		 */
+		public static PNGRowSource open(File f) throws IOException {
+			final DataInputStream file = new DataInputStream(
+					new BufferedInputStream(new FileInputStream(f), 1 << 16));
+			final PNGRowSource source = new PNGRowSource(file);
+			boolean isPNG = false;
+			try {
+				isPNG = source.readHeader();
+			} catch (EOFException e) { //if it's too short to be a PNG, let ImageIO decide what it is
+			} finally {
+				if (!isPNG)
+					source.close();
+			}
+			return isPNG ? source : null;
+		}
+		
+		private boolean readHeader() throws IOException {
+			if (file.readLong() != SIGNATURE)
+				return false;
+			while (true) {
+				final int length = file.readInt();
+				final String type = readType();
+				if (type.equals("IHDR")) {
+					this.width = file.readInt();
+					this.height = file.readInt();
+					this.bitDepth = file.readUnsignedByte();
+					this.colourType = file.readUnsignedByte();
+					final int compression = file.readUnsignedByte(), filter = file.readUnsignedByte();
+					final int interlace = file.readUnsignedByte();
+					if (interlace != 0 || compression != 0 || filter != 0 ||
+							colourType >= CHANNELS.length || CHANNELS[colourType] == 0)
+						return false; //interlaced rows don't come out from top to bottom
+					this.channels = CHANNELS[colourType];
+					if (colourType == 0 || colourType == 4)
+						this.grays = ramp(ImageTypeSpecifier.createGrayscale(bitDepth,
+								(bitDepth == 16) ? DataBuffer.TYPE_USHORT : DataBuffer.TYPE_BYTE, false), 0, 0);
+					if (bitDepth == 16) {
+						this.colours = ramp(ImageTypeSpecifier.createInterleaved(SRGB,
+								new int[] {0, 1, 2}, DataBuffer.TYPE_USHORT, false, false), 0, 16);
+						this.alphas = ramp(ImageTypeSpecifier.createInterleaved(SRGB,
+								new int[] {0, 1, 2, 3}, DataBuffer.TYPE_USHORT, true, false), 3, 24);
+					}
+					this.lastRow = new byte[(int)(((long)width*channels*bitDepth + 7)/8)];
+					this.thisRow = new byte[lastRow.length];
+				}
+				else if (type.equals("PLTE")) {
+					final int[] plte = new int[length/3];
+					for (int i = 0; i < plte.length; i ++)
+						plte[i] = 0xFF000000 | file.readUnsignedByte() << 16 |
+								file.readUnsignedByte() << 8 | file.readUnsignedByte();
+					file.readFully(new byte[length - 3*plte.length]);
+					this.palette = plte;
+				}
+				else if (type.equals("tRNS")) {
+					if (colourType == 3) { //an alpha for each palette entry
+						for (int i = 0; i < length; i ++) {
+							final int alpha = file.readUnsignedByte();
+							if (i < palette.length)
+								palette[i] = alpha << 24 | (palette[i]&0xFFFFFF);
+						}
+					}
+					else { //or a single colour that is transparent
+						this.transparent = new int[length/2];
+						for (int c = 0; c < transparent.length; c ++)
+							transparent[c] = file.readUnsignedShort();
+						file.readFully(new byte[length - 2*transparent.length]);
+					}
+				}
+				else if (type.equals("IDAT")) {
+					this.idatRemaining = length;
+					return true;
+				}
+				else
+					file.readFully(new byte[length]); //skip anything that doesn't affect the colours
+				file.readInt(); //skip the CRC
+			}
+		}
+		
+		private String readType() throws IOException {
+			final byte[] type = new byte[4];
+			file.readFully(type);
+			return new String(type, "US-ASCII");
+		}
+		
+		private int readIDAT(byte[] b, int off, int len) throws IOException { //read the concatenated contents of the IDAT chunks
+			while (idatRemaining == 0) { //move on to the next chunk
+				file.readInt(); //skip the CRC
+				final int length = file.readInt();
+				idatRemaining = readType().equals("IDAT") ? length : -1;
+			}
+			if (idatRemaining < 0)
+				return -1;
+			final int n = file.read(b, off, Math.min(len, idatRemaining));
+			if (n < 0)
+				throw new EOFException("This PNG ends in the middle of a chunk.");
+			idatRemaining -= n;
+			return n;
+		}
+		
+		public void read(int[] argb, int rows) throws IOException {
+			final int stride = Math.max(1, channels*bitDepth/8); //the distance to the corresponding byte of the pixel to the left
+			for (int y = 0; y < rows; y ++) {
+				final byte[] swap = lastRow; //the row that was current is now the previous one
+				lastRow = thisRow;
+				thisRow = swap;
+				final int filter = data.readUnsignedByte();
+				data.readFully(thisRow);
+				for (int i = 0; i < thisRow.length; i ++) { //undo the filter
+					final int a = (i >= stride) ? thisRow[i-stride]&0xFF : 0; //left
+					final int b = lastRow[i]&0xFF; //up
+					final int c = (i >= stride) ? lastRow[i-stride]&0xFF : 0; //up-left
+					final int predictor;
+					switch (filter) {
+					case 0:
+						predictor = 0;
+						break;
+					case 1:
+						predictor = a;
+						break;
+					case 2:
+						predictor = b;
+						break;
+					case 3:
+						predictor = (a + b)/2;
+						break;
+					case 4:
+						final int p = a + b - c;
+						final int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+						predictor = (pa <= pb && pa <= pc) ? a : (pb <= pc) ? b : c;
+						break;
+					default:
+						throw new IOException("This PNG has an unknown filter type "+filter+".");
+					}
+					thisRow[i] += predictor;
+				}
+				for (int x = 0; x < width; x ++)
+					argb[y*width + x] = pixel(x);
+			}
+		}
+		
+		private int pixel(int x) { //convert a pixel of the current row to ARGB
+			if (colourType == 3)
+				return (sample(x, 0) < palette.length) ? palette[sample(x, 0)] : 0;
+			
+			final int alpha;
+			if (colourType == 4 || colourType == 6)
+				alpha = level(alphas, sample(x, channels - 1));
+			else if (transparent != null && matchesTransparent(x))
+				alpha = 0;
+			else
+				alpha = 0xFF;
+			if (colourType == 0 || colourType == 4) {
+				final int v = grays[sample(x, 0)];
+				return alpha << 24 | v << 16 | v << 8 | v;
+			}
+			else
+				return alpha << 24 | level(colours, sample(x, 0)) << 16 |
+						level(colours, sample(x, 1)) << 8 | level(colours, sample(x, 2));
+		}
+		
+		private boolean matchesTransparent(int x) {
+			for (int c = 0; c < transparent.length; c ++)
+				if (sample(x, c) != transparent[c])
+					return false;
+			return true;
+		}
+		
+		private int sample(int x, int c) { //get one sample of the current row, at its full bit depth
+			if (bitDepth == 16)
+				return (thisRow[2*(x*channels + c)]&0xFF) << 8 | thisRow[2*(x*channels + c) + 1]&0xFF;
+			else if (bitDepth == 8)
+				return thisRow[x*channels + c]&0xFF;
+			else { //low bit depths only ever have one channel
+				final int bit = x*bitDepth;
+				return (thisRow[bit/8] >> (8 - bitDepth - bit%8)) & ((1 << bitDepth) - 1);
+			}
+		}
+		
+		private static int level(int[] ramp, int sample) { //convert a sample to 8 bits
+			return (ramp != null) ? ramp[sample] : sample;
+		}
+		
+		/**
+		 * Work out the 8-bit level of every value of one band the way ImageIO does, so that a
+		 * tiled map looks the same as the same image loaded the normal way. This matters because
+		 * ImageIO treats 8- and 16-bit greys as linear and brightens them, and rounds 16-bit
+		 * colour and alpha each its own way.
+		 * @param type - The kind of image ImageIO would decode this PNG into.
+		 * @param band - The band to vary.
+		 * @param shift - The position of the resulting level in the ARGB colour.
+		 * @return the 8-bit level of each value of the band.
+		 */
+		private static int[] ramp(ImageTypeSpecifier type, int band, int shift) {
+			final int levels = 1 << type.getSampleModel().getSampleSize(band);
+			final BufferedImage ramp = type.createBufferedImage(levels, 1);
+			for (int v = 0; v < levels; v ++)
+				ramp.getRaster().setSample(v, 0, band, v);
+			final int[] argb = ramp.getRGB(0, 0, levels, 1, null, 0, levels);
+			for (int v = 0; v < levels; v ++)
+				argb[v] = (argb[v] >>> shift)&0xFF;
+			return argb;
+		}
+		
+		public void close() throws IOException {
+			inflater.end();
+			file.close();
+		}
+	}
+}
@@ -50,4 +50,12 @@ public class TruncatedPixelMap extends PixelMap {
 		else
 			return super.getArgb(2*lat - Math.PI/2, 4*lon - Math.PI);
 	}
+
+
+	public int getArgb(double lat, double lon, double latSpan, double lonSpan) {
+		if (lat < 0 || lon < 0 || lon > Math.PI/2)
+			return 0;
+		else
+			return super.getArgb(2*lat - Math.PI/2, 4*lon - Math.PI, 2*latSpan, 4*lonSpan);
+	}
 }
@@ -25,8 +25,6 @@ package maps;
 
 import java.util.Arrays;
 
-import utils.NumericalAnalysis;
-
 /**
  * A class specifically for pseudocylindrical projections that use arbitrary tables of numbers.
  * 
@@ -63,32 +61,129 @@ public class ArbitraryPseudocylindrical {
 	private static class ArbitraryProjection extends Projection {
 		
 		private final double yMax;
-		private final double[][] table;
+		private final TabulatedFunction plenOfLat, pdfeOfLat; //the forward tables, indexed by latitude in degrees
+		private final TabulatedFunction latOfPdfe, plenOfPdfe; //the inverse tables, indexed by PDFE
 		
 		public ArbitraryProjection(String title, String inventor, double aspectRatio, double[][] table) {
 			super(title, 2, 2*aspectRatio, 0b1111, Type.PSEUDOCYLINDRICAL, Property.COMPROMISE, 3,
 					null, "designed by "+inventor);
 			this.yMax = aspectRatio;
-			this.table = table;
+			this.plenOfLat = new TabulatedFunction(table[0], table[1], ORDER);
+			this.pdfeOfLat = new TabulatedFunction(table[0], table[2], ORDER);
+			this.latOfPdfe = new TabulatedFunction(table[2], table[0], ORDER);
+			this.plenOfPdfe = new TabulatedFunction(table[2], table[1], ORDER);
 		}
 		
 		public double[] project(double lat, double lon) {
+			final double latD = Math.toDegrees(lat);
 			return new double[] {
-					lon/Math.PI*smartInterpolate(Math.toDegrees(lat), table[0], table[1], ORDER),
-					yMax*smartInterpolate(Math.toDegrees(lat), table[0], table[2], ORDER) };
+					lon/Math.PI*plenOfLat.evaluate(latD),
+					yMax*pdfeOfLat.evaluate(latD) };
 		}
 		
 		public double[] inverse(double x, double y) {
+			final double[] row = inverseRow(y);
+			return new double[] {row[0], x*row[1]};
+		}
+		
+		public double[] inverseRow(double y) {
 			return new double[] {
-					Math.toRadians(smartInterpolate(y/yMax, table[2], table[0], ORDER)),
-					Math.PI*x/smartInterpolate(y/yMax, table[2], table[1], ORDER) };
+					Math.toRadians(latOfPdfe.evaluate(y/yMax)),
+					Math.PI/plenOfPdfe.evaluate(y/yMax) };
+		}
+		
+	}
+	
+	
+	/**
+	 * A tabulated function that has been pre-fit with a piecewise polynomial, so that it can be
+	 * evaluated without searching or allocating anything. On each interval, the polynomial is the
+	 * one that Aitken interpolation on the 2*order nearest points would give, and off either end
+	 * it is the one through the order points at that end, so the result is the same as that of
+	 * calling NumericalAnalysis.aitkenInterpolate() every time.
+	 * 
+	 * @author Map-Projections contributors
+	 */
+	private static class TabulatedFunction {
+		
+		private static final int BUCKETS_PER_INTERVAL = 4; //resolution of the interval lookup table
+		
+		private final double[] X; //the sorted tabulated inputs
+		private final double[][] coefs; //the polynomial coefficients in powers of x-X[i] on each interval
+		private final double[] lowerEnd, upperEnd; //the polynomial coefficients below X[0] and above X[n-1]
+		private final int[] firstInterval; //the first interval that intersects each bucket
+		private final double bucketWidth;
+		
+		public TabulatedFunction(double[] X, double[] f, int k) {
+			final int n = X.length;
+			this.X = X.clone();
+			this.coefs = new double[n-1][];
+			for (int i = 0; i < n-1; i ++) { //interval i goes from X[i] to X[i+1]
+				final int from = Math.max(i+1-k, 0), to = Math.min(i+1+k, n); //the 2k nearest points, cut off at the ends
+				coefs[i] = fitPolynomial(X, f, from, to, X[i]);
+			}
+			this.lowerEnd = fitPolynomial(X, f, 0, Math.min(k, n), X[0]); //extrapolate from only the k points at each end
+			this.upperEnd = fitPolynomial(X, f, Math.max(n-k, 0), n, X[n-1]);
+			
+			this.firstInterval = new int[BUCKETS_PER_INTERVAL*(n-1)];
+			this.bucketWidth = (X[n-1] - X[0])/firstInterval.length;
+			int i = 0;
+			for (int b = 0; b < firstInterval.length; b ++) { //since X is sorted, this is monotonic
+				while (i < n-2 && X[i+1] <= X[0] + b*bucketWidth)
+					i ++;
+				firstInterval[b] = i;
+			}
+		}
+		
+		public double evaluate(double x) {
+			final double[] c;
+			final double t;
+			if (x < X[0]) { //extrapolate off the ends
+				c = lowerEnd;
+				t = x - X[0];
+			}
+			else if (x > X[X.length-1]) {
+				c = upperEnd;
+				t = x - X[X.length-1];
+			}
+			else {
+				final int b = Math.min((int)((x - X[0])/bucketWidth), firstInterval.length - 1);
+				int i = firstInterval[b];
+				while (i < X.length-2 && x >= X[i+1]) //this should only ever take a step or two
+					i ++;
+				c = coefs[i];
+				t = x - X[i];
+			}
+			
+			double y = 0;
+			for (int j = c.length-1; j >= 0; j --) //Horner's method
+				y = y*t + c[j];
+			return y;
 		}
 		
-		private static double smartInterpolate(double x, double[] X, double[] f, int k) {
-			int i = Arrays.binarySearch(X, x);
-			if (i < 0)	i = -i - 1; //if you couldn't find it, don't worry about it
-			return NumericalAnalysis.aitkenInterpolate(x, X, f,
-					Math.max(i-k,0), Math.min(i+k,X.length)); //call aitken with the correct bounds
+		/**
+		 * Find the coefficients of the polynomial through the given points, expanded about x0
+		 * @return c such that p(x) = sum_j c[j]*(x - x0)^j
+		 */
+		private static double[] fitPolynomial(double[] X, double[] f, int from, int to, double x0) {
+			final int N = to - from;
+			final double[] a = Arrays.copyOfRange(f, from, to); //Newton's divided differences
+			for (int j = 1; j < N; j ++)
+				for (int i = N-1; i >= j; i --)
+					a[i] = (a[i] - a[i-1])/(X[from+i] - X[from+i-j]);
+			
+			double[] c = {a[N-1]}; //then expand the Newton form about x0, one factor at a time
+			for (int j = N-2; j >= 0; j --) {
+				final double d = x0 - X[from+j]; //(x - X[j]) = (x - x0) + d
+				final double[] cNew = new double[c.length+1];
+				for (int i = 0; i < c.length; i ++) {
+					cNew[i+1] += c[i];
+					cNew[i] += d*c[i];
+				}
+				cNew[0] += a[j];
+				c = cNew;
+			}
+			return c;
 		}
 		
 	}
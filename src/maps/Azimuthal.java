@@ -39,7 +39,21 @@ public class Azimuthal {
 		}
 		
 		public double[] inverse(double x, double y) {
-			return new double[] { Math.PI/2 - 2*Math.atan(Math.hypot(x, y)), Math.atan2(x, -y) };
+			return radialInverse(this, x, y);
+		}
+		
+		public double[] getRadialForm() {
+			return new double[] {0, 1, 1};
+		}
+		
+		public double inverseRadius(double r) {
+			return Math.PI/2 - 2*Math.atan(r);
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			if (lat < -1.5) 	return null;
+			final double r = 1/(Math.tan(lat/2 + Math.PI/4));
+			return radialJacobian(r, -(1 + r*r)/2, lon);
 		}
 	};
 	
@@ -54,11 +68,23 @@ public class Azimuthal {
 		}
 		
 		public double[] inverse(double x, double y) {
-			double phi = Math.PI/2 - Math.hypot(x, y);
+			return radialInverse(this, x, y);
+		}
+		
+		public double[] getRadialForm() {
+			return new double[] {0, 1, 1};
+		}
+		
+		public double inverseRadius(double r) {
+			double phi = Math.PI/2 - r;
 			if (phi > -Math.PI/2)
-				return new double[] {phi, Math.atan2(x, -y)};
+				return phi;
 			else
-				return null;
+				return Double.NaN;
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			return radialJacobian(Math.PI/2 - lat, -1, lon);
 		}
 	};
 	
@@ -72,11 +98,23 @@ public class Azimuthal {
 		}
 		
 		public double[] inverse(double x, double y) {
-			double r = Math.hypot(x, y);
+			return radialInverse(this, x, y);
+		}
+		
+		public double[] getRadialForm() {
+			return new double[] {0, 1, 1};
+		}
+		
+		public double inverseRadius(double r) {
 			if (r <= 1)
-				return new double[] { Math.asin(1-2*r*r), Math.atan2(x, -y) };
+				return Math.asin(1-2*r*r);
 			else
-				return null;
+				return Double.NaN;
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			return radialJacobian(
+					Math.cos((Math.PI/2+lat)/2), -Math.sin((Math.PI/2+lat)/2)/2, lon);
 		}
 	};
 	
@@ -92,7 +130,20 @@ public class Azimuthal {
 		}
 		
 		public double[] inverse(double x, double y) {
-			return new double[] { Math.PI/2 - Math.atan(Math.hypot(x, y)), Math.atan2(x, -y) };
+			return radialInverse(this, x, y);
+		}
+		
+		public double[] getRadialForm() {
+			return new double[] {0, 1, 1};
+		}
+		
+		public double inverseRadius(double r) {
+			return Math.PI/2 - Math.atan(r);
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			if (lat < 0.2) 	return null;
+			return radialJacobian(Math.tan(Math.PI/2 - lat), -1/Math.pow(Math.sin(lat), 2), lon);
 		}
 	};
 	
@@ -107,11 +158,23 @@ public class Azimuthal {
 		}
 		
 		public double[] inverse(double x, double y) {
-			double R = Math.hypot(x, y);
-			if (R <= 1)
-				return new double[] { Math.acos(R), Math.atan2(x, -y) };
+			return radialInverse(this, x, y);
+		}
+		
+		public double[] getRadialForm() {
+			return new double[] {0, 1, 1};
+		}
+		
+		public double inverseRadius(double r) {
+			if (r <= 1)
+				return Math.acos(r);
 			else
-				return null;
+				return Double.NaN;
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			if (lat < 0) 	return null;
+			return radialJacobian(Math.cos(lat), -Math.sin(lat), lon);
 		}
 	};
 	
@@ -136,15 +199,30 @@ public class Azimuthal {
 		}
 		
 		public double[] inverse(double x, double y) {
-			if (Double.isInfinite(d)) 	return ORTHOGRAPHIC.inverse(x, y);
-			final double h = Math.hypot(x, y);
-			if (h > this.width/2) 	return null;
-			final double theta = Math.atan(h);
+			return radialInverse(this, x, y);
+		}
+		
+		public double[] getRadialForm() {
+			return new double[] {0, 1, 1};
+		}
+		
+		public double inverseRadius(double r) {
+			if (Double.isInfinite(d)) 	return ORTHOGRAPHIC.inverseRadius(r);
+			if (r > this.width/2) 	return Double.NaN;
+			final double theta = Math.atan(r);
 			final double phi = Math.acos(d*Math.sin(theta)) + theta;
 			if (phi < Math.PI/2)
-				return new double[] { phi, Math.atan2(x, -y) };
+				return phi;
 			else
-				return new double[] { Math.PI - phi, Math.atan2(x, -y) };
+				return Math.PI - phi;
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			if (Double.isInfinite(d)) 	return ORTHOGRAPHIC.jacobian(lat, lon);
+			if (lat < Math.asin(1/d)) 	return null;
+			final double r = Math.cos(lat)/(d - Math.sin(lat));
+			final double drdlat = (1 - d*Math.sin(lat))/Math.pow(d - Math.sin(lat), 2);
+			return radialJacobian(Math.abs(r), Math.signum(r)*drdlat, lon);
 		}
 	};
 	
@@ -173,16 +251,63 @@ public class Azimuthal {
 		}
 		
 		public double[] inverse(double x, double y) {
-			double r = Math.hypot(x, y);
-			double th = Math.atan2(x, -y);
+			return radialInverse(this, x, y);
+		}
+		
+		public double[] getRadialForm() {
+			return new double[] {0, 1, 1};
+		}
+		
+		public double inverseRadius(double r) {
 			double p;
 			if (r <= r0)
 				p = 2*Math.asin(Math.sin(p0/2)*r/r0);
 			else if (r <= 1)
 				p = 2*Math.acos(Math.cos(p0/2)*Math.sqrt((1 - r*r)/(1 - r0*r0)));
 			else
-				return null;
-			return new double[] { Math.PI/2 - p, th};
+				return Double.NaN;
+			return Math.PI/2 - p;
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			double p = Math.PI/2 - lat;
+			if (p < p0)
+				return radialJacobian(r0*Math.sin(p/2)/Math.sin(p0/2),
+						-r0*Math.cos(p/2)/Math.sin(p0/2)/2, lon);
+			else {
+				final double k = (1 - r0*r0)/Math.pow(Math.cos(p0/2), 2);
+				final double r = Math.sqrt(1 - k*Math.pow(Math.cos(p/2), 2));
+				return radialJacobian(r, -k*Math.sin(p)/(4*r), lon);
+			}
 		}
 	};
+	
+	
+	/**
+	 * The inverse of a projection with x = r(lat)*sin(lon) and y = -r(lat)*cos(lon).
+	 * @param proj the projection, which knows lat(r)
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @return { lat, lon }, or null if the point is off the map
+	 */
+	private static double[] radialInverse(Projection proj, double x, double y) {
+		final double lat = proj.inverseRadius(Math.hypot(x, y));
+		if (Double.isNaN(lat))
+			return null;
+		else
+			return new double[] {lat, Math.atan2(x, -y)};
+	}
+	
+	
+	/**
+	 * The partial derivatives of a projection with x = r(lat)*sin(lon) and y = -r(lat)*cos(lon).
+	 * @param r the radius at this latitude
+	 * @param drdlat the derivative of the radius with respect to latitude
+	 * @param lon the longitude
+	 * @return { dx/dlat, dx/dlon, dy/dlat, dy/dlon }
+	 */
+	private static double[] radialJacobian(double r, double drdlat, double lon) {
+		return new double[] {
+				drdlat*Math.sin(lon), r*Math.cos(lon), -drdlat*Math.cos(lon), r*Math.sin(lon) };
+	}
 }
@@ -55,7 +55,7 @@ public class CahillKeyes {
 	private static final double yU = rE/2;
 	private static final double yC = 1609.0110; //the y coordinate of the centre of arc CDV
 	
-	private static final double TOLERANCE = 5; //this is a reasonable tolerance when you recall that we're operating on the order of 10,000 units
+	public static final double TOLERANCE = 5; //this is a reasonable tolerance when you recall that we're operating on the order of 10,000 units
 
 
 	/**
@@ -90,12 +90,12 @@ public class CahillKeyes {
 	}
 	
 	
-	public static final double[] faceInverseD(double x, double y) { //convert Mary Jo's coordinates to relative lat and lon in degrees
+	public static final double[] faceInverseD(double x, double y, double tolerance) { //convert Mary Jo's coordinates to relative lat and lon in degrees, to within tolerance units
 		if (y > x-lMA || y > x/Math.sqrt(3) || y > x*(2-Math.sqrt(3))+bDE ||
 				y > (lMG-x)*(2+Math.sqrt(3))+lGF || x > lMG) //this describes the footprint of the octant
 			return null;
 		
-		double lonD = longitudeD(x, y);
+		double lonD = longitudeD(x, y, tolerance);
 		double[][] mer = meridian(lonD);
 		double len = meridianDistance(mer, x, y);
 		
@@ -169,7 +169,7 @@ public class CahillKeyes {
 	}
 	
 	
-	private static double longitudeD(double x, double y) { //calculate the longitude of a given point
+	private static double longitudeD(double x, double y, double tolerance) { //calculate the longitude of a given point
 		double lonD0 = Math.toDegrees(Math.atan2(y, x-lMA)); //guess 0 for longitude
 		double lonD1 = Math.toDegrees(Math.atan2(y, x))*1.5; //guess 1 for longitude
 		if (lonD0 >= lonD1)
@@ -182,13 +182,13 @@ public class CahillKeyes {
 			return NumericalAnalysis.newtonRaphsonApproximation(y, y/(lNG - lENy)*45, //does the meridian strike GF?
 					(l) -> (dMEq*l + (x-lMG)*Math2.tand(l/3)),
 					(l) -> (dMEq + (x-lMG)*Math.toRadians(Math.pow(Math2.secd(l/3), 2))/3),
-					TOLERANCE);
+					tolerance);
 		}
 		else {
 			return NumericalAnalysis.newtonRaphsonApproximation(y, y/(lNG - lENy)*45, //then it must strike FE!*
 					(l) -> (dMEqy*(l-tF) + (x-lMG+dMEqx*(l-tF))*Math2.tand(l/3) + lGF),
 					(l) -> (dMEqy + dMEqx*Math2.tand(l/3) + (x-lMG+dMEqx*(l-tF))*Math.toRadians(Math.pow(Math2.secd(l/3), 2))/3),
-					TOLERANCE);
+					tolerance);
 		}
 	}
 	
@@ -31,9 +31,6 @@ public class Conic {
 	public static final Projection LAMBERT =
 			new ConicProjection("Conformal Conic", 0b0111, Property.CONFORMAL, 2) {
 		
-		private double n; //the scaling factor for angles
-		private double r0; //the primary radius based on the standard axes
-		
 		public void setSpecificParameters() {
 			if (lat1 == -lat2) //degenerates into Mercator; indicate with n=0
 				this.n = 0;
@@ -49,16 +46,16 @@ public class Conic {
 			if (n > 0.5) {
 				this.width = 2*R;
 				this.height = R - R*Math.cos(Math.PI*n);
-				this.r0 = (R + R*Math.cos(Math.PI*n))/2;
+				this.y0 = (R + R*Math.cos(Math.PI*n))/2;
 			}
 			else if (n > 0) {
 				this.width = 2*R*Math.sin(Math.PI*n);
 				this.height = Math.max(R - r*Math.cos(Math.PI*n), width);
-				this.r0 = (R+r)/2*Math.cos(Math.PI*n);
-				if (height > 2*r0) {
-					final double err = height/2-r0;
+				this.y0 = (R+r)/2*Math.cos(Math.PI*n);
+				if (height > 2*y0) {
+					final double err = height/2-y0;
 					this.height -= err;
-					this.r0 += err/2;
+					this.y0 += err/2;
 				}
 			}
 			else {
@@ -76,21 +73,27 @@ public class Conic {
 			if (lat < -1.5) 	lat = -1.5; //remove polar infinite values
 			final double s = reversed ? -1 : 1;
 			final double r = Math.pow(Math.tan(Math.PI/4+lat/2), -n);
-			return new double[] { s*r*Math.sin(n*lon), s*(r0 - r*Math.cos(n*lon)) };
+			return new double[] { s*r*Math.sin(n*lon), s*(y0 - r*Math.cos(n*lon)) };
 		}
 		
 		public double[] inverse(double x, double y) {
 			if (n == 0) 	return Cylindrical.MERCATOR.inverse(x, y);
-			else if (reversed) {
-				x = -x;
-				y = -y;
+			else 			return radialInverse(x, y);
+		}
+		
+		public double inverseRadius(double r) {
+			return 2*Math.atan(Math.pow(r, -1/n)) - Math.PI/2;
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			if (n == 0) 	return Cylindrical.MERCATOR.jacobian(lat, lon);
+			if (reversed) {
+				lat = -lat;
+				lon = -lon;
 			}
-			final double r = Math.hypot(x, r0-y);
-			final double phi = 2*Math.atan(Math.pow(r, -1/n)) - Math.PI/2;
-			final double lam = Math.atan2(x, r0-y)/n;
-			if (Math.abs(lam) > Math.PI) 	return null;
-			else if (reversed) 				return new double[] {-phi, -lam};
-			else 							return new double[] {phi, lam};
+			if (lat < -1.5) 	return null;
+			final double r = Math.pow(Math.tan(Math.PI/4+lat/2), -n);
+			return conicJacobian(r, -n*r/Math.cos(lat), n, lon);
 		}
 	};
 	
@@ -99,8 +102,6 @@ public class Conic {
 			new ConicProjection("Equidistant Conic", 0b1111, Property.EQUIDISTANT, 2) {
 		
 		private double m; //the scaling factor for radii
-		private double n; //the scaling factor for angles
-		private double y0; //the centered position
 		
 		public void setSpecificParameters() {
 			if (lat1 == -lat2) //degenerates into Equirectangular; indicate with m=0
@@ -142,17 +143,23 @@ public class Conic {
 		
 		public double[] inverse(double x, double y) {
 			if (m == 0) 	return Cylindrical.EQUIRECTANGULAR.inverse(x, y);
+			else 			return radialInverse(x, y);
+		}
+		
+		public double inverseRadius(double r) {
+			final double phi = (1 - m/2 - r)*Math.PI/m;
+			if (Math.abs(phi) > Math.PI/2) 	return Double.NaN;
+			else 							return phi;
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			if (m == 0) 	return Cylindrical.EQUIRECTANGULAR.jacobian(lat, lon);
 			if (reversed) {
-				x = -x;
-				y = -y;
+				lat = -lat;
+				lon = -lon;
 			}
-			final double r = Math.hypot(x, y-y0);
-			final double phi = (1 - m/2 - r)*Math.PI/m;
-			final double lam = Math.atan2(x, y0-y)/n;
-			if (Math.abs(lam) > Math.PI || Math.abs(phi) > Math.PI/2)
-				return null;
-			else if (reversed) 	return new double[] {-phi, -lam};
-			else 				return new double[] {phi, lam};
+			final double r = 1 - m*lat/Math.PI - m/2;
+			return conicJacobian(r, -m/Math.PI, n, lon);
 		}
 	};
 	
@@ -160,9 +167,7 @@ public class Conic {
 	public static final Projection ALBERS =
 			new ConicProjection("Albers", 0b1111, Property.EQUAL_AREA, 2) {
 		
-		private double n; //the scaling factor for angles
 		private double C; //a scaling factor for radii
-		private double y0; //the centering y-shift
 		
 		public void setSpecificParameters() {
 			if (lat1 == -lat2) //degenerates into Equirectangular; indicate with n=0
@@ -206,17 +211,21 @@ public class Conic {
 		
 		public double[] inverse(double x, double y) {
 			if (n == 0) 	return Cylindrical.EQUAL_AREA.inverse(x, y);
+			else 			return radialInverse(x, y);
+		}
+		
+		public double inverseRadius(double r) {
+			return Math.asin((C - Math.pow(r,2))/(2*n));
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			if (n == 0) 	return Cylindrical.EQUAL_AREA.jacobian(lat, lon);
 			if (reversed) {
-				x = -x;
-				y = -y;
+				lat = -lat;
+				lon = -lon;
 			}
-			final double r = Math.hypot(x, y-y0);
-			final double phi = Math.asin((C - Math.pow(r,2))/(2*n));
-			final double lam = Math.atan2(x, y0-y)/n;
-			if (Math.abs(lam) > Math.PI || Double.isNaN(phi))
-				return null;
-			else if (reversed) 	return new double[] {-phi, -lam};
-			else 				return new double[] {phi, lam};
+			final double r = Math.sqrt(C - 2*n*Math.sin(lat));
+			return conicJacobian(r, -n*Math.cos(lat)/r, n, lon);
 		}
 	};
 	
@@ -229,6 +238,8 @@ public class Conic {
 		
 		protected double lat1, lat2;
 		protected boolean reversed;
+		protected double n; //the scaling factor for angles, or 0 if it has degenerated into a cylinder
+		protected double y0; //the y coordinate of the apex
 		
 		ConicProjection(String name, int fisc, Property property, int rating) {
 			super(name, "The "+property+" conic projection.", 0,0, fisc, Type.CONIC, property,
@@ -248,5 +259,46 @@ public class Conic {
 		}
 		
 		protected abstract void setSpecificParameters(); //a way to require subclasses to set lat1 and lat2
+		
+		public double[] getRadialForm() {
+			if (n == 0) 	return null;
+			else 			return new double[] {y0, n, reversed ? -1 : 1};
+		}
+		
+		/**
+		 * The inverse of a conic projection with x = r(lat)*sin(n*lon) and
+		 * y = y0 - r(lat)*cos(n*lon), given its inverseRadius(), and reversed if necessary.
+		 * @param x the x coordinate
+		 * @param y the y coordinate
+		 * @return { lat, lon }, or null if the point is off the map
+		 */
+		protected double[] radialInverse(double x, double y) {
+			if (reversed) {
+				x = -x;
+				y = -y;
+			}
+			final double phi = inverseRadius(Math.hypot(x, y0-y));
+			final double lam = Math.atan2(x, y0-y)/n;
+			if (Math.abs(lam) > Math.PI || Double.isNaN(phi))
+				return null;
+			else if (reversed) 	return new double[] {-phi, -lam};
+			else 				return new double[] {phi, lam};
+		}
+		
+		/**
+		 * The partial derivatives of a conic projection with x = r(lat)*sin(n*lon) and
+		 * y = y0 - r(lat)*cos(n*lon). Reversing a conic negates both the inputs and the outputs,
+		 * so the same formula works if you call it with the reversed coordinates.
+		 * @param r the radius at this latitude
+		 * @param drdlat the derivative of the radius with respect to latitude
+		 * @param n the cone constant
+		 * @param lon the longitude
+		 * @return { dx/dlat, dx/dlon, dy/dlat, dy/dlon }
+		 */
+		protected static double[] conicJacobian(double r, double drdlat, double n, double lon) {
+			return new double[] {
+					drdlat*Math.sin(n*lon), n*r*Math.cos(n*lon),
+					-drdlat*Math.cos(n*lon), n*r*Math.sin(n*lon) };
+		}
 	}
 }
@@ -44,6 +44,14 @@ public class Cylindrical {
 		public double[] inverse(double x, double y) {
 			return new double[] {Math.atan(Math.sinh(y)), x};
 		}
+		
+		public double[] inverseRow(double y) {
+			return new double[] {Math.atan(Math.sinh(y)), 1};
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			return new double[] {0, 1, 1/Math.cos(lat), 0};
+		}
 	};
 	
 	
@@ -58,6 +66,14 @@ public class Cylindrical {
 		public double[] inverse(double x, double y) {
 			return new double[] {y, x};
 		}
+		
+		public double[] inverseRow(double y) {
+			return new double[] {y, 1};
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			return new double[] {0, 1, 1, 0};
+		}
 	};
 	
 	
@@ -80,6 +96,14 @@ public class Cylindrical {
 		public double[] inverse(double x, double y) {
 			return new double[] {y*Math.cos(stdParallel), x};
 		}
+		
+		public double[] inverseRow(double y) {
+			return new double[] {y*Math.cos(stdParallel), 1};
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			return new double[] {0, 1, 1/Math.cos(stdParallel), 0};
+		}
 	};
 	
 	
@@ -94,6 +118,14 @@ public class Cylindrical {
 		public double[] inverse(double x, double y) {
 			return new double[] { Math.asin(y*2/height), x};
 		}
+		
+		public double[] inverseRow(double y) {
+			return new double[] {Math.asin(y*2/height), 1};
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			return new double[] {0, 1, Math.cos(lat)*height/2, 0};
+		}
 	};
 	
 	
@@ -108,6 +140,14 @@ public class Cylindrical {
 		public double[] inverse(double x, double y) {
 			return new double[] { Math.asin(y*2/height), x };
 		}
+		
+		public double[] inverseRow(double y) {
+			return new double[] {Math.asin(y*2/height), 1};
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			return new double[] {0, 1, Math.cos(lat)*height/2, 0};
+		}
 	};
 	
 	
@@ -122,6 +162,14 @@ public class Cylindrical {
 		public double[] inverse(double x, double y) {
 			return new double[] { Math.asin(y*2/height), x };
 		}
+		
+		public double[] inverseRow(double y) {
+			return new double[] {Math.asin(y*2/height), 1};
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			return new double[] {0, 1, Math.cos(lat)*height/2, 0};
+		}
 	};
 	
 	
@@ -136,6 +184,14 @@ public class Cylindrical {
 		public double[] inverse(double x, double y) {
 			return new double[] { Math.asin(y*2/height), x };
 		}
+		
+		public double[] inverseRow(double y) {
+			return new double[] {Math.asin(y*2/height), 1};
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			return new double[] {0, 1, Math.cos(lat)*height/2, 0};
+		}
 	};
 	
 	
@@ -155,6 +211,14 @@ public class Cylindrical {
 		public double[] inverse(double x, double y) {
 			return new double[] { Math.asin(y*2/height), x };
 		}
+		
+		public double[] inverseRow(double y) {
+			return new double[] {Math.asin(y*2/height), 1};
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			return new double[] {0, 1, Math.cos(lat)*height/2, 0};
+		}
 	};
 	
 	
@@ -169,6 +233,14 @@ public class Cylindrical {
 		public double[] inverse(double x, double y) {
 			return new double[] { 2*Math.atan(y/(1+Math.sqrt(2))), x };
 		}
+		
+		public double[] inverseRow(double y) {
+			return new double[] {2*Math.atan(y/(1+Math.sqrt(2))), 1};
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			return new double[] {0, 1, (1+Math.sqrt(2))/2/Math.pow(Math.cos(lat/2), 2), 0};
+		}
 	};
 	
 	
@@ -183,6 +255,14 @@ public class Cylindrical {
 		public double[] inverse(double x, double y) {
 			return new double[] {Math.atan(Math.sinh(y*.8))/.8, x};
 		}
+		
+		public double[] inverseRow(double y) {
+			return new double[] {Math.atan(Math.sinh(y*.8))/.8, 1};
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			return new double[] {0, 1, 1/Math.cos(.8*lat), 0};
+		}
 	};
 	
 	
@@ -197,5 +277,13 @@ public class Cylindrical {
 		public double[] inverse(double x, double y) {
 			return new double[] {Math.atan(y), x};
 		}
+		
+		public double[] inverseRow(double y) {
+			return new double[] {Math.atan(y), 1};
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			return new double[] {0, 1, 1/Math.pow(Math.cos(lat), 2), 0};
+		}
 	};
 }
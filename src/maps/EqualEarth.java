@@ -50,9 +50,14 @@ public class EqualEarth {
 		}
 		
 		public double[] inverse(double x, double y) {
+			final double[] row = inverseRow(y);
+			return new double[] {row[0], x*row[1]};
+		}
+		
+		public double[] inverseRow(double y) {
 			double th = NumericalAnalysis.newtonRaphsonApproximation(
 					y, y/(height/2)*Math.PI/3, EqualEarth::poly9, EqualEarth::poly8, 1e-6);
-			return new double[] { Math.asin(Math.sin(th)/B), x*B/Math.cos(th)*poly8(th) };
+			return new double[] { Math.asin(Math.sin(th)/B), B/Math.cos(th)*poly8(th) };
 		}
 	};
 	
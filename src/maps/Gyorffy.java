@@ -72,15 +72,36 @@ public class Gyorffy {
 		public double[] inverse(double x, double y) {
 			double phi0 = y;
 			double lam0 = x/Math.pow(1 - Math.pow(y/(Math.PI/2), 2), 1/3.);
+			return inverse(x, y, phi0, lam0);
+		}
+		
+		public double[] inverseNear(double x, double y, double[] hint) {
+			if (hint != null) {
+				final double[] coords = inverse(x, y, hint[0], hint[1]);
+				if (coords != null)
+					return coords;
+			}
+			return inverse(x, y);
+		}
+		
+		private double[] inverse(double x, double y, double phi0, double lam0) {
 			double[] res = NumericalAnalysis.newtonRaphsonApproximation(
 					x, y, phi0, lam0, Gyorffy::x, Gyorffy::y,
 					Gyorffy::dxdp, Gyorffy::dxdl, Gyorffy::dydp, Gyorffy::dydl,
-					1e-4, this.coefs); // this converges surprisingly well atc
-			if (res == null || Double.isNaN(res[1]) ||
+					tolerance(1e-4), this.coefs); // this converges surprisingly well atc
+			if (res == null || Double.isNaN(res[1]) || Math.abs(res[0]) > Math.PI/2 ||
 					(Math.abs(res[1]) < Math.PI && Math.abs(x) > x(y, coefs)))
 				return null; // it does have a nasty habit of thinking it's converged outside the map, though
 			return res;
 		}
+		
+		public boolean isMeridionallySymmetric() {
+			return true;
+		}
+		
+		public boolean isEquatoriallySymmetric() {
+			return true;
+		}
 	}
 	
 	private static final double x(double y, double[] c) {
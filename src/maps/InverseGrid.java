@@ -0,0 +1,529 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2026 Map-Projections contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package maps;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import utils.Math2;
+
+/**
+ * Inverts a Projection at every sample of a raster map, one row of samples at a time. Rather
+ * than calling inverse() at every single sample, it can call it on a coarse grid and
+ * interpolate bilinearly between, checking the interpolation against a few extra points in each
+ * cell and splitting the cell in four wherever it is not good enough. Only those five points are
+ * checked, so that is not a bound on the error elsewhere in the cell: where the inverse curves
+ * sharply between them it can be off by a sample or so, and near the edge of the map it can
+ * show a few samples that inverse() would leave off. Maps that must be exact should be drawn
+ * without interpolating. Cells get split all the
+ * way down to single samples near interruptions, the edges of the map, the poles, and seams in
+ * longitude, since the inverse is either discontinuous or badly curved there. Cells that are
+ * entirely off the map are recognised by checking a finer lattice, and left empty.
+ * <p>
+ * Where it can, it interpolates the coordinates relative to the Projection's own pole, and
+ * crops and rotates them to the aspect at every sample, since that is cheap, and it means the
+ * cropAtPi seam and the antimeridian of an oblique aspect need no special treatment. The rotation
+ * is the same as Projection.obliquifyPlnr(), but it is done a row at a time, with the
+ * trigonometry of the pole done ahead of time and a polynomial arctangent in place of the
+ * inverse trigonometric functions.
+ * <p>
+ * Projections that are separable (see Projection.inverseRow()) need none of this: they are
+ * inverted exactly, with one call per row of samples and some multiplication. Projections that
+ * are radial (see Projection.getRadialForm()) are done with a table of latitude against distance
+ * from the centre, spaced a fraction of a sample apart and filled in as it is needed, and a
+ * polynomial arctangent. Wherever linear interpolation in the table is not good enough, it
+ * calls inverseRadius() instead.
+ * <p>
+ * Projections that are symmetric about the meridian or the equator (see
+ * Projection.isMeridionallySymmetric() and Projection.isEquatoriallySymmetric()) only have their
+ * left half, top half, or top left quarter interpolated, and every other sample is looked up in
+ * its mirror image there.
+ * Together with MapDesignerRaster, which goes over the top and bottom of the map at the same
+ * time, that means a map of such a projection takes half or a quarter as many evaluations.
+ * <p>
+ * Each call to inverse() is given the result of the last one as a hint (see
+ * Projection.inverseNear()), as long as it was within a cell of it, so that projections that
+ * are inverted iteratively can start from a neighbouring sample rather than from scratch. If
+ * that leads it off the globe, it tries again from scratch, since a hint from across a seam can
+ * lead to a point on the wrong side of it. Their precision is also set to a fraction of a
+ * sample (see Projection.setPrecision()), so that they solve as far as this map's resolution
+ * can show and no farther.
+ *
+ * @author Map-Projections contributors
+ */
+public class InverseGrid {
+	
+	private static final int CELL_SIZE = 16; //the spacing of the coarse grid in pixels
+	private static final double TOLERANCE = 0.25; //the largest interpolation error to accept at the points checked in each cell, as a fraction of how much each coordinate changes per sample
+	private static final double PRECISION = 0.1; //the largest error to accept from an iterative inverse, in samples
+	private static final double MAX_CELL_ANGLE = 0.5; //the biggest a cell can be and still be interpolated, in radians
+	private static final int EMPTY_SPACING = 2; //the spacing of the lattice that decides whether a cell is off the map, in samples
+	private static final double MAX_LONGITUDE_JUMP = Math.PI/2; //a difference in longitude this big within a cell means it has a seam in it
+	private static final int RADIAL_RESOLUTION = 4; //the number of radial table entries per sample
+	private static final int RADIAL_CHUNK = 256; //the number of radial table entries to compute at once
+	
+	private final Projection proj;
+	private final double[] aspect;
+	private final double sinPoleLat, cosPoleLat; //the trigonometric functions of the aspect's latitude
+	private final boolean crop;
+	private final int width, height, step; //the dimensions of the map in pixels, and the samples per pixel
+	private final int columns, rows; //the dimensions of the map in samples
+	private final boolean adaptive; //whether to interpolate at all
+	private final int cellSize; //the spacing of the coarse grid in samples
+	private final boolean decomposable; //whether the aspect and cropping can be done separately from the inverse
+	private final boolean separable; //whether the inverse can be done a row at a time
+	private final double[] radialForm; //the centre, cone constant, and orientation, if it is done with a radial table
+	private final double radialSpacing; //the distance between entries in the radial table
+	private final double[][] radialLats; //the latitude at each radius in the table, in chunks, or null where not yet computed
+	private final boolean[][] radialExact; //whether each interval in the table is too curved to interpolate
+	private final boolean mirrorX, mirrorY; //whether the right half is looked up in the left, and the bottom in the top
+	
+	private int bandIndex = Integer.MIN_VALUE; //the index of the band of rows of cells currently computed
+	private int bandStart, bandWidth; //the first column and number of columns in the band
+	private double[][][] band; //the samples in the band, before cropping and rotating
+	private Map<Long, double[]> exact = new HashMap<Long, double[]>(); //the points at which inverse() has been called, before cropping and rotating
+	private long numEvaluations = 0; //the number of times inverse() has been called
+	private double[] hint = null; //the last result of inverse() that was on the globe, to start the next one from
+	private int hintI, hintJ; //the column and row of the sample where hint came from
+	
+	
+	/**
+	 * Prepare to invert a map. Sample i of row j is at the same place MapDesignerRaster puts it:
+	 * ((i+.5)/step, (j+.5)/step) pixels from the top left corner.
+	 * @param proj - The Projection to invert. Its parameters should not change while this is in
+	 * 		use. It is copied so that its precision can be set to suit this map without affecting
+	 * 		anything else that uses it.
+	 * @param aspect - The oblique axis of the map.
+	 * @param crop - Should points with extreme longitudes be hidden?
+	 * @param width - The width of the map in pixels.
+	 * @param height - The height of the map in pixels.
+	 * @param step - The number of samples across each pixel.
+	 * @param adaptive - Whether to interpolate where the inverse is smooth, or to call inverse()
+	 * 		at every sample. Separable projections are always done exactly, either way.
+	 */
+	public InverseGrid(Projection proj, double[] aspect, boolean crop,
+			int width, int height, int step, boolean adaptive) {
+		this.proj = proj.copy();
+		this.aspect = aspect;
+		this.sinPoleLat = (aspect != null) ? Math.sin(aspect[0]) : 1;
+		this.cosPoleLat = (aspect != null) ? Math.cos(aspect[0]) : 0;
+		this.crop = crop;
+		this.width = width;
+		this.height = height;
+		this.step = step;
+		this.columns = width*step;
+		this.rows = height*step;
+		this.adaptive = adaptive;
+		this.cellSize = CELL_SIZE*step;
+		this.proj.setPrecision(PRECISION*Math.min(proj.getWidth()/columns, proj.getHeight()/rows));
+		boolean decomposable, separable;
+		try { //projections that override this method do something special with the aspect
+			decomposable = proj.getClass().getMethod("inverse",
+					double.class, double.class, double[].class, boolean.class)
+					.getDeclaringClass() == Projection.class;
+			separable = decomposable && proj.getClass().getMethod("inverseRow", double.class)
+					.getDeclaringClass() != Projection.class; //and ones that override this one are separable
+		} catch (NoSuchMethodException e) {
+			decomposable = separable = false;
+		}
+		this.decomposable = decomposable;
+		this.separable = separable;
+		
+		this.radialForm = (adaptive && decomposable && !separable) ? proj.getRadialForm() : null;
+		if (radialForm != null) {
+			this.radialSpacing = Math.min(proj.getWidth()/columns, proj.getHeight()/rows)/RADIAL_RESOLUTION;
+			final double rMax = Math.hypot(proj.getWidth()/2, Math.abs(radialForm[0]) + proj.getHeight()/2)
+					+ RADIAL_RESOLUTION*radialSpacing; //the farthest any sample can be from the centre
+			final int numChunks = (int)Math.ceil(rMax/radialSpacing/RADIAL_CHUNK);
+			this.radialLats = new double[numChunks][];
+			this.radialExact = new boolean[numChunks][];
+		}
+		else {
+			this.radialSpacing = 0;
+			this.radialLats = null;
+			this.radialExact = null;
+		}
+		
+		final boolean banded = adaptive && decomposable && !separable && radialForm == null; //symmetry only matters when interpolating in bands
+		this.mirrorX = banded && proj.isMeridionallySymmetric();
+		this.mirrorY = banded && proj.isEquatoriallySymmetric();
+	}
+	
+	
+	/**
+	 * Invert the projection at a run of samples in one row of samples.
+	 * @param j - The index of the row of samples, counting from the top of the map.
+	 * @param i0 - The index of the first sample, counting from the left of the map.
+	 * @param count - The number of samples.
+	 * @return the latitude and longitude of each sample, or null where it is off the map.
+	 */
+	public double[][] row(int j, int i0, int count) {
+		final double[][] row = new double[count][];
+		if (j < 0 || j >= rows)
+			return row;
+		final int kMin = Math.max(0, -i0), kMax = Math.min(count, columns - i0); //only fill in samples on the map
+		if (separable) {
+			numEvaluations ++;
+			final double[] along = proj.inverseRow(y(j)); //the latitude and longitude per x of this row
+			for (int k = kMin; k < kMax; k ++)
+				row[k] = new double[] {along[0], along[1]*x(i0 + k)};
+			finish(row, kMin, kMax);
+			return row;
+		}
+		if (radialForm != null) {
+			final double n = radialForm[1], s = radialForm[2];
+			final double dy = radialForm[0] - s*y(j);
+			for (int k = kMin; k < kMax; k ++) {
+				final double dx = s*x(i0 + k);
+				final double lat = radialLatitude(Math.sqrt(dx*dx + dy*dy));
+				final double lon = Math2.fastAtan2(dx, dy)/n;
+				if (!Double.isNaN(lat) && Math.abs(lon) <= Math.PI)
+					row[k] = new double[] {s*lat, s*lon};
+			}
+			finish(row, kMin, kMax);
+			return row;
+		}
+		if (!adaptive) {
+			for (int k = kMin; k < kMax; k ++)
+				row[k] = inverse(i0 + k, j);
+			finish(row, kMin, kMax);
+			return row;
+		}
+		
+		if (kMin >= kMax)
+			return row;
+		final int jc = mirrorY ? Math.min(j, rows-1 - j) : j; //the row to look up
+		final int iFirst = column(i0 + kMin), iLast = column(i0 + kMax - 1);
+		final int iMin = Math.min(iFirst, iLast); //and the range of columns to look up
+		final int iMax = (mirrorX && i0 + kMin < (columns+1)/2 && i0 + kMax > columns/2) ?
+				(columns+1)/2 : Math.max(iFirst, iLast) + 1; //if it spans the meridian, it needs all the columns up to it
+		if (Math.floorDiv(jc, cellSize) != bandIndex || iMin < bandStart || iMax > bandStart + bandWidth)
+			computeBand(Math.floorDiv(jc, cellSize), iMin, iMax);
+		for (int k = kMin; k < kMax; k ++) {
+			final int ic = column(i0 + k);
+			final double[] relCoords = band[jc - bandIndex*cellSize][ic - bandStart];
+			if (relCoords == null || (jc == j && ic == i0 + k))
+				row[k] = relCoords;
+			else //reflect it if it came from the other side
+				row[k] = new double[] {
+						(jc == j) ? relCoords[0] : -relCoords[0],
+						(ic == i0 + k) ? relCoords[1] : -relCoords[1] };
+		}
+		finish(row, kMin, kMax);
+		return row;
+	}
+	
+	
+	/**
+	 * @return true if the rows of samples in the bottom half are looked up in the top half, so
+	 * 		that it is fastest to ask for each row right after or before its mirror image.
+	 */
+	public boolean isMirroredVertically() {
+		return this.mirrorY;
+	}
+	
+	
+	/**
+	 * @return the number of times inverse(), inverseRow(), or inverseRadius() has been called so
+	 * 		far.
+	 */
+	public long getNumEvaluations() {
+		return this.numEvaluations;
+	}
+	
+	
+	/**
+	 * Fill in every sample in a horizontal band of cells.
+	 * @param b - The index of the band, counting from the top.
+	 * @param iMin - The first column that needs to be in the band.
+	 * @param iMax - One past the last column that needs to be in the band.
+	 */
+	private void computeBand(int b, int iMin, int iMax) {
+		final Map<Long, double[]> previous = exact; //keep the points on the edge shared with the last band
+		exact = new HashMap<Long, double[]>();
+		if (b == bandIndex + 1)
+			for (Map.Entry<Long, double[]> entry: previous.entrySet())
+				if (entry.getKey() >> 32 == b*cellSize)
+					exact.put(entry.getKey(), entry.getValue());
+		
+		final int cMin = Math.floorDiv(iMin, cellSize), cMax = Math.floorDiv(iMax - 1, cellSize);
+		this.bandIndex = b;
+		this.bandStart = cMin*cellSize;
+		this.bandWidth = (cMax - cMin + 1)*cellSize;
+		this.band = new double[cellSize][bandWidth][];
+		for (int c = cMin; c <= cMax; c ++)
+			fill(c*cellSize, b*cellSize, cellSize, cellSize);
+	}
+	
+	
+	/**
+	 * Fill in the samples in a cell, either by interpolating between its corners or by splitting
+	 * it into four smaller cells.
+	 * @param i - The column of the top left corner.
+	 * @param j - The row of the top left corner.
+	 * @param w - The width of the cell, so the corners are at i and i+w.
+	 * @param h - The height of the cell, so the corners are at j and j+h.
+	 */
+	private void fill(int i, int j, int w, int h) {
+		if (w < 2 || h < 2) { //cells this small are not worth interpolating
+			for (int y = j; y < j + h; y ++)
+				for (int x = i; x < i + w; x ++)
+					set(x, y, exact(x, y));
+			return;
+		}
+		
+		final int[][] checks = { {i+w/2, j+h/2}, {i+w/2, j}, {i+w/2, j+h}, {i, j+h/2}, {i+w, j+h/2} }; //the centre and edge midpoints
+		final double[][] corners = { exact(i, j), exact(i+w, j), exact(i, j+h), exact(i+w, j+h) };
+		if (isEmpty(i, j, w, h)) { //if it's all off the map, don't look any closer
+			for (int y = j; y < j + h; y ++)
+				for (int x = i; x < i + w; x ++)
+					set(x, y, null);
+		}
+		else if (isSmooth(i, j, w, h, corners, checks)) {
+			for (int y = j; y < j + h; y ++)
+				for (int x = i; x < i + w; x ++)
+					set(x, y, interpolate(corners, (x - i)/(double)w, (y - j)/(double)h));
+		}
+		else {
+			final int wa = w/2, ha = h/2;
+			fill(i,      j,      wa,     ha);
+			fill(i + wa, j,      w - wa, ha);
+			fill(i,      j + ha, wa,     h - ha);
+			fill(i + wa, j + ha, w - wa, h - ha);
+		}
+	}
+	
+	
+	/**
+	 * Decide whether bilinear interpolation between the corners of a cell is good enough.
+	 * @param corners - The top left, top right, bottom left, and bottom right corners.
+	 * @param checks - Some other points in the cell at which to check the interpolation.
+	 * @return true if everything is on the map, the cell does not cross a seam, and the
+	 * 		interpolation is within TOLERANCE of the truth at every check point, where TOLERANCE
+	 * 		is a fraction of how much each coordinate changes from sample to sample in the cell.
+	 */
+	private boolean isSmooth(int i, int j, int w, int h, double[][] corners, int[][] checks) {
+		for (double[] corner: corners) {
+			if (corner == null || Double.isNaN(corner[0]) || Double.isNaN(corner[1]))
+				return false;
+			if (Math.abs(corner[1] - corners[0][1]) > MAX_LONGITUDE_JUMP)
+				return false;
+		}
+		
+		final double[][] truths = new double[checks.length][];
+		for (int k = 0; k < checks.length; k ++) {
+			truths[k] = exact(checks[k][0], checks[k][1]);
+			if (truths[k] == null || Double.isNaN(truths[k][0]) || Double.isNaN(truths[k][1]))
+				return false;
+		}
+		
+		double latMin = corners[0][0], latMax = corners[0][0], lonMin = corners[0][1], lonMax = corners[0][1];
+		for (double[] point: corners) {
+			latMin = Math.min(latMin, point[0]);
+			latMax = Math.max(latMax, point[0]);
+			lonMin = Math.min(lonMin, point[1]);
+			lonMax = Math.max(lonMax, point[1]);
+		}
+		if (Math.hypot(latMax - latMin, lonMax - lonMin) > MAX_CELL_ANGLE)
+			return false;
+		final double latTolerance = TOLERANCE*(latMax - latMin)/Math.max(w, h); //measure the error in each coordinate
+		final double lonTolerance = TOLERANCE*(lonMax - lonMin)/Math.max(w, h); //relative to how much it changes from sample to sample
+		
+		for (int k = 0; k < checks.length; k ++) {
+			final double[] guess = interpolate(corners,
+					(checks[k][0] - i)/(double)w, (checks[k][1] - j)/(double)h);
+			if (!(Math.abs(truths[k][0] - guess[0]) <= latTolerance) ||
+					!(Math.abs(truths[k][1] - guess[1]) <= lonTolerance))
+				return false;
+		}
+		return true;
+	}
+	
+	
+	private boolean isEmpty(int i, int j, int w, int h) { //are all the points on a fine lattice off the map?
+		for (int y = j; y < j + h + EMPTY_SPACING; y += EMPTY_SPACING)
+			for (int x = i; x < i + w + EMPTY_SPACING; x += EMPTY_SPACING)
+				if (exact(Math.min(x, i + w), Math.min(y, j + h)) != null)
+					return false;
+		return true;
+	}
+	
+	
+	private double[] exact(int i, int j) { //call inverse() at a sample, unless it's already been done
+		if (i > columns || j > rows) //cells on the edge reach past the map, where inverse() need not work
+			return null;
+		final Long key = ((long) j << 32) | (i & 0xFFFFFFFFL);
+		if (exact.containsKey(key))
+			return exact.get(key);
+		final double[] coords = inverse(i, j);
+		exact.put(key, coords);
+		return coords;
+	}
+	
+	
+	private double[] inverse(int i, int j) { //call inverse(), but don't crop or rotate if that can be done later
+		numEvaluations ++;
+		if (!decomposable)
+			return proj.inverse(x(i), y(j), aspect, crop);
+		final boolean nearby = Math.abs(i - hintI) <= cellSize && Math.abs(j - hintJ) <= cellSize;
+		double[] coords = proj.inverseNear(x(i), y(j), nearby ? hint : null); //start from the last sample if it's close enough to help
+		if (nearby && hint != null && !isOnGlobe(coords)) { //a hint from across a seam can lead it to the wrong root
+			numEvaluations ++;
+			final double[] cold = proj.inverseNear(x(i), y(j), null);
+			if (isOnGlobe(cold))
+				coords = cold;
+		}
+		if (isOnGlobe(coords)) {
+			hint = coords;
+			hintI = i;
+			hintJ = j;
+		}
+		return coords;
+	}
+	
+	
+	private static boolean isOnGlobe(double[] coords) { //is this a latitude and longitude within the usual bounds?
+		return coords != null && Math.abs(coords[0]) <= Math.PI/2 && Math.abs(coords[1]) <= Math.PI;
+	}
+	
+	
+	private int column(int i) { //the column in which to look up a sample
+		return mirrorX ? Math.min(i, columns-1 - i) : i;
+	}
+	
+	
+	private double x(int i) { //the x coordinate of a column of samples
+		return ((i+.5)/step/width - 1/2.) *proj.getWidth();
+	}
+	
+	
+	private double y(int j) { //the y coordinate of a row of samples
+		return (1/2. - (j+.5)/step/height) *proj.getHeight();
+	}
+	
+	
+	private double radialLatitude(double r) { //look up the latitude at a distance from the centre
+		final double u = r/radialSpacing;
+		final int k = (int) u;
+		final int c = k/RADIAL_CHUNK, m = k%RADIAL_CHUNK;
+		if (!(u >= 0) || c >= radialLats.length) {
+			numEvaluations ++;
+			return proj.inverseRadius(r);
+		}
+		if (radialLats[c] == null)
+			tabulate(c);
+		if (radialExact[c][m]) {
+			numEvaluations ++;
+			return proj.inverseRadius(r);
+		}
+		final double[] lats = radialLats[c];
+		return lats[m] + (u - k)*(lats[m+1] - lats[m]);
+	}
+	
+	
+	private void tabulate(int c) { //compute a chunk of the radial table, and check it at the midpoints
+		final double[] lats = new double[RADIAL_CHUNK + 1];
+		final boolean[] exact = new boolean[RADIAL_CHUNK];
+		for (int m = 0; m <= RADIAL_CHUNK; m ++)
+			lats[m] = proj.inverseRadius((c*RADIAL_CHUNK + m)*radialSpacing);
+		for (int m = 0; m < RADIAL_CHUNK; m ++) {
+			final double truth = proj.inverseRadius((c*RADIAL_CHUNK + m + .5)*radialSpacing);
+			final double tolerance = TOLERANCE*RADIAL_RESOLUTION*Math.abs(lats[m+1] - lats[m]); //relative to how much it changes from sample to sample
+			if (Double.isNaN(lats[m]) && Double.isNaN(truth) && Double.isNaN(lats[m+1]))
+				exact[m] = false; //if it's all off the map, interpolating will give NaN, which is fine
+			else
+				exact[m] = !(Math.abs(truth - (lats[m] + lats[m+1])/2) <= tolerance);
+		}
+		numEvaluations += 2*RADIAL_CHUNK + 1;
+		radialLats[c] = lats;
+		radialExact[c] = exact;
+	}
+	
+	
+	/**
+	 * Do the cropping and rotating that inverse() skipped to a run of samples, in place. Samples
+	 * that are cropped become null, and ones that are moved are replaced with new arrays, since
+	 * the old ones may still be in the band. Each kind of aspect gets its own loop, so the
+	 * rotation is a short run of arithmetic per sample: it finds the latitude and longitude
+	 * both from the components of the rotated point with Math2.fastAtan2(), which is several
+	 * times faster than Math.asin() and Math.atan2().
+	 * @param row - The relative coordinates of each sample, or null where it is off the map.
+	 * @param kMin - The index of the first sample to do.
+	 * @param kMax - One past the index of the last sample to do.
+	 */
+	private void finish(double[][] row, int kMin, int kMax) {
+		if (!decomposable)
+			return;
+		if (crop)
+			for (int k = kMin; k < kMax; k ++)
+				if (row[k] != null && Math.abs(row[k][1]) > Math.PI)
+					row[k] = null;
+		if (!proj.hasAspect() || aspect == null)
+			return;
+		
+		if (aspect[0] == Math.PI/2) { //the usual aspect is just a shift in longitude
+			for (int k = kMin; k < kMax; k ++)
+				if (row[k] != null)
+					row[k] = new double[] {row[k][0], coerce(row[k][1] + aspect[2] + aspect[1])};
+		}
+		else if (aspect[0] == -Math.PI/2) {
+			for (int k = kMin; k < kMax; k ++)
+				if (row[k] != null)
+					row[k] = Projection.obliquifyPlnr(row[k], aspect);
+		}
+		else {
+			for (int k = kMin; k < kMax; k ++) {
+				if (row[k] == null)
+					continue;
+				final double lat1 = row[k][0], lon1 = row[k][1] + aspect[2];
+				final double sinLat1 = Math.sin(lat1), cosLat1 = Math.cos(lat1);
+				final double sinLon1 = Math.sin(lon1), cosLon1 = Math.cos(lon1);
+				final double up = sinPoleLat*sinLat1 - cosPoleLat*cosLon1*cosLat1; //the rotated point's component along the axis,
+				final double east = cosLat1*sinLon1; //and its components across it
+				final double north = cosPoleLat*sinLat1 + sinPoleLat*cosLon1*cosLat1;
+				row[k] = new double[] {
+						Math2.fastAtan2(up, Math.sqrt(east*east + north*north)),
+						coerce(aspect[1] + Math2.fastAtan2(east, north)) };
+			}
+		}
+	}
+	
+	
+	private static double coerce(double lon) { //put a longitude back between -PI and PI, if it isn't already
+		return (Math.abs(lon) > Math.PI) ? Math2.coerceAngle(lon) : lon;
+	}
+	
+	
+	private void set(int i, int j, double[] relCoords) { //put a sample in the band, if it goes there
+		if (i >= bandStart && i < bandStart + bandWidth && i < columns && j < rows)
+			band[j - bandIndex*cellSize][i - bandStart] = relCoords; //it gets cropped and rotated as it comes out
+	}
+	
+	
+	private static double[] interpolate(double[][] corners, double u, double v) {
+		return new double[] {
+				(1-v)*((1-u)*corners[0][0] + u*corners[1][0]) + v*((1-u)*corners[2][0] + u*corners[3][0]),
+				(1-v)*((1-u)*corners[0][1] + u*corners[1][1]) + v*((1-u)*corners[2][1] + u*corners[3][1]) };
+	}
+}
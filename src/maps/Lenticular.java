@@ -54,6 +54,20 @@ public class Lenticular {
 			if (transverse != null) 	transverse[1] *= 2;
 			return transverse;
 		}
+		
+		public double[] jacobian(double lat, double lon) {
+			final double a = Math.acos(Math.cos(lat)*Math.cos(lon/2));
+			if (a < 1e-3) 	return null; //the formula for dg/da is ill-conditioned at the center
+			final double g = a/Math.sin(a);
+			final double dgda = (Math.sin(a) - a*Math.cos(a))/Math.pow(Math.sin(a), 2);
+			final double dadlat = Math.sin(lat)*Math.cos(lon/2)/Math.sin(a);
+			final double dadlon = Math.cos(lat)*Math.sin(lon/2)/(2*Math.sin(a));
+			return new double[] {
+					2*Math.sin(lon/2)*(-Math.sin(lat)*g + Math.cos(lat)*dgda*dadlat),
+					2*Math.cos(lat)*(Math.cos(lon/2)*g/2 + Math.sin(lon/2)*dgda*dadlon),
+					Math.cos(lat)*g + Math.sin(lat)*dgda*dadlat,
+					Math.sin(lat)*dgda*dadlon };
+		}
 	};
 	
 	
@@ -73,6 +87,18 @@ public class Lenticular {
 					Math.asin(z*y*Math.sqrt(2)),
 					2*Math.atan(Math.sqrt(.5)*z*x / (2*z*z - 1)) + shift};
 		}
+		
+		public double[] jacobian(double lat, double lon) {
+			final double z = Math.sqrt(1+Math.cos(lat)*Math.cos(lon/2));
+			final double dzdlat = -Math.sin(lat)*Math.cos(lon/2)/(2*z);
+			final double dzdlon = -Math.cos(lat)*Math.sin(lon/2)/(4*z);
+			final double x = 2*Math.cos(lat)*Math.sin(lon/2)/z, y = Math.sin(lat)/z;
+			return new double[] {
+					-2*Math.sin(lat)*Math.sin(lon/2)/z - x*dzdlat/z,
+					Math.cos(lat)*Math.cos(lon/2)/z - x*dzdlon/z,
+					Math.cos(lat)/z - y*dzdlat/z,
+					-y*dzdlon/z };
+		}
 	};
 	
 	
@@ -114,6 +140,14 @@ public class Lenticular {
 					Math.PI*(x*x + y*y - 1 + Math.sqrt(1 + 2*(x*x - y*y) + Math.pow(x*x + y*y, 2)))
 							/ (2*x)};
 		}
+		
+		public boolean isMeridionallySymmetric() {
+			return true;
+		}
+		
+		public boolean isEquatoriallySymmetric() {
+			return true;
+		}
 	};
 	
 	
@@ -161,6 +195,14 @@ public class Lenticular {
 				return ll0;
 		}
 		
+		public boolean isMeridionallySymmetric() {
+			return true;
+		}
+		
+		public boolean isEquatoriallySymmetric() {
+			return true;
+		}
+		
 	};
 	
 	
@@ -222,6 +264,27 @@ public class Lenticular {
 			double lon = 2*Math.atan2(2*x, 1 - r2);
 			return new double[] {lat, lon};
 		}
+		
+		public double[] jacobian(double lat, double lon) {
+			if (Math.abs(lat) == Math.PI/2) 	return null;
+			double v = Math.pow((1 + Math.sin(lat))/(1 - Math.sin(lat)), .25);
+			double c = (v + 1/v)/2 + Math.cos(lon/2);
+			double dcdlat = (v - 1/v)/(4*Math.cos(lat));
+			double dcdlon = -Math.sin(lon/2)/2;
+			return new double[] {
+					-Math.sin(lon/2)*dcdlat/(c*c),
+					Math.cos(lon/2)/(2*c) - Math.sin(lon/2)*dcdlon/(c*c),
+					(v + 1/v)/(4*c*Math.cos(lat)) - (v - 1/v)*dcdlat/(2*c*c),
+					-(v - 1/v)*dcdlon/(2*c*c) };
+		}
+		
+		public boolean isMeridionallySymmetric() {
+			return true;
+		}
+		
+		public boolean isEquatoriallySymmetric() {
+			return true;
+		}
 	};
 	
 	
@@ -240,19 +303,42 @@ public class Lenticular {
 		}
 		
 		public double[] inverse(double x, double y) {
+			return inverseNear(x, y, null);
+		}
+		
+		public double[] inverseNear(double x, double y, double[] hint) {
 			if (x > 0) { // It converges on the right half, but not the left
-				double[] res = inverse(-x, -y); // I'm not sure why it does this,
+				double[] res = inverseNear(-x, -y, // I'm not sure why it does this,
+						(hint != null) ? new double[] {-hint[0], -hint[1]} : null);
 				return new double[] {-res[0], -res[1]}; // but the fix is easy.
 			}
 			
 			Complex z = new Complex(x, y);
-			Complex v = NumericalAnalysis.newtonRaphsonApproximation(z, z.exp(),
-					(t)->(t.log().plus(t.invert().minus(t).divide(Math.sqrt(2)))),
-					(t)->(t.invert().plus(t.pow(-2).neg().minus(1).divide(Math.sqrt(2)))),
-					1e-4);
+			Complex v = null;
+			if (hint != null && hint[1] <= 0) { // start from the v that goes with the hint, if there is one on this side
+				Complex w = new Complex(hint[1], Math.log(Math.tan(Math.PI/4+hint[0]/2)));
+				v = solve(z, w.divide(4).minus(Math.PI/8).tan().minus(1).divide(-Math.sqrt(2)));
+			}
+			if (v == null || Double.isNaN(v.getRe()))
+				v = solve(z, z.exp());
 			Complex w = Math2.atan(v.times(Math.sqrt(2)).minus(1)).minus(Math.PI/8).times(-4);
 			return new double[] { Math.atan(Math.sinh(w.getIm())), w.getRe() };
 		}
+		
+		private Complex solve(Complex z, Complex v0) {
+			return NumericalAnalysis.newtonRaphsonApproximation(z, v0,
+					(t)->(t.log().plus(t.invert().minus(t).divide(Math.sqrt(2)))),
+					(t)->(t.invert().plus(t.pow(-2).neg().minus(1).divide(Math.sqrt(2)))),
+					tolerance(1e-4));
+		}
+		
+		public boolean isMeridionallySymmetric() {
+			return true;
+		}
+		
+		public boolean isEquatoriallySymmetric() {
+			return true;
+		}
 	};
 	
 	
@@ -285,6 +371,14 @@ public class Lenticular {
 			else
 				return new double[] {lat, lon};
 		}
+		
+		public boolean isMeridionallySymmetric() {
+			return true;
+		}
+		
+		public boolean isEquatoriallySymmetric() {
+			return true;
+		}
 	};
 	
 	
@@ -300,20 +394,44 @@ public class Lenticular {
 		}
 		
 		public double[] inverse(double x, double y) {
+			return inverseNear(x, y, null);
+		}
+		
+		public double[] inverseNear(double x, double y, double[] hint) {
 			if (y < 0) { // the math gets inconvenient in the Southern Hemisphere
-				double[] refl = inverse(x, -y);
+				double[] refl = inverseNear(x, -y, (hint != null) ? new double[] {-hint[0], hint[1]} : null);
 				return new double[] {-refl[0], refl[1]};
 			}
 			else if (y == 0)
 				return new double[] {0, x};
 			
-			double lat = NumericalAnalysis.bisectionFind(
-					(ph)->(Math.pow(x, 2) + Math.pow(y - ph, 2) - 2*(y - ph)/Math.tan(ph)),
-					0, Math.PI/2, 1e-4);
+			double lat = NumericalAnalysis.newtonBisectionFind( // this is Snyder's form, which is smooth at the equator
+					(ph)->((x*x + (y - ph)*(y - ph))*Math.tan(ph)/2 - (y - ph)),
+					(ph)->((x*x + (y - ph)*(y - ph))/(2*Math.pow(Math.cos(ph), 2)) - (y - ph)*Math.tan(ph) + 1),
+					0, Math.PI/2, (hint != null) ? hint[0] : y, tolerance(1e-9)); // the central meridian is true to scale, so y is a good first guess
 			if (Double.isNaN(lat))
 				return null;
 			return new double[] { lat, Math.atan2(x, -(y - lat - 1/Math.tan(lat)))/Math.sin(lat) };
 		}
+		
+		public double[] jacobian(double lat, double lon) {
+			if (lat == 0) 	return null;
+			double E = lon*Math.sin(lat);
+			double dEdlat = lon*Math.cos(lat);
+			return new double[] {
+					Math.cos(E)*dEdlat/Math.tan(lat) - Math.sin(E)/Math.pow(Math.sin(lat), 2),
+					Math.cos(E)*Math.cos(lat),
+					1 + Math.sin(E)*dEdlat/Math.tan(lat) - (1 - Math.cos(E))/Math.pow(Math.sin(lat), 2),
+					Math.sin(E)*Math.cos(lat) };
+		}
+		
+		public boolean isMeridionallySymmetric() {
+			return true;
+		}
+		
+		public boolean isEquatoriallySymmetric() {
+			return true;
+		}
 	};
 
 }
@@ -53,7 +53,7 @@ public class Misc {
 			double wAbs = Math.tan(Math.PI/4-Math.abs(lat)/2);
 			Complex w = new Complex(wAbs*Math.sin(wArg), -wAbs*Math.cos(wArg)); //this Complex comes from Apache Commons
 			Complex k = new Complex(Math.sqrt(0.5));
-			Complex z = Elliptic.F(w.acos(),k).divide(K_RT_HALF).subtract(Complex.ONE);
+			Complex z = Elliptic.F(w.acos(),k, tolerance(1e-3)).divide(K_RT_HALF).subtract(Complex.ONE);
 			z = z.multiply(Complex.I.pow(quadNum-2));
 			double x = z.getReal(), y = z.getImaginary();
 			if (lat < 0)
@@ -90,7 +90,7 @@ public class Misc {
 			double wAbs = Math.tan(Math.PI/4-Math.abs(coords[0])/2);
 			Complex w = new Complex(wAbs*Math.sin(wArg), -wAbs*Math.cos(wArg)); //this Complex comes from Apache Commons
 			Complex k = new Complex(Math.sqrt(0.5));
-			Complex z = Elliptic.F(w.acos(),k).divide(K_RT_HALF).subtract(Complex.ONE);
+			Complex z = Elliptic.F(w.acos(),k, tolerance(1e-3)).divide(K_RT_HALF).subtract(Complex.ONE);
 			z = z.multiply(Complex.I.pow(quadNum-1.5));
 			double x = z.getReal()/Math.sqrt(2), y = z.getImaginary()/Math.sqrt(2);
 			if (coords[0] < 0)
@@ -280,16 +280,16 @@ public class Misc {
 				this.height = Pseudocylindrical.SINUSOIDAL.getHeight();
 			}
 			else { // for such a simple map projection...
-				double argmaxX = NumericalAnalysis.bisectionFind(
+				double argmaxX = NumericalAnalysis.brentFind(
 						(p) -> (Math.PI*(1/(r0-p)*Math.cos(p) - Math.sin(p))*Math.cos(Math.PI/(r0-p)*Math.cos(p)) - Math.sin(Math.PI/(r0-p)*Math.cos(p))),
-						-Math.PI/2, 0, 1e-3); // it sure is complicated to find its dimensions!
+						-Math.PI/2, 0, 1e-6); // it sure is complicated to find its dimensions!
 				double maxX = (r0 - argmaxX)*Math.sin(Math.PI/(r0 - argmaxX)*Math.cos(argmaxX));
 				this.width = 2*maxX;
 				double argmaxY;
 				try {
-					argmaxY = NumericalAnalysis.bisectionFind(
+					argmaxY = NumericalAnalysis.brentFind(
 							(p) -> (Math.PI*(1/(r0-p)*Math.cos(p) - Math.sin(p))*Math.sin(Math.PI/(r0-p)*Math.cos(p)) + Math.cos(Math.PI/(r0-p)*Math.cos(p))),
-							0, Math.PI/4, 1e-3);
+							0, Math.PI/4, 1e-6);
 				} catch (IllegalArgumentException e) {
 					argmaxY = Math.PI/2;
 				}
@@ -339,6 +339,10 @@ public class Misc {
 			else
 				return new double[] { lat, lon};
 		}
+		
+		public boolean isMeridionallySymmetric() {
+			return true;
+		}
 	};
 	
 	
@@ -23,6 +23,8 @@
  */
 package maps;
 
+import java.util.Arrays;
+
 /**
  * A projection that uses the same equations as another, but shifts the aspect
  * 
@@ -64,4 +66,29 @@ public class Oblique extends Projection {
 		this.height = base.height;
 	}
 	
+	
+	@Override
+	public void setPrecision(double precision) {
+		super.setPrecision(precision);
+		base.setPrecision(precision);
+	}
+	
+	
+	@Override
+	public boolean isMeridionallySymmetric() { //turning the globe moves the base's mirror line, unless it doesn't turn it at all
+		return Arrays.equals(axis, NORTH_POLE) && base.isMeridionallySymmetric();
+	}
+	
+	
+	@Override
+	public boolean isEquatoriallySymmetric() {
+		return Arrays.equals(axis, NORTH_POLE) && base.isEquatoriallySymmetric();
+	}
+	
+	
+	@Override
+	public Projection copy() {
+		return new Oblique(base.copy(), getName(), axis);
+	}
+	
 }
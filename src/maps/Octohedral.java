@@ -60,7 +60,7 @@ public class Octohedral {
 		}
 		
 		protected double[] faceInverse(double x, double y) {
-			double[] coords = CahillKeyes.faceInverseD(x, y);
+			double[] coords = CahillKeyes.faceInverseD(x, y, tolerance(CahillKeyes.TOLERANCE));
 			return (coords == null) ? null :
 				new double[] {Math.toRadians(coords[0]), Math.toRadians(coords[1])};
 		}
@@ -77,7 +77,7 @@ public class Octohedral {
 		}
 		
 		protected double[] faceInverse(double x, double y) {
-			double[] coords = CahillKeyes.faceInverseD(x, y);
+			double[] coords = CahillKeyes.faceInverseD(x, y, tolerance(CahillKeyes.TOLERANCE));
 			return (coords == null) ? null :
 				new double[] {Math.toRadians(coords[0]), Math.toRadians(coords[1])};
 		}
@@ -105,7 +105,7 @@ public class Octohedral {
 		}
 
 		protected double[] faceInverse(double x, double y) {
-			double[] coords = CahillKeyes.faceInverseD(x, y);
+			double[] coords = CahillKeyes.faceInverseD(x, y, tolerance(CahillKeyes.TOLERANCE));
 			return (coords == null) ? null :
 					new double[] {Math.toRadians(coords[0]), Math.toRadians(coords[1])};
 		}
@@ -122,7 +122,7 @@ public class Octohedral {
 		}
 
 		protected double[] faceInverse(double x, double y) {
-			double[] coords = CahillKeyes.faceInverseD(x, y);
+			double[] coords = CahillKeyes.faceInverseD(x, y, tolerance(CahillKeyes.TOLERANCE));
 			return (coords == null) ? null :
 					new double[] {Math.toRadians(coords[0]), Math.toRadians(coords[1])};
 		}
@@ -133,13 +133,57 @@ public class Octohedral {
 			"Cahill Conformal", "The conformal and only reproducable variant of Cahill's original map.",
 			Math.sqrt(3)/2, 0, 0b1000, Property.CONFORMAL, 3, Configuration.BUTTERFLY) {
 
-		private final double HEXAGON_SCALE = 1.112913; //this is 2^(2/3)/6*\int_0^\pi sin^(-1/3) x dx
-		private final double TOLERANCE = 1e-3;
-		private final double[] VERTEX = {0, Math.PI/4, -3*Math.PI/4}; // TODO this needs to be tilted a bit
+		protected double[] faceProject(double lat, double lon) {
+			return ConformalCahill.faceProject(lat, lon);
+		}
+		
+		protected double[] faceInverse(double x, double y) {
+			return ConformalCahill.faceInverse(x, y, tolerance(ConformalCahill.TOLERANCE));
+		}
+	};
+	
+	
+	public static final Projection CAHILL_CONCIALDI = new OctohedralProjection(
+			"Cahill\u2013Concialdi", "A conformal octohedral projection with no extra cuts and a unique arrangement.",
+			Math.sqrt(3)/2, 0, 0b1000, Property.CONFORMAL, 4, Configuration.BAT_SHAPE) {
+		
+		private final double lon0 = Math.toRadians(20);
+		
+		public double[] project(double lat, double lon) {
+			lon = Math2.floorMod(lon - lon0 + Math.PI, 2*Math.PI) - Math.PI; // change the central meridian
+			return super.project(lat, lon);
+		}
 		
 		protected double[] faceProject(double lat, double lon) {
+			return ConformalCahill.faceProject(lat, lon);
+		}
+		
+		public double[] inverse(double x, double y) {
+			double[] coords = super.inverse(x, y);
+			if (coords != null)
+				coords[1] = Math2.floorMod(coords[1] + lon0 + Math.PI, 2*Math.PI) - Math.PI; // change the central meridian
+			return coords;
+		}
+		
+		protected double[] faceInverse(double x, double y) {
+			return ConformalCahill.faceInverse(x, y, tolerance(ConformalCahill.TOLERANCE));
+		}
+	};
+	
+	
+	
+	/**
+	 * The faces of the conformal Cahill projection, which more than one arrangement uses.
+	 */
+	private static class ConformalCahill {
+		
+		private static final double HEXAGON_SCALE = 1.112913; //this is 2^(2/3)/6*\int_0^\pi sin^(-1/3) x dx
+		public static final double TOLERANCE = 1e-3; //the default distance to solve within, in altitudes
+		private static final double[] VERTEX = {0, Math.PI/4, -3*Math.PI/4}; // TODO this needs to be tilted a bit
+		
+		public static double[] faceProject(double lat, double lon) {
 			double[] poleCoords = {lat, lon};
-			double[] vertCoords = obliquifySphc(lat, lon, VERTEX); //look at an oblique aspect from the nearest vertex
+			double[] vertCoords = Projection.obliquifySphc(lat, lon, VERTEX); //look at an oblique aspect from the nearest vertex
 			if (poleCoords[0] > vertCoords[0]) { //if this point is closer to the pole
 				Complex w = Complex.fromPolar(Math.pow(Math.tan(Math.PI/4-lat/2), 2/3.), lon*2/3.);
 				Complex z = polynomial(w); //project it as normal
@@ -155,7 +199,7 @@ public class Octohedral {
 			}
 		}
 		
-		protected double[] faceInverse(double x, double y) {
+		public static double[] faceInverse(double x, double y, double tolerance) { //solve to within tolerance, which each projection sets for itself
 			Complex z;
 			if (x < (1-y)/Math.sqrt(3)) //do the Newton Raphson from whichever vertex to which it is closest
 				z = new Complex(x, y);
@@ -164,7 +208,7 @@ public class Octohedral {
 						Math.sqrt(3)/2*(x-Math.sqrt(3)/2) - 1/2.*(y-1/2.));
 			Complex w = z.divide(HEXAGON_SCALE);
 			Complex error = polynomial(w).minus(z);
-			for (int i = 0; i < 8 && error.abs() > TOLERANCE; i ++) {
+			for (int i = 0; i < 8 && error.abs() > tolerance; i ++) {
 				Complex dzdw = derivative(w);
 				w = w.minus(error.divide(dzdw));
 				error = polynomial(w).minus(z);
@@ -173,51 +217,23 @@ public class Octohedral {
 			if (x < (1-y)/Math.sqrt(3)) //if it was closest to that vertex, the result is easy
 				return latLon;
 			else //if it was closer to the other vertex, do some obliquifying
-				return obliquifyPlnr(latLon, VERTEX);
+				return Projection.obliquifyPlnr(latLon, VERTEX);
 		}
 		
-		private Complex polynomial(Complex w) { //an approximation of the true conformal mapping function
+		private static Complex polynomial(Complex w) { //an approximation of the true conformal mapping function
 			w = w.times(Complex.fromPolar(1, -Math.PI/6));
 			Complex z = w.plus(w.pow(7).divide(21))
 					.plus(w.pow(11).divide(99)).plus(w.pow(13).divide(1287/16.));
 			return z.divide(Complex.fromPolar(HEXAGON_SCALE, -Math.PI/6));
 		}
 		
-		private Complex derivative(Complex w) { //the derivative of polynomial()
+		private static Complex derivative(Complex w) { //the derivative of polynomial()
 			w = w.times(Complex.fromPolar(1, -Math.PI/6));
 			Complex z = new Complex(1).plus(w.pow(6).divide(3))
 					.plus(w.pow(10).divide(9)).plus(w.pow(12).divide(99/16.));
-			return z.divide(Complex.fromPolar(HEXAGON_SCALE, -Math.PI/6));
-		}
-	};
-	
-	
-	public static final Projection CAHILL_CONCIALDI = new OctohedralProjection(
-			"Cahill\u2013Concialdi", "A conformal octohedral projection with no extra cuts and a unique arrangement.",
-			Math.sqrt(3)/2, 0, 0b1000, Property.CONFORMAL, 4, Configuration.BAT_SHAPE) {
-		
-		private final double lon0 = Math.toRadians(20);
-		
-		public double[] project(double lat, double lon) {
-			lon = Math2.floorMod(lon - lon0 + Math.PI, 2*Math.PI) - Math.PI; // change the central meridian
-			return super.project(lat, lon);
-		}
-		
-		protected double[] faceProject(double lat, double lon) {
-			return CONFORMAL_CAHILL.faceProject(lat, lon);
-		}
-		
-		public double[] inverse(double x, double y) {
-			double[] coords = super.inverse(x, y);
-			if (coords != null)
-				coords[1] = Math2.floorMod(coords[1] + lon0 + Math.PI, 2*Math.PI) - Math.PI; // change the central meridian
-			return coords;
-		}
-		
-		protected double[] faceInverse(double x, double y) {
-			return CONFORMAL_CAHILL.faceInverse(x, y);
+			return z.divide(HEXAGON_SCALE); //the rotations of w and z cancel out
 		}
-	};
+	}
 	
 	
 	
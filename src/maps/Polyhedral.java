@@ -23,6 +23,8 @@
  */
 package maps;
 
+import java.util.Arrays;
+
 import maps.Projection.Property;
 import maps.Projection.Type;
 import utils.Dixon;
@@ -38,6 +40,7 @@ public class Polyhedral {
 	
 	private static final double ASIN_ONE_THD = Math.asin(1/3.); //the complement of the angular radius of a tetrahedron face
 	private static final double ATAN_ONE_HLF = Math.atan(1/2.); //the complement of the angular length of an icosahedron edge
+	private static final int PLANAR_INDEX_RES = 64; //the number of grid cells across the longer side of the inverse lookup table
 	
 	
 	public static final PolyhedralProjection LEE_TETRAHEDRAL_RECTANGULAR = new PolyhedralProjection(
@@ -47,7 +50,7 @@ public class Polyhedral {
 		public double[] faceProject(double lat, double lon) {
 			final de.jtem.mfc.field.Complex z = de.jtem.mfc.field.Complex.fromPolar(
 					Math.pow(2, 5/6.)*Math.tan(Math.PI/4-lat/2), lon);
-			final de.jtem.mfc.field.Complex w = Dixon.invFunc(z);
+			final de.jtem.mfc.field.Complex w = Dixon.invFunc(z, tolerance(1e-3));
 			return new double[] { w.abs()*2/Dixon.PERIOD_THIRD, w.arg() }; //I don't understand Dixon functions well enough to say whence the 1.132 comes
 		}
 		
@@ -341,24 +344,29 @@ public class Polyhedral {
 		
 		public double[] project(double lat, double lon) {
 			final int numSym = configuration.sphereSym; //we're about to be using this variable a lot
+			final double[] point = {
+					Math.cos(lat)*Math.cos(lon), Math.cos(lat)*Math.sin(lon), Math.sin(lat) };
 			double latR = Double.NEGATIVE_INFINITY;
 			double lonR = Double.NEGATIVE_INFINITY;
 			double[] centrum = null;
-			for (double[] testCentrum: configuration.centrumSet) { //iterate through the centrums to see which goes here
+			long rejected = 0; //the centrums whose longitude bounds exclude this point
+			while (centrum == null) { //find the nearest face that will actually take this point
+				final int i = configuration.nearestCentrum(point, rejected);
+				if (i < 0) 	break;
+				final double[] testCentrum = configuration.centrumSet[i];
 				final double[] relCoords = obliquifySphc(lat, lon, testCentrum);
 				if (testCentrum.length > 6) { //if the centrum is long, then it contains longitude bounds
 					double minL = testCentrum[6]*Math.PI/numSym;
 					double maxL = testCentrum[7]*Math.PI/numSym;
 					relCoords[1] = Math2.floorMod(relCoords[1]-minL, 2*Math.PI) + minL;
-					if (relCoords[1] < minL || relCoords[1] > maxL)
+					if (relCoords[1] < minL || relCoords[1] > maxL) {
+						rejected |= 1L << i;
 						continue; //ignore any longitudes not in the bounds described in [6:7]
+					}
 				}
-				
-				if (relCoords[0] > latR) { //pick the centrum that maxes out latitude
-					latR = relCoords[0];
-					lonR = relCoords[1];
-					centrum = testCentrum;
-				}
+				latR = relCoords[0];
+				lonR = relCoords[1];
+				centrum = testCentrum;
 			}
 			
 			final double lonR0 = Math.floor((lonR+Math.PI/numSym)/(2*Math.PI/numSym))
@@ -385,7 +393,8 @@ public class Polyhedral {
 			
 			double rM = Double.POSITIVE_INFINITY;
 			double[] centrum = null; //iterate to see which centrum we get
-			for (double[] testCentrum: configuration.centrumSet) {
+			for (int i: configuration.planarCandidates(x, y)) { //only the ones that could be nearest
+				final double[] testCentrum = configuration.centrumSet[i];
 				final double rR = Math.hypot(x-testCentrum[4], y-testCentrum[5]);
 				if (rR < rM) { //pick the centrum that minimises r
 					rM = rR;
@@ -505,7 +514,15 @@ public class Polyhedral {
 		public final double[][] centrumSet; //the mathematical information about this configuration
 		public final Type type; //holds the number of faces
 		
+		private final double[][] centrumNormals; //the unit vector pointing at each centrum's pole
+		private final int[] allCentrums; //the index of every centrum, in order
+		private final int[][][] planarIndex; //the centrums that might be nearest to each cell of a grid on the plane
+		private final double indexX0, indexY0, indexStep; //the corner and spacing of that grid
+		
 		private Configuration(int sphereSym, int planarSym, double width, double height, double[][] centrumSet) {
+			if (centrumSet.length > Long.SIZE) //nearestCentrum() keeps track of excluded centrums in the bits of a long
+				throw new IllegalArgumentException("A configuration can have at most "+Long.SIZE+
+						" centrums, not "+centrumSet.length);
 			this.width = width;
 			this.height = height;
 			this.sphereSym = sphereSym;
@@ -515,6 +532,85 @@ public class Polyhedral {
 				this.type = Type.TETRAHEDRAL;
 			else
 				this.type = Type.ICOSOHEDRAL;
+			
+			this.centrumNormals = new double[centrumSet.length][];
+			this.allCentrums = new int[centrumSet.length];
+			for (int i = 0; i < centrumSet.length; i ++) {
+				final double lat0 = centrumSet[i][0], lon0 = centrumSet[i][1];
+				centrumNormals[i] = new double[] {
+						Math.cos(lat0)*Math.cos(lon0), Math.cos(lat0)*Math.sin(lon0), Math.sin(lat0) };
+				allCentrums[i] = i;
+			}
+			
+			double xMin = -width/2, xMax = width/2, yMin = -height/2, yMax = height/2; //the grid must cover the map and all of the centrums
+			for (double[] centrum: centrumSet) {
+				xMin = Math.min(xMin, centrum[4]);
+				xMax = Math.max(xMax, centrum[4]);
+				yMin = Math.min(yMin, centrum[5]);
+				yMax = Math.max(yMax, centrum[5]);
+			}
+			this.indexX0 = xMin;
+			this.indexY0 = yMin;
+			this.indexStep = Math.max(xMax - xMin, yMax - yMin)/PLANAR_INDEX_RES;
+			this.planarIndex = new int[(int)Math.ceil((xMax - xMin)/indexStep)][(int)Math.ceil((yMax - yMin)/indexStep)][];
+			for (int i = 0; i < planarIndex.length; i ++) {
+				for (int j = 0; j < planarIndex[i].length; j ++) {
+					final double x0 = indexX0 + i*indexStep, y0 = indexY0 + j*indexStep;
+					final double[] dMin = new double[centrumSet.length];
+					double threshold = Double.POSITIVE_INFINITY; //no point in the cell is farther than this from its nearest centrum
+					for (int k = 0; k < centrumSet.length; k ++) {
+						final double cx = centrumSet[k][4], cy = centrumSet[k][5];
+						dMin[k] = Math.hypot(
+								Math.max(0, Math.max(x0 - cx, cx - x0 - indexStep)),
+								Math.max(0, Math.max(y0 - cy, cy - y0 - indexStep)));
+						threshold = Math.min(threshold, Math.hypot(
+								Math.max(Math.abs(x0 - cx), Math.abs(x0 + indexStep - cx)),
+								Math.max(Math.abs(y0 - cy), Math.abs(y0 + indexStep - cy))));
+					}
+					int n = 0;
+					final int[] candidates = new int[centrumSet.length];
+					for (int k = 0; k < centrumSet.length; k ++)
+						if (dMin[k] <= threshold) //keep them in order so that ties break the same way
+							candidates[n ++] = k;
+					planarIndex[i][j] = Arrays.copyOf(candidates, n);
+				}
+			}
+		}
+		
+		/**
+		 * Find the centrum whose pole is closest to the given point on the sphere, which is also
+		 * the one that maximises relative latitude.
+		 * @param point the Cartesian unit vector of the point
+		 * @param excluded a bitmask of centrums to skip, in which bit i stands for centrum i (there
+		 * 		are never more than 64 of them)
+		 * @return the index of the nearest centrum, or -1 if they are all excluded
+		 */
+		public int nearestCentrum(double[] point, long excluded) {
+			int best = -1;
+			double bestDot = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < centrumNormals.length; i ++) {
+				if ((excluded & (1L << i)) != 0) 	continue;
+				final double[] n = centrumNormals[i];
+				final double dot = n[0]*point[0] + n[1]*point[1] + n[2]*point[2];
+				if (dot > bestDot) { //ties go to the first one, like they always have
+					bestDot = dot;
+					best = i;
+				}
+			}
+			return best;
+		}
+		
+		/**
+		 * Narrow down which centrums could be nearest to the given point on the plane.
+		 * @return the indices of all centrums that need to be checked, in order
+		 */
+		public int[] planarCandidates(double x, double y) {
+			final int i = (int)Math.floor((x - indexX0)/indexStep);
+			final int j = (int)Math.floor((y - indexY0)/indexStep);
+			if (i >= 0 && i < planarIndex.length && j >= 0 && j < planarIndex[i].length)
+				return planarIndex[i][j];
+			else //off the grid, we have to check everything
+				return allCentrums;
 		}
 		
 		public double[] rotateOOB(double x, double y, double xCen, double yCen) { //move points that are out of bounds for project()
@@ -28,22 +28,30 @@ import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BooleanSupplier;
 import java.util.function.DoubleConsumer;
+import java.util.stream.IntStream;
 
 import image.SVGMap.Command;
 import image.SVGMap.Path;
 import utils.Math2;
+import utils.Metrics;
+import utils.RunningStatistics;
 
 /**
  * An object that transforms coordinates between spheres and planes.
  * 
  * @author jkunimune
  */
-public abstract class Projection {
+public abstract class Projection implements Cloneable {
 	
 	public static final double[] NORTH_POLE = {Math.PI/2, 0, 0};
 	
+	private static final int DISTORTION_PARTITIONS = 64; //the number of pieces into which to split distortion calculations
+	private static final int DISTORTION_CHUNK = 1024; //the number of points between progress updates when calculating distortion
+	private static final double MIRROR_TOLERANCE = 1e-9; //how close a point must be to the reflection of another to share its distortion
+	
 	
 	private final String name; //typically the name of the dude credited for it
 	private final String description; //a noun clause or sentence about it
@@ -60,6 +68,7 @@ public abstract class Projection {
 	private final Property property; //what it is good for
 	private final int rating; //how good I think it is
 	protected double width, height; //max(x)-min(x) and max(y)-min(y)
+	private double precision; //how closely iterative methods need to solve, or 0 for their own defaults
 	
 	
 	
@@ -344,8 +353,9 @@ public abstract class Projection {
 	}
 	
 	public double[] avgDistortion(double[][][] points) {
-		final double[][][] distDist = calculateDistortion(points);
-		return new double[] {Math2.stdDev(distDist[0]), Math2.rms(distDist[1])};
+		final RunningStatistics[] stats = calculateDistortionStatistics(points,
+				new RunningStatistics(), new RunningStatistics(), () -> false, (d) -> {});
+		return new double[] {stats[0].getStdDev(), stats[1].getRms()};
 	}
 	
 	
@@ -353,54 +363,204 @@ public abstract class Projection {
 		return calculateDistortion(points, () -> false, (d) -> {});
 	}
 	
+	/**
+	 * Calculate both kinds of distortion at every one of the given points. If this projection is
+	 * symmetric, and the matrix of points is its own reflection about the meridian or the
+	 * equator (as it is for a map with no oblique aspect), it only calculates the top or left
+	 * half of the matrix and copies the rest.
+	 * @param points the matrix of {lat, lon} at which to calculate; null means no map there
+	 * @param cancelation checked periodically; the calculation stops early when this is true
+	 * @param progressTracker receives the fraction of points that have been done
+	 * @return the matrix of size distortions (normalised so the mean is zero) and the matrix of
+	 * 		shape distortions, or null if the calculation was canceled
+	 */
 	public double[][][] calculateDistortion(double[][][] points,
-			BooleanSupplier cancelation, DoubleConsumer progressTracker) { //calculate both kinds of distortion over the given region
-		double[][][] output = new double[2][points.length][points[0].length]; //the distortion matrix
+			BooleanSupplier cancelation, DoubleConsumer progressTracker) {
+		final double[][][] output = new double[2][points.length][points[0].length]; //the distortion matrix
+		final boolean foldX = isMeridionallySymmetric() && isMirrored(points, false);
+		final boolean foldY = isEquatoriallySymmetric() && isMirrored(points, true);
+		final double[][][] fundamental = new double[foldY ? (points.length+1)/2 : points.length][][]; //the part that must be calculated
+		for (int y = 0; y < fundamental.length; y ++)
+			fundamental[y] = foldX ? Arrays.copyOf(points[y], (points[y].length+1)/2) : points[y];
+		RunningStatistics size = new RunningStatistics();
+		if (!sweepDistortion(fundamental, output, size, new RunningStatistics(),
+				cancelation, progressTracker))
+			return null;
+		
+		if (foldX || foldY) { //copy the rest from its reflection, and redo the statistics with it
+			size = new RunningStatistics();
+			for (int y = 0; y < points.length; y ++) {
+				final int yc = foldY ? Math.min(y, points.length-1 - y) : y;
+				for (int x = 0; x < points[y].length; x ++) {
+					final int xc = foldX ? Math.min(x, points[y].length-1 - x) : x;
+					output[0][y][x] = output[0][yc][xc];
+					output[1][y][x] = output[1][yc][xc];
+					size.add(output[0][y][x]);
+				}
+			}
+		}
 		
+		final double avgArea = size.getMean(); //don't forget to normalize output[0] so the average is zero
+		IntStream.range(0, output[0].length).parallel().forEach((y) -> {
+			for (int x = 0; x < output[0][y].length; x ++)
+				output[0][y][x] -= avgArea;
+		});
+		return output;
+	}
+	
+	/**
+	 * Check whether a matrix of points is the same as its reflection about the meridian or the
+	 * equator, to within MIRROR_TOLERANCE.
+	 * @param points the matrix of {lat, lon}; null means no map there
+	 * @param vertically whether to reflect it top-to-bottom rather than left-to-right
+	 * @return true if every point is the reflection of the one opposite it
+	 */
+	private static boolean isMirrored(double[][][] points, boolean vertically) {
 		for (int y = 0; y < points.length; y ++) {
-			if (cancelation.getAsBoolean()) 	return null;
-			progressTracker.accept((double)y/points.length);
+			if (points[y].length != points[0].length)
+				return false;
 			for (int x = 0; x < points[y].length; x ++) {
+				final double[] a = points[y][x];
+				final double[] b = vertically ?
+						points[points.length-1 - y][x] : points[y][points[y].length-1 - x];
+				if (a == null || b == null) {
+					if (a != b)
+						return false;
+				}
+				else if (!(Math.abs(a[0] - (vertically ? -b[0] : b[0])) <= MIRROR_TOLERANCE) ||
+						!(Math.abs(a[1] - (vertically ? b[1] : -b[1])) <= MIRROR_TOLERANCE)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Calculate statistics of both kinds of distortion over the given points, without ever
+	 * storing the distortion at each point. Use this rather than calculateDistortion() when you
+	 * don't need a picture. The size statistics are of the raw log-scale, so subtract the mean
+	 * from the histogram if you want it to be comparable to calculateDistortion().
+	 * @param points the matrix of {lat, lon} at which to calculate; null means no map there
+	 * @param size the statistics to which to add the size distortion
+	 * @param shape the statistics to which to add the shape distortion
+	 * @param cancelation checked periodically; the calculation stops early when this is true
+	 * @param progressTracker receives the fraction of points that have been done
+	 * @return {size, shape}, or null if the calculation was canceled
+	 */
+	public RunningStatistics[] calculateDistortionStatistics(double[][][] points,
+			RunningStatistics size, RunningStatistics shape,
+			BooleanSupplier cancelation, DoubleConsumer progressTracker) {
+		if (!sweepDistortion(points, null, size, shape, cancelation, progressTracker))
+			return null;
+		return new RunningStatistics[] {size, shape};
+	}
+	
+	/**
+	 * Calculate distortion at all of the given points, splitting them into a fixed number of
+	 * contiguous pieces and doing the pieces in parallel. The pieces' statistics are merged in
+	 * order, so the result is the same no matter how many processors there are.
+	 * @param output the matrix in which to save the distortion at each point, or null
+	 * @return true if it finished, false if it was canceled
+	 */
+	private boolean sweepDistortion(double[][][] points, double[][][] output,
+			RunningStatistics size, RunningStatistics shape,
+			BooleanSupplier cancelation, DoubleConsumer progressTracker) {
+		final long[] rowStart = new long[points.length+1]; //the flattened index of each row
+		for (int y = 0; y < points.length; y ++)
+			rowStart[y+1] = rowStart[y] + points[y].length;
+		final long numPoints = rowStart[points.length];
+		final long timer = Metrics.start();
+		
+		final RunningStatistics[][] partials = new RunningStatistics[DISTORTION_PARTITIONS][];
+		final AtomicBoolean canceled = new AtomicBoolean(false);
+		final long[] done = {0};
+		IntStream.range(0, DISTORTION_PARTITIONS).parallel().forEach((p) -> {
+			final long start = numPoints*p/DISTORTION_PARTITIONS;
+			final long end = numPoints*(p+1)/DISTORTION_PARTITIONS;
+			final RunningStatistics sizePart = size.emptyCopy(), shapePart = shape.emptyCopy();
+			int y = 0;
+			while (rowStart[y+1] <= start && y < points.length-1) 	y ++;
+			int x = (int)(start - rowStart[y]);
+			long nans = 0;
+			for (long i = start; i < end; i ++) {
+				if ((i - start)%DISTORTION_CHUNK == 0) {
+					if (canceled.get() || cancelation.getAsBoolean()) {
+						canceled.set(true);
+						return;
+					}
+					synchronized (done) {
+						done[0] += Math.min(DISTORTION_CHUNK, end - i);
+						progressTracker.accept((double)done[0]/numPoints);
+					}
+				}
+				while (x >= points[y].length) { //skip to the next row when you run out
+					y ++;
+					x = 0;
+				}
+				
+				final double[] dists;
 				if (points[y][x] != null) {
-					final double[] dists = getDistortionAt(points[y][x]);
+					dists = getDistortionAt(points[y][x]);
+					if (Double.isNaN(dists[0]) || Double.isNaN(dists[1]))
+						nans ++;
+				}
+				else
+					dists = new double[] {Double.NaN, Double.NaN}; //NaN means no map here
+				sizePart.add(dists[0]); //NaN values are ignored in the statistics
+				shapePart.add(dists[1]);
+				if (output != null) {
 					output[0][y][x] = dists[0]; //the output matrix has two layers:
 					output[1][y][x] = dists[1]; //area and angular distortion
 				}
-				else {
-					output[0][y][x] = Double.NaN;
-					output[1][y][x] = Double.NaN; //NaN means no map here
-				}
+				x ++;
 			}
+			partials[p] = new RunningStatistics[] {sizePart, shapePart};
+			Metrics.count("distortion.nan", nans);
+		});
+		if (canceled.get()) 	return false;
+		Metrics.stop("distortion", timer, numPoints);
+		
+		for (RunningStatistics[] partial: partials) { //combine these in order so that the result does not depend on the scheduling
+			size.merge(partial[0]);
+			shape.merge(partial[1]);
 		}
-		
-		final double avgArea = Math2.mean(output[0]); //don't forget to normalize output[0] so the average is zero
-		for (int y = 0; y < output[0].length; y ++)
-			for (int x = 0; x < output[0][y].length; x ++)
-				output[0][y][x] -= avgArea;
-		
-		return output;
+		return true;
 	}
 	
 	
 	public double[] getDistortionAt(double[] s0) { //calculate both kinds of distortion at the given point
 		final double[] output = new double[2];
-		final double dx = 1e-8;
-		
-		final double[] sC = { s0[0]+dx, s0[1] }; //first, step to the side a bit to help us avoid interruptions
-		final double[] sE = { sC[0], sC[1]+dx/Math.cos(sC[0]) }; //consider a point slightly to the east
-		final double[] sN = { sC[0]+dx, sC[1] }; //and slightly to the north
-		final double[] pC = project(sC);
-		final double[] pE = project(sE);
-		final double[] pN = project(sN);
-		
-		final double dA = 
-				(pE[0]-pC[0])*(pN[1]-pC[1]) - (pE[1]-pC[1])*(pN[0]-pC[0]);
-		output[0] = Math.log(Math.abs(dA/(dx*dx))); //the zeroth output is the size (area) distortion
+		final double xE, yE, xN, yN; //the images of unit vectors pointing east and north
+		
+		final double[] jac = jacobian(s0[0], s0[1]);
+		if (jac != null) { //if we know the derivatives exactly, use them
+			xN = jac[0];
+			xE = jac[1]/Math.cos(s0[0]);
+			yN = jac[2];
+			yE = jac[3]/Math.cos(s0[0]);
+		}
+		else { //otherwise, take finite differences
+			final double dx = 1e-8;
+			final double[] sC = { s0[0]+dx, s0[1] }; //first, step to the side a bit to help us avoid interruptions
+			final double[] sE = { sC[0], sC[1]+dx/Math.cos(sC[0]) }; //consider a point slightly to the east
+			final double[] sN = { sC[0]+dx, sC[1] }; //and slightly to the north
+			final double[] pC = project(sC);
+			final double[] pE = project(sE);
+			final double[] pN = project(sN);
+			xE = (pE[0]-pC[0])/dx;
+			yE = (pE[1]-pC[1])/dx;
+			xN = (pN[0]-pC[0])/dx;
+			yN = (pN[1]-pC[1])/dx;
+		}
+		
+		final double dA = xE*yN - yE*xN;
+		output[0] = Math.log(Math.abs(dA)); //the zeroth output is the size (area) distortion
 		if (Math.abs(output[0]) > 25)
 			output[0] = Double.NaN; //discard outliers
 		
-		final double s1ps2 = Math.hypot((pE[0]-pC[0])+(pN[1]-pC[1]), (pE[1]-pC[1])-(pN[0]-pC[0]));
-		final double s1ms2 = Math.hypot((pE[0]-pC[0])-(pN[1]-pC[1]), (pE[1]-pC[1])+(pN[0]-pC[0]));
+		final double s1ps2 = Math.hypot(xE+yN, yE-xN);
+		final double s1ms2 = Math.hypot(xE-yN, yE+xN);
 		output[1] = Math.abs(Math.log(Math.abs((s1ps2-s1ms2)/(s1ps2+s1ms2)))); //the first output is the shape (angle) distortion
 		if (output[1] > 25)
 			output[1] = Double.NaN; //discard outliers
@@ -409,6 +569,118 @@ public abstract class Projection {
 	}
 	
 	
+	/**
+	 * Calculate the partial derivatives of the projection at a point, for those projections
+	 * where they are known in closed form. This is one evaluation instead of the three that
+	 * finite differences take, and it doesn't suffer from roundoff or interruptions.
+	 * @param lat the latitude of the point
+	 * @param lon the longitude of the point
+	 * @return { dx/dlat, dx/dlon, dy/dlat, dy/dlon }, or null if they are not known here and
+	 * 		should be found numerically
+	 */
+	public double[] jacobian(double lat, double lon) {
+		return null;
+	}
+	
+	
+	/**
+	 * Convert Cartesian coordinates to spherical, given the answer at a point nearby. Projections
+	 * whose inverse is iterative start from the hint instead of their usual first guess, and fall
+	 * back to that guess if it doesn't converge. Neighbouring samples of a raster map are close
+	 * enough that they usually only need a step or two this way. Other projections ignore the hint.
+	 * @param x the x coordinate
+	 * @param y the y coordinate
+	 * @param hint the result of inverse(x, y) at some point near x and y, or null
+	 * @return the same thing inverse(x, y) would, to within this projection's tolerance
+	 */
+	public double[] inverseNear(double x, double y, double[] hint) {
+		return inverse(x, y);
+	}
+	
+	
+	/**
+	 * Choose how closely an iterative method needs to solve. This is whatever precision the
+	 * renderer set, or the default the method was tuned for if it didn't set one.
+	 * @param defaultTolerance the largest error in x and y this method would accept by itself
+	 * @return the largest error in x and y to accept now
+	 */
+	protected final double tolerance(double defaultTolerance) {
+		return (precision > 0) ? precision : defaultTolerance;
+	}
+	
+	
+	/**
+	 * Do the part of the inverse that depends only on y, for those projections that are
+	 * separable: latitude is a function of y alone, and longitude is proportional to x along
+	 * each row, so that inverse(x, y) is { lat(y), x*k(y) }. Cylindrical and most
+	 * pseudocylindrical projections are like this, and a raster can be inverted one row at a
+	 * time instead of one pixel at a time.
+	 * @param y the y coordinate of the row
+	 * @return { lat(y), k(y) }, or null if this projection is not separable
+	 */
+	public double[] inverseRow(double y) {
+		return null;
+	}
+	
+	
+	/**
+	 * Describe the centre of this projection, for those projections that are radial: latitude
+	 * is a function of the distance from some centre alone, and longitude is proportional to
+	 * the angle about it. Azimuthal projections and most conic ones are like this. In terms of
+	 * the returned { y0, n, s }, with X = s*x and Y = s*y, inverse(x, y) is
+	 * { s*inverseRadius(r), s*atan2(X, y0-Y)/n } where r = hypot(X, y0-Y), or null if that
+	 * latitude is NaN or that longitude is more than PI.
+	 * @return { y0, n, s }, or null if this projection is not radial
+	 */
+	public double[] getRadialForm() {
+		return null;
+	}
+	
+	
+	/**
+	 * Find the latitude at a given distance from the centre, for radial projections.
+	 * @param r the distance from the centre (see getRadialForm())
+	 * @return the latitude, or NaN if that radius is off the map
+	 */
+	public double inverseRadius(double r) {
+		return Double.NaN;
+	}
+	
+	
+	/**
+	 * Say whether this projection is symmetric about its central meridian, meaning that
+	 * inverse(-x, y) is { lat, -lon } wherever inverse(x, y) is { lat, lon }. Only half of such a
+	 * map needs to be inverted; the other half is its mirror image. By default, this goes by the
+	 * Type: cylindrical, pseudocylindrical, pseudoazimuthal, azimuthal, and conic projections
+	 * are all symmetric this way.
+	 * @return true if the right half of the map is the mirror image of the left
+	 */
+	public boolean isMeridionallySymmetric() {
+		switch (type) {
+		case CYLINDRICAL: case PSEUDOCYLINDRICAL: case PSEUDOAZIMUTHAL: case AZIMUTHAL: case CONIC:
+			return true;
+		default:
+			return false;
+		}
+	}
+	
+	
+	/**
+	 * Say whether this projection is symmetric about the equator, meaning that inverse(x, -y) is
+	 * { -lat, lon } wherever inverse(x, y) is { lat, lon }. By default, this goes by the Type:
+	 * cylindrical, pseudocylindrical, and pseudoazimuthal projections are symmetric this way.
+	 * @return true if the bottom half of the map is the mirror image of the top
+	 */
+	public boolean isEquatoriallySymmetric() {
+		switch (type) {
+		case CYLINDRICAL: case PSEUDOCYLINDRICAL: case PSEUDOAZIMUTHAL:
+			return true;
+		default:
+			return false;
+		}
+	}
+	
+	
 	/**
 	 * Calculate relative latitude and longitude for an oblique pole
 	 * @param coords the absolute coordinates
@@ -514,6 +786,19 @@ public abstract class Projection {
 		return new Oblique(this, name, aspect);
 	}
 	
+	/**
+	 * Make a copy of this projection whose parameters can be set independently of this one's,
+	 * so that the two can be used concurrently with different parameters.
+	 * @return a shallow copy of this; setParameters always replaces fields, so that is enough.
+	 */
+	public Projection copy() {
+		try {
+			return (Projection) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e); //this can't happen because Projection is Cloneable
+		}
+	}
+	
 	
 	public final String getName() {
 		return this.name;
@@ -594,6 +879,22 @@ public abstract class Projection {
 		return this.height;
 	}
 	
+	/**
+	 * Say how small an error in x and y will be visible in the output, so that iterative
+	 * methods can stop there instead of at a tolerance hard-coded for some typical map size.
+	 * Renderers set this from their pixel size, which is looser than the defaults for previews
+	 * and tighter for posters. Projections with closed-form solutions ignore it.
+	 * @param precision the largest acceptable error, in the same units as x and y, or 0 to
+	 * 		go back to each method's own default
+	 */
+	public void setPrecision(double precision) {
+		this.precision = precision;
+	}
+	
+	public final double getPrecision() {
+		return this.precision;
+	}
+	
 	public final double getAspectRatio() {
 		return this.width/this.height;
 	}
@@ -43,7 +43,16 @@ public class Pseudocylindrical {
 		}
 		
 		public double[] inverse(double x, double y) {
-			return new double[] { y, x/Math.cos(y) };
+			final double[] row = inverseRow(y);
+			return new double[] {row[0], x*row[1]};
+		}
+		
+		public double[] inverseRow(double y) {
+			return new double[] { y, 1/Math.cos(y) };
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			return new double[] { -Math.sin(lat)*lon, Math.cos(lat), 1, 0 };
 		}
 	};
 	
@@ -63,10 +72,27 @@ public class Pseudocylindrical {
 		}
 		
 		public double[] inverse(double x, double y) {
+			final double[] row = inverseRow(y);
+			return new double[] {row[0], x*row[1]};
+		}
+		
+		public double[] inverseRow(double y) {
 			double tht = Math.asin(y);
 			return new double[] {
 					Math.asin((2*tht + Math.sin(2*tht))/Math.PI),
-					x/Math.cos(tht)*Math.PI/2 };
+					Math.PI/2/Math.cos(tht) };
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			double tht = NumericalAnalysis.newtonRaphsonApproximation(
+					Math.PI*Math.sin(lat), lat,
+					(t) -> (2*t + Math.sin(2*t)),
+					(t) -> (2 + 2*Math.cos(2*t)), 1e-6);
+			if (Double.isNaN(tht)) 	return null;
+			final double dthdlat = Math.PI*Math.cos(lat)/(2 + 2*Math.cos(2*tht));
+			return new double[] {
+					-lon/Math.PI*2*Math.sin(tht)*dthdlat, 2/Math.PI*Math.cos(tht),
+					Math.cos(tht)*dthdlat, 0 };
 		}
 	};
 	
@@ -93,12 +119,30 @@ public class Pseudocylindrical {
 		}
 		
 		public double[] inverse(double x, double y) {
+			final double[] row = inverseRow(y);
+			return new double[] {row[0], x*row[1]};
+		}
+		
+		public double[] inverseRow(double y) {
 			if (Math.abs(y) <= phiH)
-				return SINUSOIDAL.inverse(x, y);
-			else if (y > 0)
-				return MOLLWEIDE.inverse(x/scale, (y - phiH + yH)/scale);
+				return SINUSOIDAL.inverseRow(y);
+			final double[] row;
+			if (y > 0)
+				row = MOLLWEIDE.inverseRow((y - phiH + yH)/scale);
 			else
-				return MOLLWEIDE.inverse(x/scale, (y + phiH - yH)/scale);
+				row = MOLLWEIDE.inverseRow((y + phiH - yH)/scale);
+			row[1] /= scale;
+			return row;
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			if (Math.abs(lat) <= phiH)
+				return SINUSOIDAL.jacobian(lat, lon);
+			final double[] jac = MOLLWEIDE.jacobian(lat, lon);
+			if (jac != null)
+				for (int i = 0; i < jac.length; i ++)
+					jac[i] *= scale;
+			return jac;
 		}
 	};
 	
@@ -139,6 +183,22 @@ public class Pseudocylindrical {
 			}
 			return null;
 		}
+		
+		public double[] jacobian(double lat, double lon) {
+			int i = (lat > 0) ? 0 : 1;
+			for (int j = 0; j < edges[i].length; j ++)
+				if (lon <= edges[i][j])
+					return HOMOLOSINE.jacobian(lat, lon - centers[i][j]);
+			return null;
+		}
+		
+		public boolean isMeridionallySymmetric() {
+			return false;
+		}
+		
+		public boolean isEquatoriallySymmetric() {
+			return false;
+		}
 	};
 	
 	
@@ -155,10 +215,28 @@ public class Pseudocylindrical {
 		}
 		
 		public double[] inverse(double x, double y) {
+			final double[] row = inverseRow(y);
+			return new double[] {row[0], x*row[1]};
+		}
+		
+		public double[] inverseRow(double y) {
 			double tht = Math.asin(y);
 			return new double[] {
 					Math.asin((tht + Math.sin(2*tht)/2 + 2*Math.sin(tht))/(2+Math.PI/2)),
-					x/(1 + Math.cos(tht))*Math.PI };
+					Math.PI/(1 + Math.cos(tht)) };
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			double tht = NumericalAnalysis.newtonRaphsonApproximation(
+					(2+Math.PI/2)*Math.sin(lat), lat,
+					(t) -> (t + Math.sin(2*t)/2 + 2*Math.sin(t)),
+					(t) -> (1 + Math.cos(2*t) + 2*Math.cos(t)), 1e-4);
+			if (Double.isNaN(tht)) 	return null;
+			final double dthdlat =
+					(2+Math.PI/2)*Math.cos(lat)/(1 + Math.cos(2*tht) + 2*Math.cos(tht));
+			return new double[] {
+					-lon/Math.PI*Math.sin(tht)*dthdlat, (1+Math.cos(tht))/Math.PI,
+					Math.cos(tht)*dthdlat, 0 };
 		}
 		
 	};
@@ -177,8 +255,28 @@ public class Pseudocylindrical {
 		}
 		
 		public double[] inverse(double x, double y) {
+			final double[] row = inverseRow(y);
+			return new double[] {row[0], x*row[1]};
+		}
+		
+		public double[] inverseRow(double y) {
 			double psi = y/c1;
-			return new double[] {Math.asin(Math.sin(psi)/c2)/c3, x/c0/Math.cos(psi)};
+			return new double[] {Math.asin(Math.sin(psi)/c2)/c3, 1/c0/Math.cos(psi)};
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			double psi = Math.asin(c2*Math.sin(c3*lat));
+			double dpsidlat = c2*c3*Math.cos(c3*lat)/Math.cos(psi);
+			return new double[] {
+					-c0*lon*Math.sin(psi)*dpsidlat, c0*Math.cos(psi), c1*dpsidlat, 0 };
+		}
+		
+		public boolean isMeridionallySymmetric() {
+			return true;
+		}
+		
+		public boolean isEquatoriallySymmetric() {
+			return true;
 		}
 	};
 	
@@ -198,8 +296,32 @@ public class Pseudocylindrical {
 		}
 		
 		public double[] inverse(double x, double y) {
+			final double[] row = inverseRow(y);
+			return new double[] {row[0], x*row[1]};
+		}
+		
+		public double[] inverseRow(double y) {
 			double psi = Math.asin(y/c1);
-			return new double[] {Math.asin((2*psi + Math.sin(2*psi))/c2)/c3, x/c0/Math.cos(psi)};
+			return new double[] {Math.asin((2*psi + Math.sin(2*psi))/c2)/c3, 1/c0/Math.cos(psi)};
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			double psi = NumericalAnalysis.newtonRaphsonApproximation(
+					c2*Math.sin(c3*lat), Math.sin(lat)*Math.PI/3, (ps)->(2*ps + Math.sin(2*ps)),
+					(ps)->(2 + 2*Math.cos(2*ps)), 1e-5);
+			if (Double.isNaN(psi)) 	return null;
+			double dpsidlat = c2*c3*Math.cos(c3*lat)/(2 + 2*Math.cos(2*psi));
+			return new double[] {
+					-c0*lon*Math.sin(psi)*dpsidlat, c0*Math.cos(psi),
+					c1*Math.cos(psi)*dpsidlat, 0 };
+		}
+		
+		public boolean isMeridionallySymmetric() {
+			return true;
+		}
+		
+		public boolean isEquatoriallySymmetric() {
+			return true;
 		}
 	};
 	
@@ -213,7 +335,17 @@ public class Pseudocylindrical {
 		}
 		
 		public double[] inverse(double x, double y) {
-			return new double[] { y, x/1.5/Math.sqrt(1/3.-Math.pow(y/Math.PI, 2)) };
+			final double[] row = inverseRow(y);
+			return new double[] {row[0], x*row[1]};
+		}
+		
+		public double[] inverseRow(double y) {
+			return new double[] { y, 1/1.5/Math.sqrt(1/3.-Math.pow(y/Math.PI, 2)) };
+		}
+		
+		public double[] jacobian(double lat, double lon) {
+			final double root = Math.sqrt(1/3.-Math.pow(lat/Math.PI, 2));
+			return new double[] { -1.5*lon*lat/(Math.PI*Math.PI)/root, 1.5*root, 1, 0 };
 		}
 		
 	};
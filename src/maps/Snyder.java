@@ -61,23 +61,23 @@ public class Snyder {
 			if (lon > 0 && lon-2*Math.PI < LIMS[2]) 	lon = LIMS[2];
 			if (lon < 0 && lon > LIMS[3]) 	lon = LIMS[3];
 			
-			final double g = Math.sin(lat)*Math.sin(POLE[0]) + Math.cos(lat)*Math.cos(POLE[0])*Math.cos(lon-POLE[1]);
-			final double s = 2/(1+g);
-			final Complex z = new Complex(s*Math.cos(lat)*Math.sin(lon-POLE[1]), s*(Math.sin(lat)*Math.cos(POLE[0]) - Math.cos(lat)*Math.sin(POLE[0])*Math.cos(lon-POLE[1])));
-			final Complex p = f(z);
+			final Complex p = f(stereographic(lat, lon));
 			return new double[] { p.getRe(), p.getIm() };
 		}
 		
 		public double[] inverse(double x, double y) {
+			return inverseNear(x, y, null);
+		}
+		
+		public double[] inverseNear(double x, double y, double[] hint) {
 			final Complex p = new Complex(x, y);
-			Complex z = p; //initial guess
-			Complex error = f(z).minus(p);
-			for (int i = 0; error.abs() > TOLERANCE; i ++) {
-				if (i == 9) 	return null;
-				final Complex deriv = fp(z);
-				z = z.minus(error.divide(deriv));
-				error = f(z).minus(p);
-			}
+			Complex z = null;
+			if (hint != null)
+				z = solve(p, stereographic(hint[0], hint[1]), tolerance(TOLERANCE)); //start from the hint if there is one
+			if (z == null)
+				z = solve(p, p, tolerance(TOLERANCE)); //otherwise the initial guess is p
+			if (z == null)
+				return null;
 			double r = z.abs();
 			double phi = 2*Math.atan(r/2);
 			double lat = Math.asin(Math.cos(phi)*Math.sin(POLE[0]) + z.getIm()*Math.sin(phi)*Math.cos(POLE[0])/r);
@@ -87,19 +87,28 @@ public class Snyder {
 			if (lon < -Math.PI) 	lon += 2*Math.PI;
 			return new double[] {lat, lon};
 		}
-		
-		@Override
-		public double[] project(double lat, double lon, double[] pole) {
-			return super.project(lat, lon, null);
-		}
-		
-		@Override
-		public double[] inverse(double x, double y, double[] pole, boolean crop) {
-			return super.inverse(x, y, null, crop);
-		}
 	};
 	
 	
+	private static final Complex stereographic(double lat, double lon) { //the oblique stereographic projection to which the polynomial is applied
+		final double g = Math.sin(lat)*Math.sin(POLE[0]) + Math.cos(lat)*Math.cos(POLE[0])*Math.cos(lon-POLE[1]);
+		final double s = 2/(1+g);
+		return new Complex(s*Math.cos(lat)*Math.sin(lon-POLE[1]), s*(Math.sin(lat)*Math.cos(POLE[0]) - Math.cos(lat)*Math.sin(POLE[0])*Math.cos(lon-POLE[1])));
+	}
+	
+	
+	private static final Complex solve(Complex p, Complex z, double tolerance) { //invert the polynomial with Newton's method, or return null if it doesn't converge
+		Complex error = f(z).minus(p);
+		for (int i = 0; error.abs() > tolerance; i ++) {
+			if (i == 9) 	return null;
+			final Complex deriv = fp(z);
+			z = z.minus(error.divide(deriv));
+			error = f(z).minus(p);
+		}
+		return z;
+	}
+	
+	
 	private static final Complex f(Complex z) {
 		Complex p = new Complex();
 		for (int k = A.length-1; k >= 0; k --) {
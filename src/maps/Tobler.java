@@ -74,9 +74,14 @@ public class Tobler {
 		}
 		
 		public double[] inverse(double x, double y) {
+			final double[] row = inverseRow(y);
+			return new double[] {row[0], x*row[1]};
+		}
+		
+		public double[] inverseRow(double y) {
 			return new double[] {
 					Math.asin(Z[(int)Math.round(Math.abs(2*y/height)*(Z.length-1))])*Math.signum(y),
-					x / Math.abs(alpha + (1-alpha)*hyperEllipse(2*y/height)) };
+					1 / Math.abs(alpha + (1-alpha)*hyperEllipse(2*y/height)) };
 		}
 		
 		public double dZdY(double y) {
@@ -62,11 +62,25 @@ public final class WinkelTripel {
 		}
 		
 		public double[] inverse(double x, double y) {
+			return inverse(x, y,
+					y/2, x*(1 + Math.cos(y*Math.PI/2))/(2 + 2*Math.cos(stdParallel))); //inital guess is Eckert V
+		}
+		
+		public double[] inverseNear(double x, double y, double[] hint) {
+			if (hint != null) {
+				final double[] coords = inverse(x, y, hint[0], hint[1]);
+				if (coords != null)
+					return coords;
+			}
+			return inverse(x, y);
+		}
+		
+		private double[] inverse(double x, double y, double phi0, double lam0) {
 			return NumericalAnalysis.newtonRaphsonApproximation(
-					x, y,
-					y/2, x*(1 + Math.cos(y*Math.PI/2))/(2 + 2*Math.cos(stdParallel)), //inital guess is Eckert V
+					x, y, phi0, lam0,
 					this::f1pX, this::f2pY,
-					this::df1dphi, this::df1dlam, this::df2dphi, this::df2dlam, .001);
+					this::df1dphi, this::df1dlam, this::df2dphi, this::df2dlam,
+					Math.min(tolerance(.001), .001)); //any looser and points past the edge of the map start to converge
 		}
 		
 		private double f1pX(double phi, double lam) {
@@ -113,5 +127,13 @@ public final class WinkelTripel {
 			if (phi == 0 && lam == 0) 	return 1; //there's a hole here
 			return 1 - Math.pow(Math.cos(phi)*Math.cos(lam/2), 2);
 		}
+		
+		public boolean isMeridionallySymmetric() {
+			return true;
+		}
+		
+		public boolean isEquatoriallySymmetric() {
+			return true;
+		}
 	};
 }
@@ -65,13 +65,21 @@ public class Dixon {
 	 * the iterative algorithm specifically suggested by Lee for the inverse of 2sm(w/2)cm(w/2)
 	 */
 	public static Complex invFunc(Complex z) {
+		return invFunc(z, TOLERANCE);
+	}
+	
+	
+	/**
+	 * the same, but stopping when the step is smaller than tolerance instead of the default
+	 */
+	public static Complex invFunc(Complex z, double tolerance) {
 		Complex wi;
 		Complex wf = z; // TODO: I hear there's a rad new algorithm in town that can do this in a heartbeat (hopefully orders of maginutde faster
 		
 		do {
 			wi = wf;
 			wf = z.plus(wi.minus(leeFunc(wi)));
-		} while (wf.minus(wi).abs() > TOLERANCE);
+		} while (wf.minus(wi).abs() > tolerance);
 		
 		return wf;
 	}
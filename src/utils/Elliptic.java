@@ -32,9 +32,15 @@ import org.apache.commons.math3.complex.Complex;
  */
 public class Elliptic {
 
+	private static final double TOLERANCE = 1e-3;
+	
+	
 	public static final Complex F(Complex phi, final Complex k) { //series solution to incomplete elliptic integral of the first kind
-		final double TOLERANCE = 1e-3;
-		
+		return F(phi, k, TOLERANCE);
+	}
+	
+	
+	public static final Complex F(Complex phi, final Complex k, double tolerance) { //the same, summed until the terms are smaller than tolerance
 		Complex sum = Complex.ZERO;
 		Complex i_n = phi;
 		Complex delt;
@@ -47,7 +53,7 @@ public class Elliptic {
 			delt = i_n.multiply(Math.abs(Math2.combine(-.5, n))).multiply(k.pow(2.0 * n));
 			sum = sum.add(delt);
 			n ++;
-		} while (delt.abs() > TOLERANCE);
+		} while (delt.abs() > tolerance);
 		
 		return sum;
 	}
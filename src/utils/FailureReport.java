@@ -0,0 +1,143 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2026 Map-Projections contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A tally of the points at which a projection gave NaN, to be printed once at the end rather
+ * than a line at a time. It keeps the first few of those points as examples, and a coarse
+ * histogram of where on the input they were, so that a projection that fails everywhere looks
+ * different from one that only fails along an edge.
+ * 
+ * @author Map-Projections contributors
+ */
+public class FailureReport {
+	
+	public static final int MAX_EXAMPLES = 8; //the number of failed points to remember
+	public static final int HEATMAP_WIDTH = 36, HEATMAP_HEIGHT = 12; //the number of cells across and down the heatmap
+	private static final String SHADES = ".:-=+*#%@"; //the characters for increasingly common failures in the heatmap
+	
+	private final String description; //what was being done when it failed
+	private final double minX, maxX, minY, maxY; //the extent of the inputs
+	private final List<double[]> examples = new ArrayList<double[]>(MAX_EXAMPLES); //the first few {inX, inY, outX, outY}
+	private final long[][] heatmap = new long[HEATMAP_HEIGHT][HEATMAP_WIDTH]; //the number of failures in each part of the input
+	private long count = 0; //the total number of failures
+	
+	
+	/**
+	 * Start an empty report.
+	 * @param description - What is failing, like "Mollweide inverse".
+	 * @param minX - The least x value that could be put in.
+	 * @param maxX - The greatest x value that could be put in.
+	 * @param minY - The least y value that could be put in.
+	 * @param maxY - The greatest y value that could be put in.
+	 */
+	public FailureReport(String description, double minX, double maxX, double minY, double maxY) {
+		this.description = description;
+		this.minX = minX;
+		this.maxX = maxX;
+		this.minY = minY;
+		this.maxY = maxY;
+	}
+	
+	
+	/**
+	 * Note a point where it failed.
+	 * @param inX - The x value that was put in.
+	 * @param inY - The y value that was put in.
+	 * @param outX - The x value that came out.
+	 * @param outY - The y value that came out.
+	 */
+	public synchronized void add(double inX, double inY, double outX, double outY) {
+		if (examples.size() < MAX_EXAMPLES)
+			examples.add(new double[] {inX, inY, outX, outY});
+		final int i = (int)Math.floor((maxY - inY)/(maxY - minY)*HEATMAP_HEIGHT);
+		final int j = (int)Math.floor((inX - minX)/(maxX - minX)*HEATMAP_WIDTH);
+		heatmap[Math.max(0, Math.min(HEATMAP_HEIGHT-1, i))][Math.max(0, Math.min(HEATMAP_WIDTH-1, j))] ++;
+		count ++;
+	}
+	
+	
+	public synchronized long getCount() {
+		return count;
+	}
+	
+	
+	/**
+	 * @return the first few failed points, as {inX, inY, outX, outY}
+	 */
+	public synchronized List<double[]> getExamples() {
+		return new ArrayList<double[]>(examples);
+	}
+	
+	
+	/**
+	 * Print this to standard error, if there were any failures.
+	 * @param total - The total number of points that were tried.
+	 */
+	public synchronized void print(long total) {
+		if (count > 0)
+			System.err.print(toString(total));
+	}
+	
+	
+	/**
+	 * Describe the failures: how many there were, some examples, and a map of where they were,
+	 * with the top of the input at the top.
+	 * @param total - The total number of points that were tried.
+	 * @return a few lines of text, each ending in a newline
+	 */
+	public synchronized String toString(long total) {
+		final StringBuilder s = new StringBuilder();
+		s.append(description).append(" returned NaN at ").append(count).append(" of ")
+				.append(total).append(" points, such as:\n");
+		for (double[] example: examples)
+			s.append("  ").append(example[0]).append(",").append(example[1]).append(" -> ")
+					.append(example[2]).append(",").append(example[3]).append("\n");
+		long max = 0;
+		for (long[] row: heatmap)
+			for (long n: row)
+				max = Math.max(max, n);
+		for (long[] row: heatmap) {
+			s.append("  |");
+			for (long n: row) {
+				if (n == 0)
+					s.append(' ');
+				else
+					s.append(SHADES.charAt((int)Math.round((SHADES.length() - 1)*(double)n/max)));
+			}
+			s.append("|\n");
+		}
+		return s.toString();
+	}
+	
+	
+	@Override
+	public String toString() {
+		return toString(count);
+	}
+	
+}
@@ -0,0 +1,318 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2026 Map-Projections contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A record of where the time goes when making maps. Each stage of a render (inverting the
+ * projection, sampling the input, blending, writing the file, and so on) adds up its time and
+ * the number of points it handled, and anything else worth knowing can be counted or put in a
+ * histogram. It is off unless the <code>maps.metrics</code> system property is set, and then
+ * it writes itself as JSON to the file that property names when the program exits. Every stage
+ * is also sent to Java Flight Recorder as a <code>maps.Stage</code> event, on JVMs that have it.
+ * While it's off, every method returns right away, so it can be left in the inner loops.
+ * 
+ * @author Map-Projections contributors
+ */
+public final class Metrics {
+	
+	public static final String PROPERTY = "maps.metrics"; //the system property that turns this on
+	
+	private static final int CALLS = 0, NANOS = 1, POINTS = 2; //the fields of each stage
+	private static final int COUNT = 0, SUM = 1, MAX = 2, BUCKETS = 3; //the fields of each histogram
+	
+	private static final ConcurrentMap<String, AtomicLongArray> stages = new ConcurrentSkipListMap<String, AtomicLongArray>();
+	private static final ConcurrentMap<String, AtomicLongArray> counters = new ConcurrentSkipListMap<String, AtomicLongArray>();
+	private static final ConcurrentMap<String, AtomicLongArray> histograms = new ConcurrentSkipListMap<String, AtomicLongArray>();
+	
+	private static volatile boolean enabled = false;
+	
+	static {
+		final String destination = System.getProperty(PROPERTY);
+		if (destination != null) {
+			enabled = true;
+			if (!destination.isEmpty() && !destination.equals("true")) {
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+					try {
+						writeJSON(new File(destination));
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				}));
+			}
+		}
+	}
+	
+	
+	private Metrics() {}
+	
+	
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	public static void setEnabled(boolean enabled) {
+		Metrics.enabled = enabled;
+	}
+	
+	/**
+	 * Forget everything that has been recorded so far.
+	 */
+	public static void reset() {
+		stages.clear();
+		counters.clear();
+		histograms.clear();
+	}
+	
+	
+	/**
+	 * Note the time at the start of a stage.
+	 * @return the current time in nanoseconds, or 0 if metrics are off
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+	
+	/**
+	 * Record the end of a stage that started at a time returned by start().
+	 * @param stage - The name of the stage.
+	 * @param start - The value start() returned.
+	 */
+	public static void stop(String stage, long start) {
+		stop(stage, start, 0);
+	}
+	
+	/**
+	 * Record the end of a stage that started at a time returned by start().
+	 * @param stage - The name of the stage.
+	 * @param start - The value start() returned.
+	 * @param points - The number of points or pixels it went through.
+	 */
+	public static void stop(String stage, long start, long points) {
+		if (start != 0)
+			record(stage, 1, System.nanoTime() - start, points);
+	}
+	
+	/**
+	 * Record some time spent in a stage that was timed elsewhere, such as in a loop that adds
+	 * up its own time so as not to record every iteration.
+	 * @param stage - The name of the stage.
+	 * @param calls - The number of times the stage was done.
+	 * @param nanos - The total time it took in nanoseconds.
+	 * @param points - The number of points or pixels it went through.
+	 */
+	public static void record(String stage, long calls, long nanos, long points) {
+		if (!enabled)	return;
+		final AtomicLongArray totals = get(stages, stage, 3);
+		totals.addAndGet(CALLS, calls);
+		totals.addAndGet(NANOS, nanos);
+		totals.addAndGet(POINTS, points);
+		if (Recorder.INSTANCE != null)
+			Recorder.INSTANCE.record(stage, nanos, points);
+	}
+	
+	
+	/**
+	 * Add to a counter.
+	 * @param counter - The name of the counter.
+	 * @param amount - The number to add to it.
+	 */
+	public static void count(String counter, long amount) {
+		if (!enabled || amount == 0)	return;
+		get(counters, counter, 1).addAndGet(0, amount);
+	}
+	
+	/**
+	 * Put a value in a histogram. The bins go by powers of two: 0, 1, 2-3, 4-7, and so on.
+	 * @param histogram - The name of the histogram.
+	 * @param value - The nonnegative value to add.
+	 */
+	public static void observe(String histogram, long value) {
+		if (!enabled)	return;
+		final AtomicLongArray bins = get(histograms, histogram, BUCKETS + 64);
+		bins.incrementAndGet(COUNT);
+		bins.addAndGet(SUM, value);
+		for (long max = bins.get(MAX); value > max && !bins.compareAndSet(MAX, max, value); max = bins.get(MAX));
+		bins.incrementAndGet(BUCKETS + 64 - Long.numberOfLeadingZeros(Math.max(0, value)));
+	}
+	
+	
+	private static AtomicLongArray get(ConcurrentMap<String, AtomicLongArray> map, String name, int length) {
+		final AtomicLongArray value = map.get(name);
+		if (value != null)
+			return value;
+		else
+			return map.computeIfAbsent(name, (k) -> new AtomicLongArray(length));
+	}
+	
+	
+	/**
+	 * @return everything recorded so far as a JSON object, with the stages, counters, and
+	 * 		histograms each in their own object, in alphabetical order.
+	 */
+	public static String toJSON() {
+		final StringBuilder s = new StringBuilder("{\n  \"stages\": {");
+		String sep = "\n";
+		for (Map.Entry<String, AtomicLongArray> entry: stages.entrySet()) {
+			final AtomicLongArray totals = entry.getValue();
+			final double seconds = totals.get(NANOS)/1e9;
+			s.append(sep).append("    ").append(jsonString(entry.getKey()))
+					.append(": {\"calls\": ").append(totals.get(CALLS))
+					.append(", \"seconds\": ").append(jsonNumber(seconds))
+					.append(", \"points\": ").append(totals.get(POINTS))
+					.append(", \"pointsPerSecond\": ").append(jsonNumber(totals.get(POINTS)/seconds))
+					.append("}");
+			sep = ",\n";
+		}
+		s.append("\n  },\n  \"counters\": {");
+		sep = "\n";
+		for (Map.Entry<String, AtomicLongArray> entry: counters.entrySet()) {
+			s.append(sep).append("    ").append(jsonString(entry.getKey()))
+					.append(": ").append(entry.getValue().get(0));
+			sep = ",\n";
+		}
+		s.append("\n  },\n  \"histograms\": {");
+		sep = "\n";
+		for (Map.Entry<String, AtomicLongArray> entry: histograms.entrySet()) {
+			final AtomicLongArray bins = entry.getValue();
+			s.append(sep).append("    ").append(jsonString(entry.getKey()))
+					.append(": {\"count\": ").append(bins.get(COUNT))
+					.append(", \"mean\": ").append(jsonNumber((double)bins.get(SUM)/bins.get(COUNT)))
+					.append(", \"max\": ").append(bins.get(MAX))
+					.append(", \"bins\": {");
+			String binSep = "";
+			for (int b = 0; b < 64; b ++) {
+				if (bins.get(BUCKETS + b) == 0)	continue;
+				final long lo = (b == 0) ? 0 : 1L << (b - 1), hi = (b == 0) ? 0 : (1L << b) - 1;
+				s.append(binSep).append(jsonString((lo == hi) ? lo+"" : lo+"-"+hi))
+						.append(": ").append(bins.get(BUCKETS + b));
+				binSep = ", ";
+			}
+			s.append("}}");
+			sep = ",\n";
+		}
+		s.append("\n  }\n}");
+		return s.toString();
+	}
+	
+	/**
+	 * Save everything recorded so far as JSON.
+	 * @param file - The destination.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static void writeJSON(File file) throws IOException {
+		try (PrintStream out = new PrintStream(file, "UTF-8")) {
+			out.println(toJSON());
+		}
+	}
+	
+	
+	private static String jsonString(String s) {
+		return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+	}
+	
+	
+	private static String jsonNumber(double x) {
+		return Double.isFinite(x) ? Double.toString(x) : "null"; //JSON has no NaN or infinity
+	}
+	
+	
+	/**
+	 * The connection to Java Flight Recorder. Java 8 doesn't have it, so this finds it by
+	 * reflection and defines its event type at run time rather than depending on jdk.jfr. It
+	 * isn't set up until the first stage is recorded.
+	 */
+	private static final class Recorder {
+		
+		private static final Recorder INSTANCE = create(); //null if there's no flight recorder
+		
+		private final Object factory; //the jdk.jfr.EventFactory that makes the events
+		private final Method newEvent, set, commit;
+		
+		private Recorder(Object factory, Method newEvent, Method set, Method commit) {
+			this.factory = factory;
+			this.newEvent = newEvent;
+			this.set = set;
+			this.commit = commit;
+		}
+		
+		/**
+		 * @return a Recorder that makes maps.Stage events, or null if this JVM can't.
+		 */
+		private static Recorder create() {
+			try {
+				final Class<?> annotationType = Class.forName("jdk.jfr.AnnotationElement");
+				final Class<?> valueType = Class.forName("jdk.jfr.ValueDescriptor");
+				final Class<?> factoryType = Class.forName("jdk.jfr.EventFactory");
+				final Class<?> eventType = Class.forName("jdk.jfr.Event");
+				final Constructor<?> annotation = annotationType.getConstructor(Class.class, Object.class);
+				final Constructor<?> value = valueType.getConstructor(Class.class, String.class, List.class);
+				final Class<?> label = Class.forName("jdk.jfr.Label");
+				
+				final List<Object> annotations = Arrays.asList(
+						annotation.newInstance(Class.forName("jdk.jfr.Name"), "maps.Stage"),
+						annotation.newInstance(label, "Map Stage"),
+						annotation.newInstance(Class.forName("jdk.jfr.Category"), new String[] {"Map Projections"}));
+				final List<Object> fields = Arrays.asList(
+						value.newInstance(String.class, "stage", Arrays.asList(
+								annotation.newInstance(label, "Stage"))),
+						value.newInstance(long.class, "time", Arrays.asList(
+								annotation.newInstance(label, "Time"),
+								annotation.newInstance(Class.forName("jdk.jfr.Timespan"), "NANOSECONDS"))),
+						value.newInstance(long.class, "points", Arrays.asList(
+								annotation.newInstance(label, "Points"))));
+				final Object factory = factoryType.getMethod("create", List.class, List.class)
+						.invoke(null, annotations, fields);
+				return new Recorder(factory, factoryType.getMethod("newEvent"),
+						eventType.getMethod("set", int.class, Object.class), eventType.getMethod("commit"));
+			} catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+				return null; //it's fine; there's just no flight recorder
+			}
+		}
+		
+		private void record(String stage, long nanos, long points) {
+			try {
+				final Object event = newEvent.invoke(factory);
+				set.invoke(event, 0, stage);
+				set.invoke(event, 1, nanos);
+				set.invoke(event, 2, points);
+				commit.invoke(event);
+			} catch (ReflectiveOperationException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+}
@@ -36,6 +36,8 @@ import de.jtem.mfc.field.Complex;
  * @author jkunimune
  */
 public class NumericalAnalysis {
+	
+	private static final int MAX_BRACKETED_ITERATIONS = 100; //the most steps a bracketed method takes before settling for what it has
 
 	/**
 	 * Performs a definite integral using Simpson's rule and a constant step size
@@ -168,6 +170,138 @@ public class NumericalAnalysis {
 	}
 	
 	
+	/**
+	 * Applies Brent's method to find x such that f(x)=0. It keeps the zero bracketed like
+	 * bisection does, but takes secant and inverse quadratic steps wherever they make progress,
+	 * so it usually needs a handful of evaluations where bisection would need dozens.
+	 * @param f The function whose zero must be found
+	 * @param xMin The lower bound for the zero
+	 * @param xMax The upper bound for the zero
+	 * @param tolerance The maximum error in x that this can return
+	 * @return The value of x that sets f to zero
+	 */
+	public static final double brentFind(DoubleUnaryOperator f,
+			double xMin, double xMax, double tolerance) {
+		double a = xMin, b = xMax, c = xMax;
+		double fa = f.applyAsDouble(a), fb = f.applyAsDouble(b), fc = fb;
+		if (fa == 0) 	return a;
+		if (fb == 0) 	return b;
+		if ((fa < 0) == (fb < 0))
+			throw new IllegalArgumentException("Brent's method failed; bounds "+xMin+" and "+xMax+" do not necessarily straddle a zero.");
+		double d = b - a, e = d; //the last step and the one before it
+		double checkpoint = Math.abs(b - a); //the width of the bracket two steps ago
+		int i;
+		for (i = 0; i < MAX_BRACKETED_ITERATIONS; i ++) {
+			if ((fb > 0) == (fc > 0)) { //make sure b and c straddle the zero
+				c = a;
+				fc = fa;
+				d = e = b - a;
+			}
+			if (Math.abs(fc) < Math.abs(fb)) { //and that b is the better guess
+				a = b;	b = c;	c = a;
+				fa = fb;	fb = fc;	fc = fa;
+			}
+			final double tol = 2*Math.ulp(b) + tolerance/2;
+			final double m = (c - b)/2;
+			if (Math.abs(m) <= tol || fb == 0)
+				break;
+			
+			boolean stalled = false; //interpolation can creep along very slowly near a multiple zero, so every other step
+			if (i%2 == 1) { //make sure the bracket has shrunk at least as much as one bisection would have shrunk it
+				stalled = 2*Math.abs(m) > checkpoint/2;
+				checkpoint = 2*Math.abs(m);
+			}
+			if (!stalled && Math.abs(e) >= tol && Math.abs(fa) > Math.abs(fb)) { //try interpolating
+				final double s = fb/fa;
+				double p, q;
+				if (a == c) { //secant
+					p = 2*m*s;
+					q = 1 - s;
+				}
+				else { //inverse quadratic
+					final double r = fb/fc;
+					q = fa/fc;
+					p = s*(2*m*q*(q - r) - (b - a)*(r - 1));
+					q = (q - 1)*(r - 1)*(s - 1);
+				}
+				if (p > 0) 	q = -q;
+				else 		p = -p;
+				if (2*p < Math.min(3*m*q - Math.abs(tol*q), Math.abs(e*q))) { //accept it if it stays in bounds and converges quickly enough
+					e = d;
+					d = p/q;
+				}
+				else { //otherwise bisect
+					d = e = m;
+				}
+			}
+			else {
+				d = e = m;
+			}
+			a = b;
+			fa = fb;
+			b += (Math.abs(d) > tol) ? d : Math.copySign(tol, m);
+			fb = f.applyAsDouble(b);
+		}
+		Metrics.observe("brent.iterations", i);
+		return b;
+	}
+	
+	
+	/**
+	 * Applies Newton's method in one dimension to find x such that f(x)=0, falling back to
+	 * bisection whenever a step would leave the bracket or fails to halve the error. Unlike
+	 * newtonRaphsonApproximation, it always converges as long as the bounds straddle a zero.
+	 * @param f The function whose zero must be found
+	 * @param dfdx The derivative of f with respect to x
+	 * @param xMin The lower bound for the zero
+	 * @param xMax The upper bound for the zero
+	 * @param x0 Initial guess for x; if it is not between the bounds, the midpoint is used
+	 * @param tolerance The maximum error in x that this can return
+	 * @return The value of x that sets f to zero, or NaN if f is NaN somewhere along the way
+	 */
+	public static final double newtonBisectionFind(DoubleUnaryOperator f, DoubleUnaryOperator dfdx,
+			double xMin, double xMax, double x0, double tolerance) {
+		final double fMin = f.applyAsDouble(xMin), fMax = f.applyAsDouble(xMax);
+		if (fMin == 0) 	return xMin;
+		if (fMax == 0) 	return xMax;
+		if ((fMin < 0) == (fMax < 0))
+			throw new IllegalArgumentException("Newton's method failed; bounds "+xMin+" and "+xMax+" do not necessarily straddle a zero.");
+		double lo = (fMin < 0) ? xMin : xMax; //the bound where f is negative
+		double hi = (fMin < 0) ? xMax : xMin; //the bound where f is positive
+		
+		double x = (x0 > Math.min(xMin, xMax) && x0 < Math.max(xMin, xMax)) ? x0 : (xMin + xMax)/2;
+		double dxOld = Math.abs(xMax - xMin), dx = dxOld; //the last step and the one before it
+		double fx = f.applyAsDouble(x);
+		double dfx = dfdx.applyAsDouble(x);
+		int i;
+		for (i = 0; i < MAX_BRACKETED_ITERATIONS; i ++) {
+			if (Double.isNaN(fx)) {
+				x = Double.NaN;
+				break;
+			}
+			if (!Double.isFinite(dfx) || ((x - hi)*dfx - fx)*((x - lo)*dfx - fx) > 0 ||
+					Math.abs(2*fx) > Math.abs(dxOld*dfx)) { //if Newton would leave the bracket or isn't converging fast enough, bisect
+				dxOld = dx;
+				dx = (hi - lo)/2;
+				x = lo + dx;
+			}
+			else {
+				dxOld = dx;
+				dx = fx/dfx;
+				x -= dx;
+			}
+			if (Math.abs(dx) < tolerance)
+				break;
+			fx = f.applyAsDouble(x);
+			dfx = dfdx.applyAsDouble(x);
+			if (fx < 0) 	lo = x;
+			else 			hi = x;
+		}
+		Metrics.observe("newton.iterations", i);
+		return x;
+	}
+	
+	
 	/**
 	 * Applies Newton's method in one dimension to solve for x such that f(x)=y
 	 * @param y Desired value for f
@@ -198,11 +332,13 @@ public class NumericalAnalysis {
 			double tolerance, double... constants) {
 		double x = x0;
 		double error = f.evaluate(x, constants) - y;
-		for (int i = 0; i < 8 && Math.abs(error) > tolerance; i ++) {
+		int i;
+		for (i = 0; i < 8 && Math.abs(error) > tolerance; i ++) {
 			double dydx = dfdx.evaluate(x, constants);
 			x -= error/dydx;
 			error = f.evaluate(x, constants) - y;
 		}
+		Metrics.observe("newton.iterations", i);
 		if (Math.abs(error) > tolerance)
 			return Double.NaN;
 		else
@@ -224,11 +360,13 @@ public class NumericalAnalysis {
 			Function<Complex, Complex> f, Function<Complex, Complex> dfdx, double tolerance) {
 		Complex x = x0;
 		Complex error = f.apply(x).minus(y);
-		for (int i = 0; i < 8 && error.abs() > tolerance; i ++) {
+		int i;
+		for (i = 0; i < 8 && error.abs() > tolerance; i ++) {
 			Complex dydx = dfdx.apply(x);
 			x.assignMinus(error.divide(dydx));
 			error = f.apply(x).minus(y);
 		}
+		Metrics.observe("newton.iterations", i);
 		if (error.abs() > tolerance)
 			return new Complex(Double.NaN);
 		else
@@ -291,7 +429,8 @@ public class NumericalAnalysis {
 		double f2my = f2.evaluate(phi, lam, constants) - y;
 		double error = Double.POSITIVE_INFINITY;
 		
-		for (int i = 0; i < 8 && error > tolerance; i++) {
+		int i;
+		for (i = 0; i < 8 && error > tolerance; i++) {
 			final double dF1dP = df1dp.evaluate(phi, lam, constants);
 			final double dF1dL = df1dl.evaluate(phi, lam, constants);
 			final double dF2dP = df2dp.evaluate(phi, lam, constants);
@@ -304,6 +443,7 @@ public class NumericalAnalysis {
 			f2my = f2.evaluate(phi, lam, constants) - y;
 			error = Math.hypot(f1mx, f2my);
 		}
+		Metrics.observe("newton.iterations", i);
 		
 		if (error > tolerance) // if it aborted due to timeout
 			return null;
@@ -0,0 +1,184 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2026 Map-Projections contributors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package utils;
+
+
+/**
+ * A set of summary statistics that can be built up one value at a time, so that the values
+ * themselves never need to be stored. It uses Welford's method, which doesn't lose precision
+ * when the variance is small compared to the mean, and two of them built from different values
+ * can be merged together, so the work can be split up among threads. It can optionally keep a
+ * fine histogram of the values as well.
+ * 
+ * @author Map-Projections contributors
+ */
+public class RunningStatistics {
+	
+	private double weight; //the total weight of the finite values added
+	private double mean; //the weighted mean of those values
+	private double m2; //the weighted sum of squared deviations from the mean
+	
+	private final double histMin, histStep; //the lower edge and width of the histogram bins
+	private final double[] hist; //the total weight in each histogram bin, or null if there is no histogram
+	
+	
+	/**
+	 * Create an empty set of statistics without a histogram.
+	 */
+	public RunningStatistics() {
+		this.histMin = 0;
+		this.histStep = 0;
+		this.hist = null;
+	}
+	
+	/**
+	 * Create an empty set of statistics with a histogram.
+	 * @param histMin the least value that will go in the histogram
+	 * @param histMax the greatest value that will go in the histogram
+	 * @param histStep the width of each bin; coarser histograms are made by combining these
+	 */
+	public RunningStatistics(double histMin, double histMax, double histStep) {
+		this.histMin = histMin;
+		this.histStep = histStep;
+		this.hist = new double[(int)Math.ceil((histMax - histMin)/histStep)];
+	}
+	
+	/**
+	 * @return a new empty set of statistics with the same histogram bins as this one
+	 */
+	public RunningStatistics emptyCopy() {
+		if (hist == null)
+			return new RunningStatistics();
+		else
+			return new RunningStatistics(histMin, histMin + hist.length*histStep, histStep);
+	}
+	
+	
+	/**
+	 * Include a value in the statistics. NaNs and infinities are ignored.
+	 * @param x the value
+	 */
+	public void add(double x) {
+		add(x, 1);
+	}
+	
+	/**
+	 * Include a weighted value in the statistics. NaNs and infinities are ignored.
+	 * @param x the value
+	 * @param w the weight of the value, like the area that it represents
+	 */
+	public void add(double x, double w) {
+		if (!Double.isFinite(x) || w == 0)
+			return;
+		weight += w;
+		final double delta = x - mean;
+		if (weight == w) //take the first value exactly, since the next line multiplies any rounding error in it by the whole value
+			mean = x;
+		else
+			mean += delta*w/weight;
+		m2 += w*delta*(x - mean);
+		
+		if (hist != null) {
+			final int i = (int)Math.floor((x - histMin)/histStep);
+			if (i >= 0 && i < hist.length)
+				hist[i] += w;
+		}
+	}
+	
+	/**
+	 * Include all of the values from another set of statistics in this one. The result doesn't
+	 * quite depend on the order in which things are merged, so merge them in a consistent order
+	 * if you want to be able to reproduce it exactly.
+	 * @param that the other statistics, which must have the same histogram bins as these
+	 */
+	public void merge(RunningStatistics that) {
+		if (that.weight == 0)
+			return;
+		final double total = this.weight + that.weight;
+		final double delta = that.mean - this.mean;
+		this.m2 += that.m2 + delta*delta*this.weight*that.weight/total;
+		this.mean = (this.weight == 0) ? that.mean : this.mean + delta*that.weight/total;
+		this.weight = total;
+		
+		if (this.hist != null)
+			for (int i = 0; i < hist.length; i ++)
+				this.hist[i] += that.hist[i];
+	}
+	
+	
+	public double getWeight() {
+		return this.weight;
+	}
+	
+	public double getMean() {
+		return this.mean;
+	}
+	
+	public double getVariance() {
+		return this.m2/this.weight;
+	}
+	
+	public double getStdDev() {
+		return Math.sqrt(getVariance());
+	}
+	
+	public double getRms() {
+		return Math.sqrt(getVariance() + mean*mean);
+	}
+	
+	
+	/**
+	 * Sort the values into a coarse histogram, whose bins are centred on evenly spaced values.
+	 * Each value goes in the bin whose centre is nearest to it. Fine bins that straddle the edge
+	 * of a coarse bin are split between the two in proportion to their overlap.
+	 * @param min the centre of the first bin
+	 * @param max the centre of the last bin
+	 * @param num the number of spaces between bins (there are num+1 bins)
+	 * @param shift an amount to subtract from every value first, like the mean
+	 * @return the fraction of the total weight that is in each bin
+	 */
+	public double[] getHistogram(double min, double max, int num, double shift) {
+		if (hist == null)
+			throw new IllegalStateException("These statistics were not set up to keep a histogram.");
+		final double[] output = new double[num+1];
+		for (int j = 0; j < hist.length; j ++) {
+			if (hist[j] == 0) 	continue;
+			final double u0 = (histMin + j*histStep - shift - min)/(max - min)*num + .5; //the edges of the fine bin in units of coarse bins
+			final double u1 = (histMin + (j+1)*histStep - shift - min)/(max - min)*num + .5;
+			final int i0 = (int)Math.floor(u0), i1 = (int)Math.floor(u1);
+			final double split = (i0 == i1) ? 1 : (i1 - u0)/(u1 - u0); //the part that goes in the lower coarse bin
+			if (i0 >= 0 && i0 <= num)
+				output[i0] += split*hist[j]/weight;
+			if (i1 != i0 && i1 >= 0 && i1 <= num)
+				output[i1] += (1 - split)*hist[j]/weight;
+		}
+		return output;
+	}
+	
+	
+	public String toString() {
+		return "RunningStatistics(mean="+getMean()+", std="+getStdDev()+", weight="+getWeight()+")";
+	}
+	
+}
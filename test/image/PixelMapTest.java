@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Map-Projections contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package image;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Checks that PixelMap and TruncatedPixelMap sample the right pixels, both directly and through
+ * the mip pyramid.
+ * 
+ * @author Map-Projections contributors
+ */
+public class PixelMapTest {
+	
+	public static void main(String[] args) throws IOException {
+		testPointSampling();
+		testTruncatedSampling();
+		testMipSampling();
+		System.out.println("PixelMapTest passed");
+	}
+	
+	
+	private static void testPointSampling() throws IOException { //the centre of each pixel should give that pixel
+		final BufferedImage img = gradient(40, 20);
+		final PixelMap map = new PixelMap(save(img));
+		for (int j = 0; j < img.getHeight(); j ++) {
+			for (int i = 0; i < img.getWidth(); i ++) {
+				final double lat = Math.PI*(.5 - (j + .5)/img.getHeight());
+				final double lon = 2*Math.PI*((i + .5)/img.getWidth() - .5);
+				assertEquals(img.getRGB(i, j), map.getArgb(lat, lon), "pixel ("+i+","+j+")");
+				assertEquals(img.getRGB(i, j), map.getArgb(lat, lon, 1e-6, 1e-6), "tiny patch at ("+i+","+j+")");
+			}
+		}
+	}
+	
+	
+	private static void testTruncatedSampling() throws IOException { //a truncated map's image covers only the northeast octant
+		final BufferedImage img = gradient(40, 20);
+		final PixelMap map = new TruncatedPixelMap(save(img));
+		for (int j = 0; j < img.getHeight(); j ++) {
+			for (int i = 0; i < img.getWidth(); i ++) {
+				final double lat = Math.PI/2*(1 - (j + .5)/img.getHeight());
+				final double lon = Math.PI/2*(i + .5)/img.getWidth();
+				assertEquals(img.getRGB(i, j), map.getArgb(lat, lon), "octant pixel ("+i+","+j+")");
+				assertEquals(img.getRGB(i, j), map.getArgb(lat, lon, 1e-6, 1e-6), "tiny octant patch at ("+i+","+j+")");
+			}
+		}
+		assertEquals(0, map.getArgb(-.5, .5), "south of the octant");
+		assertEquals(0, map.getArgb(.5, 2.), "east of the octant");
+		assertEquals(0, map.getArgb(-.5, .5, .5, .5), "patch south of the octant");
+		
+		final PixelMap uniform = new TruncatedPixelMap(save(solid(64, 32, 0xFF336699)));
+		for (double span = 1e-3; span < 1; span *= 2) //every level of the pyramid should be within the image, and unchanged
+			assertEquals(0xFF336699, uniform.getArgb(Math.PI/4, Math.PI/4, span, span), "uniform octant at span "+span);
+	}
+	
+	
+	private static void testMipSampling() throws IOException { //a patch much bigger than a pixel should get the average colour
+		final BufferedImage img = new BufferedImage(64, 32, BufferedImage.TYPE_INT_RGB);
+		for (int j = 0; j < img.getHeight(); j ++)
+			for (int i = 0; i < img.getWidth(); i ++)
+				img.setRGB(i, j, ((i + j)%2 == 0) ? 0xFFFFFF : 0x000000);
+		final PixelMap map = new PixelMap(save(img));
+		final int grey = (int) Math.round(255*Math.pow(.5, 1/2.2)); //half as bright, with gamma
+		final int expected = 0xFF000000 | grey << 16 | grey << 8 | grey;
+		for (double span = 4*Math.PI/32; span < Math.PI; span *= 2)
+			assertEquals(expected, map.getArgb(0, 0, span, span), "checkerboard at span "+span);
+		
+		final PixelMap uniform = new PixelMap(save(solid(64, 32, 0xFF336699)));
+		for (double span = 1e-3; span < 4; span *= 2)
+			for (double lon = -Math.PI; lon <= Math.PI; lon += Math.PI/8) //including either side of the antimeridian
+				assertEquals(0xFF336699, uniform.getArgb(1, lon, span, span), "uniform at span "+span);
+	}
+	
+	
+	private static BufferedImage gradient(int width, int height) { //an image in which every pixel is different
+		final BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for (int j = 0; j < height; j ++)
+			for (int i = 0; i < width; i ++)
+				img.setRGB(i, j, 0xFF000000 | (255*i/width) << 16 | (255*j/height) << 8 | 0x80);
+		return img;
+	}
+	
+	
+	private static BufferedImage solid(int width, int height, int argb) {
+		final BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for (int j = 0; j < height; j ++)
+			for (int i = 0; i < width; i ++)
+				img.setRGB(i, j, argb);
+		return img;
+	}
+	
+	
+	private static File save(BufferedImage img) throws IOException {
+		final File f = File.createTempFile("pixelmap", ".png");
+		f.deleteOnExit();
+		ImageIO.write(img, "png", f);
+		return f;
+	}
+	
+	
+	private static void assertEquals(int expected, int actual, String what) {
+		if (expected != actual)
+			throw new AssertionError(what+": expected "+Integer.toHexString(expected)+
+					" but got "+Integer.toHexString(actual));
+	}
+}
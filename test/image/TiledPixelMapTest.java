@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Map-Projections contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package image;
+
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Checks that TiledPixelMap gives the same pixels as ImageIO, both for the PNGs it decodes
+ * itself and for the other formats it reads with ImageIO.
+ *
+ * @author Map-Projections contributors
+ */
+public class TiledPixelMapTest {
+	
+	private static final int WIDTH = 301, HEIGHT = 270; //more than a tile each way, and not a whole number of tiles
+	
+	
+	public static void main(String[] args) throws IOException {
+		testPNG();
+		testOtherFormats();
+		System.out.println("TiledPixelMapTest passed");
+	}
+	
+	
+	private static void testPNG() throws IOException { //every kind of pixel a PNG can have
+		for (int type : new int[] {BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_USHORT_GRAY,
+				BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_ARGB,
+				BufferedImage.TYPE_BYTE_BINARY, BufferedImage.TYPE_BYTE_INDEXED})
+			check(pattern(new BufferedImage(WIDTH, HEIGHT, type)), "png", false, "type "+type);
+		check(pattern(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_BYTE_BINARY, palette())),
+				"png", false, "4-bit palette with transparency");
+		for (int bits : new int[] {2, 4})
+			check(pattern(ImageTypeSpecifier.createGrayscale(bits, DataBuffer.TYPE_BYTE, false)
+					.createBufferedImage(WIDTH, HEIGHT)), "png", false, bits+"-bit gray");
+		check(pattern(ImageTypeSpecifier.createGrayscale(8, DataBuffer.TYPE_BYTE, true, false)
+				.createBufferedImage(WIDTH, HEIGHT)), "png", false, "gray with alpha");
+		check(pattern(ImageTypeSpecifier.createInterleaved(ColorSpace.getInstance(ColorSpace.CS_sRGB),
+				new int[] {0, 1, 2, 3}, DataBuffer.TYPE_USHORT, true, false)
+				.createBufferedImage(WIDTH, HEIGHT)), "png", false, "16-bit RGBA");
+		check(pattern(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB)),
+				"png", true, "interlaced");
+	}
+	
+	
+	private static void testOtherFormats() throws IOException { //formats that go through ImageIO
+		check(pattern(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_3BYTE_BGR)),
+				"jpg", false, "JPEG");
+		check(pattern(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB)),
+				"tif", false, "TIFF");
+	}
+	
+	
+	/**
+	 * Save an image, tile it, and check that every pixel of the tiles matches the image as ImageIO
+	 * reads it. Pixels that are transparent in both may have any colour.
+	 * @param img - The image.
+	 * @param format - The ImageIO name of the format in which to save it.
+	 * @param interlace - Whether to save it progressively.
+	 * @param name - What to call this image if it fails.
+	 */
+	private static void check(BufferedImage img, String format, boolean interlace, String name)
+			throws IOException {
+		final File file = File.createTempFile("tiledpixelmap", "."+format);
+		final File tiles = File.createTempFile("tiledpixelmap", TiledPixelMap.EXTENSION);
+		file.deleteOnExit();
+		tiles.deleteOnExit();
+		final ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+		final ImageWriteParam param = writer.getDefaultWriteParam();
+		if (interlace)
+			param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+		try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+			writer.setOutput(out);
+			writer.write(null, new IIOImage(img, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		
+		final BufferedImage expected = ImageIO.read(file);
+		TiledPixelMap.tile(file, tiles);
+		final TiledPixelMap actual = new TiledPixelMap(tiles);
+		if (actual.getWidth() != expected.getWidth() || actual.getHeight() != expected.getHeight())
+			throw new AssertionError(name+" is "+actual.getWidth()+"x"+actual.getHeight()+" instead of "+
+					expected.getWidth()+"x"+expected.getHeight());
+		for (int j = 0; j < expected.getHeight(); j ++) {
+			for (int i = 0; i < expected.getWidth(); i ++) {
+				final int e = expected.getRGB(i, j), a = actual.getPixel(i, j);
+				if (e != a && (e >>> 24 != 0 || a >>> 24 != 0))
+					throw new AssertionError(name+" at ("+i+","+j+"): expected "+Integer.toHexString(e)+
+							" but got "+Integer.toHexString(a));
+			}
+		}
+	}
+	
+	
+	private static BufferedImage pattern(BufferedImage img) { //fill every band of an image with a different ramp
+		final WritableRaster raster = img.getRaster();
+		for (int j = 0; j < img.getHeight(); j ++) {
+			for (int i = 0; i < img.getWidth(); i ++) {
+				for (int b = 0; b < raster.getNumBands(); b ++) {
+					final long max = (1L << raster.getSampleModel().getSampleSize(b)) - 1;
+					raster.setSample(i, j, b, (int)((31L*i + 17L*j + 101L*b)*max/400 % (max + 1)));
+				}
+			}
+		}
+		return img;
+	}
+	
+	
+	private static IndexColorModel palette() { //a palette with one transparent colour and one translucent one
+		final byte[] r = new byte[16], g = new byte[16], b = new byte[16], a = new byte[16];
+		for (int k = 0; k < 16; k ++) {
+			r[k] = (byte)(17*k);
+			g[k] = (byte)(255 - 13*k);
+			b[k] = (byte)(7*k);
+			a[k] = (byte)((k == 3) ? 0 : (k == 5) ? 128 : 255);
+		}
+		return new IndexColorModel(4, 16, r, g, b, a);
+	}
+}
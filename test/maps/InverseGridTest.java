@@ -0,0 +1,427 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Map-Projections contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package maps;
+
+import java.util.Arrays;
+
+import utils.Math2;
+
+/**
+ * Checks that InverseGrid gives the same map as calling Projection.inverse() at every sample.
+ * Every sample it gives should be within a fraction of a sample of where it belongs, and the
+ * two may only disagree about whether a sample is on the map at the very edge of the map, or
+ * where inverse() fails to find a point that is there.
+ * 
+ * @author Map-Projections contributors
+ */
+public class InverseGridTest {
+	
+	private static final double[] NORMAL = {Math.PI/2, 0, 0}; //the normal aspect
+	private static final double[] OBLIQUE = {Math.toRadians(40), Math.toRadians(-30), Math.toRadians(20)}; //an aspect with nothing special about it
+	private static final int WIDTH = 300; //the width of each test map in samples
+	private static final Projection[] SYMMETRIC = {Pseudocylindrical.SINUSOIDAL,
+			Pseudocylindrical.HOMOLOSINE_INTERRUPTED, Pseudocylindrical.WAGNER_II,
+			Pseudocylindrical.WAGNER_V, Misc.BONNE, Lenticular.HAMMER, Lenticular.AITOFF,
+			Lenticular.VAN_DER_GRINTEN, Lenticular.POLYCONIC, Lenticular.EISENLOHR,
+			WinkelTripel.WINKEL_TRIPEL, Gyorffy.E, Cylindrical.MERCATOR.transverse(),
+			Pseudocylindrical.SINUSOIDAL.transverse()}; //projections that are symmetric, and ones that are notably not
+	private static final double GENUINE = .5; //how close to its sample a point must project to count as a real inverse, in samples
+	
+	
+	public static void main(String[] args) {
+		testPrecisionIsolated();
+		testPrecisionTakesEffect();
+		testPrecisionKeepsEdges();
+		testSeparable();
+		testRadial();
+		testSymmetry();
+		testMirrored();
+		testDistortionMirrored();
+		testWarmStart();
+		System.out.println("InverseGridTest passed");
+	}
+	
+	
+	private static void testPrecisionIsolated() { //setting the precision for one map shouldn't change anything else
+		final Projection winkel = setUp(WinkelTripel.WINKEL_TRIPEL)[0];
+		for (int width : new int[] {300, 3000}) {
+			final int height = (int) Math.round(width/winkel.getAspectRatio());
+			final InverseGrid grid = new InverseGrid(winkel, NORMAL, false, width, height, 1, false);
+			grid.row(height/2, 0, width);
+			assertEquals(0, winkel.getPrecision(), "precision after drawing at "+width);
+		}
+	}
+	
+	
+	private static void testPrecisionTakesEffect() { //setting the precision of a copy should change how closely that copy solves
+		for (Projection proj : setUp(Octohedral.CONFORMAL_CAHILL, Octohedral.CAHILL_CONCIALDI)) { //even when its faces are shared
+			final double[] xy = proj.project(.5, .3);
+			final double[] fine = proj.inverse(xy[0], xy[1]);
+			proj.setPrecision(1);
+			final double[] coarse = proj.inverse(xy[0], xy[1]);
+			proj.setPrecision(1e-12);
+			final double[] exact = proj.inverse(xy[0], xy[1]);
+			proj.setPrecision(0);
+			if (Arrays.equals(fine, coarse))
+				throw new AssertionError(proj.getName()+" ignored its precision");
+			if (!(distance(exact, new double[] {.5, .3}) <= 1e-9))
+				throw new AssertionError(proj.getName()+" couldn't solve closely: "+Arrays.toString(exact));
+		}
+	}
+	
+	
+	private static void testPrecisionKeepsEdges() { //solving less closely shouldn't change what's on the map
+		final Projection winkel = setUp(WinkelTripel.WINKEL_TRIPEL)[0];
+		final Comparison c = compare(winkel, NORMAL, false, WIDTH, false); //the edges of its extra lobes depend on how closely it solves
+		if (c.extra > 0 || c.missing > 0 || c.worst > .5)
+			throw new AssertionError("Winkel Tripel, uncropped, is wrong: "+c);
+	}
+	
+	
+	private static void testSeparable() { //separable projections should be inverted exactly, with one call per row
+		for (Projection proj : setUp(Cylindrical.MERCATOR, Pseudocylindrical.SINUSOIDAL,
+				Pseudocylindrical.MOLLWEIDE, EqualEarth.EQUAL_EARTH, Tobler.TOBLER,
+				ArbitraryPseudocylindrical.ROBINSON)) {
+			for (double[] aspect : new double[][] {NORMAL, OBLIQUE}) {
+				for (boolean crop : new boolean[] {true, false}) {
+					final Comparison c = check(proj.getName(), proj, aspect, crop, WIDTH, true, 0, 1e-4);
+					if (c.evaluations > Math.round(WIDTH/proj.getAspectRatio()))
+						throw new AssertionError(proj.getName()+" took "+c.evaluations+" evaluations");
+				}
+			}
+		}
+	}
+	
+	
+	private static void testRadial() { //radial projections should be looked up in a table, and rarely need inverse()
+		for (Projection proj : setUp(Azimuthal.STEREOGRAPHIC, Azimuthal.POLAR, Azimuthal.EQUAL_AREA,
+				Azimuthal.GNOMONIC, Azimuthal.ORTHOGRAPHIC, Conic.LAMBERT, Conic.EQUIDISTANT,
+				Conic.ALBERS)) {
+			for (double[] aspect : new double[][] {NORMAL, OBLIQUE}) {
+				for (boolean crop : new boolean[] {true, false}) {
+					final Comparison c = check(proj.getName(), proj, aspect, crop, WIDTH, true, 0, .25);
+					if (c.evaluations > c.shown/10)
+						throw new AssertionError(proj.getName()+" took "+c.evaluations+" evaluations");
+				}
+			}
+		}
+	}
+	
+	
+	private static void testSymmetry() { //projections that say they're symmetric should really be
+		for (Projection proj : setUp(SYMMETRIC)) {
+			final double w = proj.getWidth(), h = proj.getHeight();
+			for (int i = 0; i < 40; i ++) {
+				for (int j = 0; j < 40; j ++) {
+					final double x = ((i+.5)/40 - .5)*w, y = ((j+.5)/40 - .5)*h;
+					final double[] coords = proj.inverse(x, y);
+					if (coords == null || Double.isNaN(coords[0]))
+						continue;
+					if (proj.isMeridionallySymmetric())
+						assertMirror(coords, proj.inverse(-x, y), false, proj.getName()+" at "+x+", "+y);
+					if (proj.isEquatoriallySymmetric())
+						assertMirror(coords, proj.inverse(x, -y), true, proj.getName()+" at "+x+", "+y);
+				}
+			}
+		}
+	}
+	
+	
+	private static void testMirrored() { //symmetric projections should only interpolate one half or quarter, and copy the rest
+		for (Projection proj : setUp(Lenticular.HAMMER, Lenticular.AITOFF,
+				Lenticular.VAN_DER_GRINTEN, Lenticular.POLYCONIC, Lenticular.EISENLOHR,
+				WinkelTripel.WINKEL_TRIPEL, Gyorffy.E, Cylindrical.MERCATOR.transverse())) { //the last one is turned, so it mustn't be mirrored
+			for (double[] aspect : new double[][] {NORMAL, OBLIQUE})
+				check(proj.getName(), proj, aspect, true, WIDTH, true, .1, 1);
+			
+			final int height = (int) Math.round(WIDTH/proj.getAspectRatio()); //and in the normal aspect, the map itself should be symmetric, up to how closely it solves
+			final double sampleSize = proj.getWidth()/WIDTH;
+			final InverseGrid grid = new InverseGrid(proj, NORMAL, true, WIDTH, height, 1, true);
+			if (grid.isMirroredVertically() != proj.isEquatoriallySymmetric())
+				throw new AssertionError(proj.getName()+(grid.isMirroredVertically() ? " is" : " isn't")+" mirrored");
+			final double[][][] map = new double[height][][];
+			for (int j = 0; j < height; j ++)
+				map[j] = grid.row(j, 0, WIDTH);
+			for (int j = 0; j < height; j ++) {
+				for (int i = 0; i < WIDTH; i ++) {
+					final double[][] mirrors = { map[j][WIDTH-1 - i], map[height-1 - j][i] };
+					for (int k = 0; k < mirrors.length; k ++) {
+						if ((map[j][i] == null) != (mirrors[k] == null) && !isEdge(map, i, j))
+							throw new AssertionError(proj.getName()+" at "+i+", "+j+" isn't mirrored");
+						if (map[j][i] == null || mirrors[k] == null) //which side of the antimeridian cuts off which sample is up to how closely it solves
+							continue;
+						final double[] xy = proj.project(map[j][i]);
+						final double[] mirror = proj.project(mirrors[k]);
+						final double error = (k == 0) ?
+								Math.hypot(xy[0] + mirror[0], xy[1] - mirror[1]) :
+								Math.hypot(xy[0] - mirror[0], xy[1] + mirror[1]);
+						if (!(error <= GENUINE*sampleSize))
+							throw new AssertionError(proj.getName()+" at "+i+", "+j+" is "+
+									error/sampleSize+" samples from its mirror image");
+					}
+				}
+			}
+		}
+	}
+	
+	
+	private static void testDistortionMirrored() { //the distortion copied from the other half should be what it is at the point's mirror image
+		for (Projection proj : setUp(SYMMETRIC)) {
+			final double[][][] points = proj.map(120, NORMAL, true);
+			final double[][][] distortion = proj.calculateDistortion(points);
+			double offset = Double.NaN; //the size distortion is shifted so its mean is zero
+			for (int y = 0; y < points.length; y ++) {
+				for (int x = 0; x < points[y].length; x ++) {
+					if (points[y][x] == null || Double.isNaN(distortion[0][y][x]))
+						continue;
+					if (Double.isNaN(offset)) //the first point is in the top left, so it was never copied
+						offset = proj.getDistortionAt(points[y][x])[0] - distortion[0][y][x];
+					boolean matched = false;
+					for (int[] mirror : new int[][] {{y, x}, {y, points[y].length-1 - x},
+							{points.length-1 - y, x}, {points.length-1 - y, points[y].length-1 - x}}) {
+						if ((mirror[0] != y && !proj.isEquatoriallySymmetric()) ||
+								(mirror[1] != x && !proj.isMeridionallySymmetric()) ||
+								points[mirror[0]][mirror[1]] == null)
+							continue;
+						final double[] expected = proj.getDistortionAt(points[mirror[0]][mirror[1]]);
+						matched |= isClose(expected[0], distortion[0][y][x] + offset) &&
+								isClose(expected[1], distortion[1][y][x]);
+					}
+					if (!matched)
+						throw new AssertionError(proj.getName()+" distortion at "+x+", "+y+" is "+
+								(distortion[0][y][x] + offset)+", "+distortion[1][y][x]+
+								", which isn't the distortion at it or any of its mirror images");
+				}
+			}
+		}
+	}
+	
+	
+	private static void testWarmStart() { //starting from a hint should find the same point as starting from scratch
+		for (Projection proj : setUp(Lenticular.EISENLOHR, Lenticular.POLYCONIC,
+				WinkelTripel.WINKEL_TRIPEL, Gyorffy.E, Snyder.GS50)) {
+			final double w = proj.getWidth(), h = proj.getHeight();
+			for (int i = 0; i < 40; i ++) {
+				for (int j = 0; j < 40; j ++) {
+					final double x = ((i+.5)/40 - .5)*w, y = ((j+.5)/40 - .5)*h;
+					final double[] cold = proj.inverse(x, y);
+					if (!isOnGlobe(cold))
+						continue;
+					final double[][] hints = { //a point next to it, and a point on the other side of the map
+							proj.inverse(((i+1.5)/40 - .5)*w, y), proj.inverse(-x/2, -y/2) };
+					for (int k = 0; k < hints.length; k ++) {
+						if (!isOnGlobe(hints[k]))
+							continue;
+						final double[] warm = proj.inverseNear(x, y, hints[k]);
+						if (k == 0 && !isOnGlobe(warm))
+							throw new AssertionError(proj.getName()+" at "+x+", "+y+
+									" lost the point from a hint next to it: "+Arrays.toString(warm));
+						if (isOnGlobe(warm) && !(distance(cold, warm) <= 1e-3))
+							throw new AssertionError(proj.getName()+" at "+x+", "+y+" found "+
+									Arrays.toString(warm)+" from "+Arrays.toString(hints[k])+
+									" instead of "+Arrays.toString(cold));
+					}
+				}
+			}
+			
+			for (double[] aspect : new double[][] {NORMAL, OBLIQUE}) //and a map that uses a hint at every sample should come out right
+				check(proj.getName(), proj, aspect, true, WIDTH, false, .1, GENUINE);
+		}
+	}
+	
+	
+	private static Projection[] setUp(Projection... prototypes) { //copy some projections with their default parameters
+		final Projection[] projs = new Projection[prototypes.length];
+		for (int k = 0; k < prototypes.length; k ++) {
+			projs[k] = prototypes[k].copy();
+			projs[k].setParameters(projs[k].getDefaultParameters());
+		}
+		return projs;
+	}
+	
+	
+	/**
+	 * Draw a map with an InverseGrid and call inverse() at every sample of the same map, and
+	 * count the ways in which they differ.
+	 * @param proj - The projection, whose parameters should already be set.
+	 * @param aspect - The oblique axis of the map.
+	 * @param crop - Should points with extreme longitudes be hidden?
+	 * @param width - The width of the map in samples.
+	 * @param adaptive - Whether the grid may interpolate.
+	 * @return the differences.
+	 */
+	private static Comparison compare(Projection proj, double[] aspect, boolean crop, int width,
+			boolean adaptive) {
+		final int height = (int) Math.max(1, Math.round(width/proj.getAspectRatio()));
+		final double sampleSize = proj.getWidth()/width;
+		final Projection exact = proj.copy();
+		final double[][][] expected = new double[height][width][];
+		for (int j = 0; j < height; j ++) {
+			for (int i = 0; i < width; i ++) {
+				expected[j][i] = exact.inverse(x(proj, i, width), y(proj, j, height), aspect, crop);
+				if (expected[j][i] != null && Double.isNaN(expected[j][i][0]))
+					expected[j][i] = null;
+			}
+		}
+		
+		final Comparison c = new Comparison();
+		final InverseGrid grid = new InverseGrid(proj, aspect, crop, width, height, 1, adaptive);
+		for (int j = 0; j < height; j ++) {
+			final double[][] row = grid.row(j, 0, width);
+			for (int i = 0; i < width; i ++) {
+				final double[] actual = (row[i] != null && !Double.isNaN(row[i][0])) ? row[i] : null;
+				final boolean edge = isEdge(expected, i, j);
+				if (expected[j][i] != null)
+					c.shown ++;
+				if (edge)
+					c.edge ++;
+				
+				final double error; //how far this sample is from where it should be, in samples
+				if (actual == null)
+					error = (expected[j][i] == null) ? 0 : Double.POSITIVE_INFINITY;
+				else {
+					double mapError = Double.POSITIVE_INFINITY;
+					for (int k = -1; k <= 1; k ++) { //when uncropped, the sample may be on a lobe past the antimeridian
+						if (k != 0 && !Arrays.equals(aspect, NORMAL))
+							continue;
+						final double[] xy = (k == 0) ?
+								exact.project(actual, aspect) : exact.project(actual[0], actual[1] + 2*Math.PI*k);
+						final double e = Math.hypot(xy[0] - x(proj, i, width), xy[1] - y(proj, j, height))/sampleSize;
+						if (e < mapError) //some projections can't project past the antimeridian at all
+							mapError = e;
+					}
+					if (expected[j][i] == null)
+						error = mapError;
+					else
+						error = Math.min(mapError, distance(expected[j][i], actual)/sampleSize); //in case the point it's meant to be doesn't project back
+				}
+				
+				if (actual != null && expected[j][i] == null) {
+					c.extra ++;
+					if (!edge && !(error <= GENUINE)) //an extra sample is fine if inverse() just failed to find it
+						c.interior ++;
+				}
+				else if (actual == null && expected[j][i] != null) {
+					c.missing ++;
+					if (!edge)
+						c.interior ++;
+				}
+				else if (actual != null)
+					c.worst = Math.max(c.worst, error);
+			}
+		}
+		c.evaluations = grid.getNumEvaluations();
+		return c;
+	}
+	
+	
+	/**
+	 * Compare a map drawn with an InverseGrid to one drawn with inverse(), and throw an
+	 * AssertionError if they differ by too much.
+	 * @param name - What to call this map if it fails.
+	 * @param maxEdgeFraction - The largest fraction of the samples on the edge of the map that
+	 * 		the two may disagree about. They may never disagree about any other sample.
+	 * @param tolerance - The largest acceptable error in the position of a sample, in samples.
+	 * @return the differences.
+	 */
+	private static Comparison check(String name, Projection proj, double[] aspect, boolean crop,
+			int width, boolean adaptive, double maxEdgeFraction, double tolerance) {
+		final Comparison c = compare(proj, aspect, crop, width, adaptive);
+		if (c.interior > 0 || c.extra + c.missing > maxEdgeFraction*c.edge || !(c.worst <= tolerance))
+			throw new AssertionError(name+" is wrong: "+c);
+		return c;
+	}
+	
+	
+	private static boolean isShown(double[][][] samples, int i, int j) {
+		return j >= 0 && j < samples.length && i >= 0 && i < samples[j].length && samples[j][i] != null;
+	}
+	
+	
+	private static boolean isEdge(double[][][] samples, int i, int j) { //is this sample shown differently from one next to it?
+		return isShown(samples, i, j) != isShown(samples, i-1, j) ||
+				isShown(samples, i, j) != isShown(samples, i+1, j) ||
+				isShown(samples, i, j) != isShown(samples, i, j-1) ||
+				isShown(samples, i, j) != isShown(samples, i, j+1);
+	}
+	
+	
+	private static double x(Projection proj, int i, int width) { //the x coordinate of a column, as InverseGrid places it
+		return ((i + .5)/width - .5)*proj.getWidth();
+	}
+	
+	
+	private static double y(Projection proj, int j, int height) {
+		return (.5 - (j + .5)/height)*proj.getHeight();
+	}
+	
+	
+	private static double distance(double[] a, double[] b) { //the angle between two points on the globe
+		final double dLon = Math2.coerceAngle(a[1] - b[1]);
+		return Math.hypot(a[0] - b[0], dLon*Math.cos((a[0] + b[0])/2));
+	}
+	
+	
+	private static boolean isOnGlobe(double[] coords) {
+		return coords != null && Math.abs(coords[0]) <= Math.PI/2 && Math.abs(coords[1]) <= Math.PI;
+	}
+	
+	
+	private static boolean isClose(double expected, double actual) { //are these the same, up to roundoff?
+		return Math.abs(expected - actual) <= 1e-9*(1 + Math.abs(expected));
+	}
+	
+	
+	private static void assertMirror(double[] a, double[] b, boolean vertically, String where) { //check that two points are reflections of each other
+		if (b == null || !(Math.abs(a[0] - (vertically ? -b[0] : b[0])) <= 1e-6) ||
+				!(Math.abs(a[1] - (vertically ? b[1] : -b[1])) <= 1e-6))
+			throw new AssertionError(where+": "+Arrays.toString(a)+" isn't the "+
+					(vertically ? "vertical" : "horizontal")+" reflection of "+Arrays.toString(b));
+	}
+	
+	
+	private static void assertEquals(double expected, double actual, String what) {
+		if (expected != actual)
+			throw new AssertionError(what+": expected "+expected+" but got "+actual);
+	}
+	
+	
+	/**
+	 * The ways in which a map drawn with an InverseGrid differs from one drawn with inverse().
+	 */
+	private static class Comparison {
+		int shown; //the number of samples that inverse() puts on the map
+		int edge; //the number of samples on the edge of the map inverse() draws
+		int extra, missing; //the number of samples that only the grid shows, and that only inverse() shows
+		int interior; //the number of those that aren't on the edge, and aren't real points that inverse() missed
+		double worst; //the largest error in a sample that both show, in samples
+		long evaluations; //the number of times the grid called inverse()
+		
+		public String toString() {
+			return shown+" samples, "+edge+" on the edge; "+extra+" extra and "+missing+
+					" missing samples, "+interior+" of them inside the map; off by up to "+worst+
+					" samples, with "+evaluations+" evaluations";
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Map-Projections contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package utils;
+
+import java.util.function.DoubleUnaryOperator;
+
+import maps.Lenticular;
+import maps.Projection;
+
+/**
+ * Checks that the bracketed root finders agree with bisection, and with the known roots of some
+ * awkward functions.
+ * 
+ * @author Map-Projections contributors
+ */
+public class NumericalAnalysisTest {
+	
+	private static final double TOLERANCE = 1e-10;
+	
+	
+	public static void main(String[] args) {
+		testRoots();
+		testBadBounds();
+		testPolyconic();
+		System.out.println("NumericalAnalysisTest passed");
+	}
+	
+	
+	private static void testRoots() {
+		checkRoot("cos x = x", x -> Math.cos(x) - x, x -> -Math.sin(x) - 1, 0, 1, 0.7390851332151607);
+		checkRoot("x^3 - 2x = 5", x -> x*x*x - 2*x - 5, x -> 3*x*x - 2, 2, 3, 2.0945514815423265);
+		checkRoot("reversed bounds", x -> x*x*x - 2*x - 5, x -> 3*x*x - 2, 3, 2, 2.0945514815423265);
+		checkRoot("triple root", x -> Math.pow(x - 1, 3), x -> 3*Math.pow(x - 1, 2), 0, 2.9, 1); //Newton and interpolation converge slowly here
+		checkRoot("steep", x -> Math.atan(1e4*(x - .3)), x -> 1e4/(1 + 1e8*Math.pow(x - .3, 2)), -1, 1, .3); //and overshoots here
+		if (NumericalAnalysis.brentFind(x -> x - 2, 2, 5, TOLERANCE) != 2 ||
+				NumericalAnalysis.newtonBisectionFind(x -> x - 2, x -> 1, 5, 2, 3, TOLERANCE) != 2)
+			throw new AssertionError("a zero at one of the bounds should be found exactly");
+		
+		final double x = NumericalAnalysis.newtonBisectionFind(y -> (y < .5) ? -1 : Double.NaN, y -> 0,
+				0, 1, .25, TOLERANCE);
+		if (!Double.isNaN(x))
+			throw new AssertionError("newtonBisectionFind should give NaN when f is NaN, but gave "+x);
+	}
+	
+	
+	private static void testBadBounds() { //bounds that don't straddle a zero should be refused
+		for (int k = 0; k < 3; k ++) {
+			try {
+				if (k == 0)
+					NumericalAnalysis.bisectionFind(x -> x*x + 1, -1, 1, TOLERANCE);
+				else if (k == 1)
+					NumericalAnalysis.brentFind(x -> x*x + 1, -1, 1, TOLERANCE);
+				else
+					NumericalAnalysis.newtonBisectionFind(x -> x*x + 1, x -> 2*x, -1, 1, 0, TOLERANCE);
+			} catch (IllegalArgumentException e) {
+				continue;
+			}
+			throw new AssertionError("root finder "+k+" accepted bounds that don't straddle a zero");
+		}
+	}
+	
+	
+	private static void testPolyconic() { //the polyconic inverse is newtonBisectionFind's main user
+		final Projection proj = Lenticular.POLYCONIC;
+		for (double lat = -85; lat <= 85; lat += 5) {
+			for (double lon = -175; lon <= 175; lon += 5) {
+				final double[] xy = proj.project(Math.toRadians(lat), Math.toRadians(lon));
+				final double[] coords = proj.inverse(xy[0], xy[1]);
+				final double[] near = proj.inverseNear(xy[0], xy[1],
+						new double[] {Math.toRadians(lat + 2), Math.toRadians(lon - 2)});
+				for (double[] c : new double[][] {coords, near})
+					if (c == null || Math.abs(c[0] - Math.toRadians(lat)) > 1e-8 ||
+							Math.abs(c[1] - Math.toRadians(lon)) > 1e-8)
+						throw new AssertionError("polyconic inverse of ("+lat+", "+lon+") gave "+
+								((c != null) ? Math.toDegrees(c[0])+", "+Math.toDegrees(c[1]) : "null"));
+			}
+		}
+	}
+	
+	
+	private static void checkRoot(String name, DoubleUnaryOperator f, DoubleUnaryOperator dfdx,
+			double xMin, double xMax, double root) {
+		final double[] found = {
+				NumericalAnalysis.bisectionFind(f, xMin, xMax, TOLERANCE),
+				NumericalAnalysis.brentFind(f, xMin, xMax, TOLERANCE),
+				NumericalAnalysis.newtonBisectionFind(f, dfdx, xMin, xMax, (xMin + xMax)/2, TOLERANCE),
+				NumericalAnalysis.newtonBisectionFind(f, dfdx, xMin, xMax, xMin - 1, TOLERANCE), //a guess out of bounds should be ignored
+		};
+		final String[] method = {"bisection", "Brent", "Newton-bisection", "Newton-bisection from outside"};
+		for (int k = 0; k < found.length; k ++)
+			if (!(Math.abs(found[k] - root) <= 2*TOLERANCE))
+				throw new AssertionError(name+": "+method[k]+" found "+found[k]+" rather than "+root);
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Map-Projections contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package utils;
+
+import java.util.Random;
+
+import maps.Projection;
+import maps.Pseudocylindrical;
+
+/**
+ * Checks that RunningStatistics agrees with the same statistics calculated the obvious way, from
+ * all of the values at once.
+ * 
+ * @author Map-Projections contributors
+ */
+public class RunningStatisticsTest {
+	
+	public static void main(String[] args) {
+		testMoments();
+		testMerge();
+		testHistogram();
+		testDistortion();
+		System.out.println("RunningStatisticsTest passed");
+	}
+	
+	
+	private static void testMoments() {
+		final Random rng = new Random(0);
+		for (double offset : new double[] {0, 1e8}) { //a big offset is where summing squares would lose everything
+			final double[] x = new double[1000], w = new double[x.length];
+			final RunningStatistics stats = new RunningStatistics();
+			for (int i = 0; i < x.length; i ++) {
+				x[i] = offset + rng.nextGaussian();
+				w[i] = rng.nextDouble();
+				stats.add(x[i], w[i]);
+			}
+			stats.add(Double.NaN, 1); //these should be ignored
+			stats.add(Double.POSITIVE_INFINITY, 1);
+			stats.add(offset + 1e3, 0);
+			final double[] exact = moments(x, w);
+			assertClose(exact[0], stats.getWeight(), 1e-12, "weight with offset "+offset);
+			assertClose(exact[1], stats.getMean(), 1e-12, "mean with offset "+offset);
+			assertClose(exact[2], stats.getVariance(), 1e-6, "variance with offset "+offset);
+			assertClose(Math.sqrt(exact[2] + exact[1]*exact[1]), stats.getRms(), 1e-12, "RMS with offset "+offset);
+		}
+	}
+	
+	
+	private static void testMerge() { //splitting the values among several sets and merging them should change nothing
+		final Random rng = new Random(1);
+		final double[] x = new double[1000];
+		final RunningStatistics whole = new RunningStatistics();
+		final RunningStatistics[] parts = new RunningStatistics[7];
+		for (int k = 0; k < parts.length; k ++)
+			parts[k] = new RunningStatistics();
+		for (int i = 0; i < x.length; i ++) {
+			x[i] = 3 + 2*rng.nextGaussian();
+			whole.add(x[i]);
+			parts[i*parts.length/x.length].add(x[i]);
+		}
+		final RunningStatistics merged = new RunningStatistics();
+		merged.merge(new RunningStatistics()); //including empty ones
+		for (RunningStatistics part : parts)
+			merged.merge(part);
+		merged.merge(new RunningStatistics());
+		assertClose(whole.getWeight(), merged.getWeight(), 0, "merged weight");
+		assertClose(whole.getMean(), merged.getMean(), 1e-12, "merged mean");
+		assertClose(whole.getVariance(), merged.getVariance(), 1e-12, "merged variance");
+	}
+	
+	
+	private static void testHistogram() {
+		final RunningStatistics stats = new RunningStatistics(-5.005, 5.005, .01); //every value is in the middle of a fine bin
+		final double[] values = {-2, -1, -1, 0, 0, 0, 1, 1, 2, 7}; //the last one is off the histogram
+		for (double x : values)
+			stats.add(x);
+		final double[] hist = stats.getHistogram(-2, 2, 4, 0);
+		final double[] expected = {.1, .2, .3, .2, .1};
+		for (int i = 0; i < hist.length; i ++)
+			assertClose(expected[i], hist[i], 1e-12, "histogram bin "+i);
+		
+		final double[] shifted = stats.getHistogram(-2, 2, 4, 1); //a shift moves everything down a bin
+		for (int i = 0; i < shifted.length; i ++)
+			assertClose((i + 1 < expected.length) ? expected[i + 1] : 0, shifted[i], 1e-12, "shifted histogram bin "+i);
+		
+		final double[] coarse = stats.getHistogram(-2, 2, 1, 0); //the zeros are on the edge between two bins, so they're split
+		assertClose(.45, coarse[0], 1e-12, "coarse histogram bin 0");
+		assertClose(.45, coarse[1], 1e-12, "coarse histogram bin 1");
+	}
+	
+	
+	private static void testDistortion() { //the streamed statistics should match the ones from the full matrix
+		final Projection proj = Pseudocylindrical.SINUSOIDAL;
+		final double[][][] points = Projection.globe(.05);
+		final double[][][] matrix = proj.calculateDistortion(points);
+		final RunningStatistics[] stats = proj.calculateDistortionStatistics(points,
+				new RunningStatistics(), new RunningStatistics(), () -> false, (d) -> {});
+		for (int k = 0; k < 2; k ++) {
+			int n = 0;
+			double sum = 0, sumSqr = 0;
+			for (double[] row : matrix[k]) {
+				for (double v : row) {
+					if (Double.isFinite(v)) {
+						n ++;
+						sum += v;
+						sumSqr += v*v;
+					}
+				}
+			}
+			assertClose(n, stats[k].getWeight(), 0, "number of points of distortion "+k);
+			if (k == 0) //the size matrix is normalised so its mean is zero
+				assertClose(Math.sqrt(sumSqr/n), stats[0].getStdDev(), 1e-9, "standard deviation of size distortion");
+			else
+				assertClose(Math.sqrt(sumSqr/n), stats[1].getRms(), 1e-9, "RMS of shape distortion");
+		}
+		final double[] avg = proj.avgDistortion(points);
+		assertClose(stats[0].getStdDev(), avg[0], 0, "average size distortion");
+		assertClose(stats[1].getRms(), avg[1], 0, "average shape distortion");
+	}
+	
+	
+	private static double[] moments(double[] x, double[] w) { //the weight, mean, and variance, in two passes
+		double weight = 0, sum = 0;
+		for (int i = 0; i < x.length; i ++) {
+			weight += w[i];
+			sum += w[i]*x[i];
+		}
+		final double mean = sum/weight;
+		double m2 = 0;
+		for (int i = 0; i < x.length; i ++)
+			m2 += w[i]*(x[i] - mean)*(x[i] - mean);
+		return new double[] {weight, mean, m2/weight};
+	}
+	
+	
+	private static void assertClose(double expected, double actual, double tolerance, String what) {
+		if (!(Math.abs(actual - expected) <= tolerance*Math.max(1, Math.abs(expected))))
+			throw new AssertionError(what+": expected "+expected+" but got "+actual);
+	}
+}